@@ -0,0 +1,26 @@
+package com.example.inventory.columnar;
+
+/**
+ * Physical column types supported by the columnar export format.
+ */
+public enum ColumnType {
+    /** 64-bit signed integer. */
+    LONG,
+    /** 32-bit signed integer. */
+    INT,
+    /** IEEE 754 double. */
+    DOUBLE,
+    /** Epoch milliseconds, stored as a 64-bit integer. */
+    TIMESTAMP,
+    /** Length-prefixed UTF-8 string. */
+    STRING,
+    /** UTF-8 string stored once per file and referenced by an int code. */
+    DICTIONARY;
+
+    /**
+     * Whether row-group min/max statistics are kept for this type.
+     */
+    boolean hasStats() {
+        return this != STRING && this != DICTIONARY;
+    }
+}
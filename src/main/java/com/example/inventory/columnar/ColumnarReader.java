@@ -0,0 +1,316 @@
+package com.example.inventory.columnar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads files produced by {@link ColumnarWriter}.
+ *
+ * <p>Only the footer is parsed up front. Column chunks are decoded on demand per row group, so a
+ * consumer that needs two columns out of nine never touches the other seven, and row groups whose
+ * statistics fall outside a range can be skipped without decoding anything.</p>
+ */
+public class ColumnarReader {
+
+    private final ByteBuffer buffer;
+    private final ColumnarSchema schema;
+    private final String[][] dictionaries;
+    private final List<RowGroup> rowGroups;
+    private final long rowCount;
+
+    private ColumnarReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        int limit = buffer.limit();
+        byte[] magic = ColumnarWriter.MAGIC;
+        if (limit < magic.length * 2 + 4) {
+            throw new IllegalArgumentException("Not a columnar file: too short");
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (buffer.get(i) != magic[i] || buffer.get(limit - magic.length + i) != magic[i]) {
+                throw new IllegalArgumentException("Not a columnar file: bad magic");
+            }
+        }
+        int footerLength = buffer.getInt(limit - magic.length - 4);
+        ByteBuffer footer = buffer.duplicate();
+        footer.position(limit - magic.length - 4 - footerLength);
+
+        int version = footer.getInt();
+        if (version != ColumnarWriter.VERSION) {
+            throw new IllegalArgumentException("Unsupported columnar version: " + version);
+        }
+        int columns = footer.getInt();
+        ColumnType[] types = ColumnType.values();
+        this.schema = new ColumnarSchema();
+        for (int c = 0; c < columns; c++) {
+            String name = readUtf(footer);
+            schema.add(name, types[footer.get()]);
+        }
+        this.dictionaries = new String[columns][];
+        for (int c = 0; c < columns; c++) {
+            if (schema.type(c) != ColumnType.DICTIONARY) {
+                continue;
+            }
+            String[] dictionary = new String[footer.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(footer);
+            }
+            dictionaries[c] = dictionary;
+        }
+        int groups = footer.getInt();
+        List<RowGroup> parsed = new ArrayList<>(groups);
+        for (int g = 0; g < groups; g++) {
+            int rows = footer.getInt();
+            long[] offsets = new long[columns];
+            int[] lengths = new int[columns];
+            boolean[] hasStats = new boolean[columns];
+            long[] min = new long[columns];
+            long[] max = new long[columns];
+            for (int c = 0; c < columns; c++) {
+                offsets[c] = footer.getLong();
+                lengths[c] = footer.getInt();
+                hasStats[c] = footer.get() != 0;
+                min[c] = footer.getLong();
+                max[c] = footer.getLong();
+            }
+            parsed.add(new RowGroup(rows, offsets, lengths, hasStats, min, max));
+        }
+        this.rowGroups = Collections.unmodifiableList(parsed);
+        this.rowCount = footer.getLong();
+    }
+
+    public static ColumnarReader open(byte[] bytes) {
+        return new ColumnarReader(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Memory-map a file; the mapping stays valid after the channel is closed.
+     */
+    public static ColumnarReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ColumnarReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public ColumnarSchema schema() {
+        return schema;
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    public List<RowGroup> rowGroups() {
+        return rowGroups;
+    }
+
+    /**
+     * Row groups whose statistics for {@code column} overlap the inclusive range {@code [from, to]}.
+     * For TIMESTAMP columns the bounds are epoch milliseconds.
+     */
+    public List<RowGroup> rowGroups(String column, long from, long to) {
+        int c = schema.indexOf(column);
+        List<RowGroup> matching = new ArrayList<>();
+        for (RowGroup group : rowGroups) {
+            if (group.overlaps(c, from, to)) {
+                matching.add(group);
+            }
+        }
+        return matching;
+    }
+
+    public String[] dictionary(String column) {
+        String[] dictionary = dictionaries[schema.indexOf(column)];
+        if (dictionary == null) {
+            throw new IllegalArgumentException("Column is not dictionary encoded: " + column);
+        }
+        return dictionary.clone();
+    }
+
+    private static String readUtf(ByteBuffer source) {
+        int length = Short.toUnsignedInt(source.getShort());
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        // writeUTF uses modified UTF-8, which only differs from UTF-8 for NUL and supplementary characters
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer source) {
+        int length = source.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One horizontal slice of the file. Column accessors decode the chunk each time they are called.
+     */
+    public class RowGroup {
+
+        private final int rowCount;
+        private final long[] offsets;
+        private final int[] lengths;
+        private final boolean[] hasStats;
+        private final long[] min;
+        private final long[] max;
+
+        RowGroup(int rowCount, long[] offsets, int[] lengths, boolean[] hasStats, long[] min, long[] max) {
+            this.rowCount = rowCount;
+            this.offsets = offsets;
+            this.lengths = lengths;
+            this.hasStats = hasStats;
+            this.min = min;
+            this.max = max;
+        }
+
+        public int rowCount() {
+            return rowCount;
+        }
+
+        public boolean hasStats(String column) {
+            return hasStats[schema.indexOf(column)];
+        }
+
+        public long min(String column) {
+            return statistic(column, min);
+        }
+
+        public long max(String column) {
+            return statistic(column, max);
+        }
+
+        public double minDouble(String column) {
+            return Double.longBitsToDouble(statistic(column, min));
+        }
+
+        public double maxDouble(String column) {
+            return Double.longBitsToDouble(statistic(column, max));
+        }
+
+        boolean overlaps(int column, long from, long to) {
+            if (!hasStats[column]) {
+                // no statistics (string columns or an all-null chunk) means we cannot rule the group out
+                return true;
+            }
+            if (schema.type(column) == ColumnType.DOUBLE) {
+                double lo = Double.longBitsToDouble(min[column]);
+                double hi = Double.longBitsToDouble(max[column]);
+                return hi >= from && lo <= to;
+            }
+            return max[column] >= from && min[column] <= to;
+        }
+
+        public boolean[] nulls(String column) {
+            int c = schema.indexOf(column);
+            ByteBuffer chunk = chunk(c);
+            boolean[] result = new boolean[rowCount];
+            int nullCount = chunk.getInt();
+            if (nullCount > 0) {
+                for (int r = 0; r < rowCount; r++) {
+                    result[r] = (chunk.get(chunk.position() + (r >>> 3)) & (1 << (r & 7))) != 0;
+                }
+            }
+            return result;
+        }
+
+        public long[] longs(String column) {
+            int c = expect(column, ColumnType.LONG, ColumnType.TIMESTAMP);
+            ByteBuffer chunk = values(c);
+            long[] result = new long[rowCount];
+            chunk.asLongBuffer().get(result);
+            return result;
+        }
+
+        public int[] ints(String column) {
+            int c = expect(column, ColumnType.INT, ColumnType.INT);
+            ByteBuffer chunk = values(c);
+            int[] result = new int[rowCount];
+            chunk.asIntBuffer().get(result);
+            return result;
+        }
+
+        public double[] doubles(String column) {
+            int c = expect(column, ColumnType.DOUBLE, ColumnType.DOUBLE);
+            ByteBuffer chunk = values(c);
+            double[] result = new double[rowCount];
+            chunk.asDoubleBuffer().get(result);
+            return result;
+        }
+
+        /**
+         * Raw dictionary codes; {@code -1} marks a null. Resolve with {@link ColumnarReader#dictionary(String)}.
+         */
+        public int[] codes(String column) {
+            int c = expect(column, ColumnType.DICTIONARY, ColumnType.DICTIONARY);
+            ByteBuffer chunk = values(c);
+            int[] result = new int[rowCount];
+            chunk.asIntBuffer().get(result);
+            return result;
+        }
+
+        /**
+         * Decoded values of a STRING or DICTIONARY column.
+         */
+        public String[] strings(String column) {
+            int c = expect(column, ColumnType.STRING, ColumnType.DICTIONARY);
+            ByteBuffer chunk = values(c);
+            String[] result = new String[rowCount];
+            if (schema.type(c) == ColumnType.DICTIONARY) {
+                String[] dictionary = dictionaries[c];
+                for (int r = 0; r < rowCount; r++) {
+                    int code = chunk.getInt();
+                    result[r] = code < 0 ? null : dictionary[code];
+                }
+            } else {
+                for (int r = 0; r < rowCount; r++) {
+                    result[r] = readString(chunk);
+                }
+            }
+            return result;
+        }
+
+        private long statistic(String column, long[] values) {
+            int c = schema.indexOf(column);
+            if (!hasStats[c]) {
+                throw new IllegalStateException("No statistics for column: " + column);
+            }
+            return values[c];
+        }
+
+        private int expect(String column, ColumnType first, ColumnType second) {
+            int c = schema.indexOf(column);
+            ColumnType type = schema.type(c);
+            if (type != first && type != second) {
+                throw new IllegalArgumentException("Column " + column + " is " + type + ", not "
+                        + (first == second ? first : Arrays.asList(first, second)));
+            }
+            return c;
+        }
+
+        private ByteBuffer chunk(int column) {
+            ByteBuffer chunk = buffer.duplicate();
+            chunk.position(Math.toIntExact(offsets[column]));
+            chunk.limit(Math.toIntExact(offsets[column] + lengths[column]));
+            return chunk.slice();
+        }
+
+        private ByteBuffer values(int column) {
+            ByteBuffer chunk = chunk(column);
+            int nullCount = chunk.getInt();
+            if (nullCount > 0) {
+                chunk.position(chunk.position() + (rowCount + 7) / 8);
+            }
+            return chunk.slice();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.inventory.columnar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ordered list of named, typed columns describing a columnar file.
+ */
+public class ColumnarSchema {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<ColumnType> types = new ArrayList<>();
+    private final Map<String, Integer> indexByName = new LinkedHashMap<>();
+
+    public ColumnarSchema add(String name, ColumnType type) {
+        if (indexByName.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate column: " + name);
+        }
+        indexByName.put(name, names.size());
+        names.add(name);
+        types.add(type);
+        return this;
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public String name(int index) {
+        return names.get(index);
+    }
+
+    public ColumnType type(int index) {
+        return types.get(index);
+    }
+
+    public List<String> names() {
+        return Collections.unmodifiableList(names);
+    }
+
+    public int indexOf(String name) {
+        Integer index = indexByName.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown column: " + name);
+        }
+        return index;
+    }
+}
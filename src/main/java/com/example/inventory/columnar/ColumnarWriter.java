@@ -0,0 +1,269 @@
+package com.example.inventory.columnar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams rows into the columnar format read by {@link ColumnarReader}.
+ *
+ * <p>Layout: a 4-byte magic, then row groups one after another, then a footer holding the schema,
+ * the per-column dictionaries and a row-group index (offsets, row counts and min/max statistics),
+ * then the footer length and the magic again. Rows are buffered column-wise until a row group is
+ * full, so memory is bounded by {@code rowGroupSize} rows plus the dictionaries.</p>
+ *
+ * <p>{@link #close()} writes the footer and flushes, but leaves the target stream open.</p>
+ */
+public class ColumnarWriter implements Closeable {
+
+    static final byte[] MAGIC = {'I', 'M', 'C', '1'};
+    static final int VERSION = 1;
+
+    private final ColumnarSchema schema;
+    private final int rowGroupSize;
+    private final DataOutputStream out;
+    private long position;
+
+    private final long[][] longValues;
+    private final int[][] intValues;
+    private final double[][] doubleValues;
+    private final String[][] stringValues;
+    private final boolean[][] nulls;
+    private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+
+    private final List<RowGroupMeta> rowGroups = new ArrayList<>();
+    private int rowsInGroup;
+    private long totalRows;
+    private boolean closed;
+
+    public ColumnarWriter(OutputStream target, ColumnarSchema schema, int rowGroupSize) throws IOException {
+        if (rowGroupSize <= 0) {
+            throw new IllegalArgumentException("Row group size must be greater than zero");
+        }
+        this.schema = schema;
+        this.rowGroupSize = rowGroupSize;
+        this.out = new DataOutputStream(target);
+        int columns = schema.size();
+        this.longValues = new long[columns][];
+        this.intValues = new int[columns][];
+        this.doubleValues = new double[columns][];
+        this.stringValues = new String[columns][];
+        this.nulls = new boolean[columns][rowGroupSize];
+        for (int c = 0; c < columns; c++) {
+            switch (schema.type(c)) {
+                case LONG, TIMESTAMP -> longValues[c] = new long[rowGroupSize];
+                case INT, DICTIONARY -> intValues[c] = new int[rowGroupSize];
+                case DOUBLE -> doubleValues[c] = new double[rowGroupSize];
+                case STRING -> stringValues[c] = new String[rowGroupSize];
+            }
+            dictionaries.add(schema.type(c) == ColumnType.DICTIONARY ? new LinkedHashMap<>() : null);
+        }
+        out.write(MAGIC);
+        position = MAGIC.length;
+    }
+
+    /**
+     * Append one row. Values are matched to columns by position; {@code null} is allowed for any column.
+     */
+    public void writeRow(Object... values) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        if (values.length != schema.size()) {
+            throw new IllegalArgumentException("Expected " + schema.size() + " values but got " + values.length);
+        }
+        int row = rowsInGroup;
+        for (int c = 0; c < values.length; c++) {
+            Object value = values[c];
+            nulls[c][row] = value == null;
+            if (value == null) {
+                continue;
+            }
+            switch (schema.type(c)) {
+                case LONG -> longValues[c][row] = ((Number) value).longValue();
+                case TIMESTAMP -> longValues[c][row] = value instanceof Date
+                        ? ((Date) value).getTime()
+                        : ((Number) value).longValue();
+                case INT -> intValues[c][row] = ((Number) value).intValue();
+                case DOUBLE -> doubleValues[c][row] = ((Number) value).doubleValue();
+                case STRING -> stringValues[c][row] = value.toString();
+                case DICTIONARY -> {
+                    Map<String, Integer> dictionary = dictionaries.get(c);
+                    intValues[c][row] = dictionary.computeIfAbsent(value.toString(), k -> dictionary.size());
+                }
+            }
+        }
+        rowsInGroup++;
+        totalRows++;
+        if (rowsInGroup == rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (rowsInGroup > 0) {
+            flushRowGroup();
+        }
+        ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+        DataOutputStream footer = new DataOutputStream(footerBytes);
+        footer.writeInt(VERSION);
+        footer.writeInt(schema.size());
+        for (int c = 0; c < schema.size(); c++) {
+            footer.writeUTF(schema.name(c));
+            footer.writeByte(schema.type(c).ordinal());
+        }
+        for (int c = 0; c < schema.size(); c++) {
+            Map<String, Integer> dictionary = dictionaries.get(c);
+            if (dictionary == null) {
+                continue;
+            }
+            footer.writeInt(dictionary.size());
+            for (String entry : dictionary.keySet()) {
+                writeString(footer, entry);
+            }
+        }
+        footer.writeInt(rowGroups.size());
+        for (RowGroupMeta meta : rowGroups) {
+            footer.writeInt(meta.rowCount);
+            for (int c = 0; c < schema.size(); c++) {
+                footer.writeLong(meta.chunkOffsets[c]);
+                footer.writeInt(meta.chunkLengths[c]);
+                footer.writeBoolean(meta.hasStats[c]);
+                footer.writeLong(meta.min[c]);
+                footer.writeLong(meta.max[c]);
+            }
+        }
+        footer.writeLong(totalRows);
+        footer.flush();
+
+        out.write(footerBytes.toByteArray());
+        out.writeInt(footerBytes.size());
+        out.write(MAGIC);
+        out.flush();
+        closed = true;
+    }
+
+    private void flushRowGroup() throws IOException {
+        int rows = rowsInGroup;
+        RowGroupMeta meta = new RowGroupMeta(schema.size(), rows);
+        ByteArrayOutputStream chunkBytes = new ByteArrayOutputStream();
+        for (int c = 0; c < schema.size(); c++) {
+            chunkBytes.reset();
+            DataOutputStream chunk = new DataOutputStream(chunkBytes);
+            writeNulls(chunk, nulls[c], rows);
+            ColumnType type = schema.type(c);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            double minDouble = Double.POSITIVE_INFINITY;
+            double maxDouble = Double.NEGATIVE_INFINITY;
+            boolean anyValue = false;
+            for (int r = 0; r < rows; r++) {
+                boolean isNull = nulls[c][r];
+                switch (type) {
+                    case LONG, TIMESTAMP -> {
+                        long v = isNull ? 0L : longValues[c][r];
+                        chunk.writeLong(v);
+                        if (!isNull) {
+                            min = Math.min(min, v);
+                            max = Math.max(max, v);
+                        }
+                    }
+                    case INT, DICTIONARY -> {
+                        int v = isNull ? -1 : intValues[c][r];
+                        chunk.writeInt(v);
+                        if (!isNull) {
+                            min = Math.min(min, v);
+                            max = Math.max(max, v);
+                        }
+                    }
+                    case DOUBLE -> {
+                        double v = isNull ? 0.0d : doubleValues[c][r];
+                        chunk.writeDouble(v);
+                        if (!isNull) {
+                            minDouble = Math.min(minDouble, v);
+                            maxDouble = Math.max(maxDouble, v);
+                        }
+                    }
+                    case STRING -> {
+                        if (isNull) {
+                            chunk.writeInt(-1);
+                        } else {
+                            writeString(chunk, stringValues[c][r]);
+                        }
+                        stringValues[c][r] = null;
+                    }
+                }
+                anyValue |= !isNull;
+            }
+            chunk.flush();
+            meta.chunkOffsets[c] = position;
+            meta.chunkLengths[c] = chunkBytes.size();
+            meta.hasStats[c] = anyValue && type.hasStats();
+            if (type == ColumnType.DOUBLE) {
+                meta.min[c] = Double.doubleToLongBits(minDouble);
+                meta.max[c] = Double.doubleToLongBits(maxDouble);
+            } else {
+                meta.min[c] = min;
+                meta.max[c] = max;
+            }
+            chunkBytes.writeTo(out);
+            position += chunkBytes.size();
+        }
+        rowGroups.add(meta);
+        rowsInGroup = 0;
+    }
+
+    private static void writeNulls(DataOutputStream chunk, boolean[] columnNulls, int rows) throws IOException {
+        int nullCount = 0;
+        for (int r = 0; r < rows; r++) {
+            if (columnNulls[r]) nullCount++;
+        }
+        chunk.writeInt(nullCount);
+        if (nullCount == 0) {
+            return;
+        }
+        byte[] bitmap = new byte[(rows + 7) / 8];
+        for (int r = 0; r < rows; r++) {
+            if (columnNulls[r]) {
+                bitmap[r >>> 3] |= (byte) (1 << (r & 7));
+            }
+        }
+        chunk.write(bitmap);
+    }
+
+    private static void writeString(DataOutputStream target, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        target.writeInt(bytes.length);
+        target.write(bytes);
+    }
+
+    private static final class RowGroupMeta {
+        final int rowCount;
+        final long[] chunkOffsets;
+        final int[] chunkLengths;
+        final boolean[] hasStats;
+        final long[] min;
+        final long[] max;
+
+        RowGroupMeta(int columns, int rowCount) {
+            this.rowCount = rowCount;
+            this.chunkOffsets = new long[columns];
+            this.chunkLengths = new int[columns];
+            this.hasStats = new boolean[columns];
+            this.min = new long[columns];
+            this.max = new long[columns];
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.inventory.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Local Caffeine caches for rarely changing reference data. Size bound, TTL and stats recording are
+ * set by {@code spring.cache.caffeine.spec}; the caches are declared in {@code spring.cache.cache-names}
+ * so their hit/miss metrics ({@code cache.gets}) are registered with the actuator at startup.
+ * Entries are evicted by the save and delete methods of the owning service.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CATEGORIES = "categories";
+    public static final String SUPPLIERS = "suppliers";
+    public static final String PRODUCT_SUMMARIES = "productSummaries";
+}
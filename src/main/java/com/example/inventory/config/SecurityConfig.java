@@ -2,9 +2,15 @@ package com.example.inventory.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -12,12 +18,27 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
+    /**
+     * JSON endpoints called by scanners and bulk count clients rather than browsers. The CSV upload
+     * to /transactions/cycle-count is a browser form and stays with the form login.
+     */
+    static final RequestMatcher API = new OrRequestMatcher(
+            PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.POST, "/transactions/movements"),
+            new AndRequestMatcher(PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.POST, "/transactions/cycle-count"),
+                    SecurityConfig::isJson));
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -41,13 +62,31 @@ public class SecurityConfig {
         return new InMemoryUserDetailsManager(admin, user);
     }
 
+    /**
+     * API clients send HTTP Basic credentials with every request. No session is kept, so there is no
+     * CSRF token to send either; the method security on the endpoints still applies.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(API)
+                .authorizeHttpRequests(authz -> authz.anyRequest().hasAnyRole("ADMIN", "USER"))
+                .httpBasic(Customizer.withDefaults())
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        return http.build();
+    }
+
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/login").permitAll()
                         .requestMatchers("/css/**", "/js/**", "/images/**").permitAll()
-                        .requestMatchers("/dashboard", "/products/**", "/categories/**", "/suppliers/**", "/orders/**").hasAnyRole("ADMIN", "USER")
+                        .requestMatchers("/dashboard", "/products/**", "/categories/**", "/suppliers/**", "/orders/**", "/transactions/**").hasAnyRole("ADMIN", "USER")
                         .requestMatchers("/reports/**").hasAnyRole("ADMIN", "USER")
                         .requestMatchers("/csv/**").hasAnyRole("ADMIN", "USER")
                         .anyRequest().authenticated()
@@ -66,4 +105,13 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+    private static boolean isJson(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        try {
+            return contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.inventory.controller;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -8,10 +9,15 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.example.inventory.entity.Category;
 import com.example.inventory.service.CategoryService;
+import com.example.inventory.service.DataVersions.DataSet;
+import com.example.inventory.service.KeysetRequest;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @Controller
@@ -19,14 +25,23 @@ import jakarta.validation.Valid;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final FragmentCache fragmentCache;
 
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, FragmentCache fragmentCache) {
         this.categoryService = categoryService;
+        this.fragmentCache = fragmentCache;
     }
 
     @GetMapping
-    public String listCategories(Model model) {
-        model.addAttribute("categories", categoryService.getAllCategories());
+    public String listCategories(Model model, @ModelAttribute KeysetRequest keyset, HttpServletRequest request,
+                                 HttpServletResponse response) {
+        try {
+            model.addAttribute("categoryTable", fragmentCache.table("fragments/categories_table", "categoryPage",
+                    () -> categoryService.getCategoryPage(keyset), keyset.describe(), request, response,
+                    DataSet.CATEGORIES));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
         return "categories";
     }
 
@@ -48,7 +63,6 @@ public class CategoryController {
         if (result.hasErrors()) {
             return "category_form";
         }
-        categoryService.getAllCategories().add(category); 
         categoryService.saveOrUpdateCategory(category);
         return "redirect:/categories";
     }
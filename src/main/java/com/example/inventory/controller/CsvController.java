@@ -2,11 +2,17 @@ package com.example.inventory.controller;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -16,9 +22,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.example.inventory.service.ColumnarExportService;
 import com.example.inventory.service.OrderCsvService;
 import com.example.inventory.service.ProductCsvService;
+import com.example.inventory.service.StockReconciliationService;
 
 @Controller
 @RequestMapping("/csv")
@@ -26,10 +36,16 @@ public class CsvController {
 
     private final ProductCsvService productCsvService;
     private final OrderCsvService orderCsvService;
+    private final ColumnarExportService columnarExportService;
+    private final StockReconciliationService stockReconciliationService;
 
-    public CsvController(ProductCsvService productCsvService, OrderCsvService orderCsvService) {
+    public CsvController(ProductCsvService productCsvService, OrderCsvService orderCsvService,
+                         ColumnarExportService columnarExportService,
+                         StockReconciliationService stockReconciliationService) {
         this.productCsvService = productCsvService;
         this.orderCsvService = orderCsvService;
+        this.columnarExportService = columnarExportService;
+        this.stockReconciliationService = stockReconciliationService;
     }
 
     // ===== PRODUCT CSV ENDPOINTS =====
@@ -46,6 +62,18 @@ public class CsvController {
                 .body(outputStream.toByteArray());
     }
 
+    @GetMapping("/products/export/columnar")
+    public ResponseEntity<byte[]> exportProductsColumnar() throws IOException {
+        ByteArrayOutputStream outputStream = columnarExportService.exportProductsToColumnar();
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String filename = "products_" + timestamp + ".imc";
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(outputStream.toByteArray());
+    }
+
     @GetMapping("/products/import")
     public String productImportForm() {
         return "csv/product_import";
@@ -88,6 +116,41 @@ public class CsvController {
                 .body(outputStream.toByteArray());
     }
 
+    /**
+     * Partitioned export: id-range slices are read concurrently and streamed in order,
+     * or delivered as a ZIP with one CSV per slice when {@code archive=true}.
+     */
+    @GetMapping("/orders/export/partitioned")
+    public ResponseEntity<StreamingResponseBody> exportOrdersPartitioned(
+            @RequestParam(name = "partitions", defaultValue = "4") int partitions,
+            @RequestParam(name = "archive", defaultValue = "false") boolean archive) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        if (archive) {
+            String filename = "orders_" + timestamp + ".zip";
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                    .body(out -> orderCsvService.exportOrdersToCsvArchive(out, partitions));
+        }
+        String filename = "orders_" + timestamp + ".csv";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(out -> orderCsvService.exportOrdersToCsvPartitioned(out, partitions));
+    }
+
+    @GetMapping("/orders/export/columnar")
+    public ResponseEntity<byte[]> exportOrdersColumnar() throws IOException {
+        ByteArrayOutputStream outputStream = columnarExportService.exportOrdersToColumnar();
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String filename = "orders_" + timestamp + ".imc";
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(outputStream.toByteArray());
+    }
+
     @GetMapping("/orders/import")
     public String orderImportForm() {
         return "csv/order_import";
@@ -115,4 +178,62 @@ public class CsvController {
         
         return "csv/order_import";
     }
+
+    // ===== STOCK RECONCILIATION =====
+
+    @GetMapping("/stock/reconcile")
+    public String stockReconcileForm() {
+        return "csv/stock_reconcile";
+    }
+
+    /**
+     * Diff a warehouse stock file against product quantities; the discrepancy report is built in a
+     * temporary file and streamed back, so neither side is held in memory.
+     */
+    @PostMapping("/stock/reconcile")
+    public ResponseEntity<StreamingResponseBody> reconcileStock(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return backToReconcileForm("Please select a file to upload");
+        }
+        Path report = null;
+        try {
+            report = Files.createTempFile("stock-discrepancies-", ".csv");
+            try (InputStream in = file.getInputStream(); OutputStream out = Files.newOutputStream(report)) {
+                stockReconciliationService.reconcile(in, out);
+            }
+        } catch (IOException e) {
+            deleteQuietly(report);
+            return backToReconcileForm("Error processing file: " + e.getMessage());
+        }
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        String filename = "stock_discrepancies_" + timestamp + ".csv";
+        Path body = report;
+        StreamingResponseBody stream = out -> {
+            try {
+                Files.copy(body, out);
+            } finally {
+                deleteQuietly(body);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(stream);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> backToReconcileForm(String errorMessage) {
+        URI form = ServletUriComponentsBuilder.fromCurrentContextPath().path("/csv/stock/reconcile")
+                .queryParam("error", errorMessage).encode().build().toUri();
+        return ResponseEntity.status(HttpStatus.SEE_OTHER).location(form).build();
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
 }
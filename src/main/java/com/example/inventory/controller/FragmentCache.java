@@ -0,0 +1,117 @@
+package com.example.inventory.controller;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.IServletWebExchange;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import com.example.inventory.service.DataVersions;
+import com.example.inventory.service.DataVersions.DataSet;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Rendered HTML of list tables, reused until the data they show changes.
+ *
+ * A table lives in its own template under {@code fragments/} as {@code th:fragment="table"}. It is
+ * cached under the {@link DataVersions} stamps of the data sets it shows, together with everything
+ * else the markup depends on: the user's roles ({@code sec:authorize}), the context path (links)
+ * and the locale. A write moves the stamp on, so the next request renders afresh and the old entry
+ * is never read again; it ages out of the cache, whose size is bounded by
+ * {@code inventory.fragment-cache.max-bytes} of HTML. Fragments must not contain forms: a CSRF
+ * token is per session and would be shared with every user of the entry.
+ *
+ * Metrics are Micrometer's cache metrics ({@code cache.gets} with {@code result} hit or miss,
+ * {@code cache.evictions}, {@code cache.size}) tagged {@code cache=fragments}.
+ */
+@Component
+public class FragmentCache {
+
+    private static final String FRAGMENT = "table";
+
+    private final ITemplateEngine templateEngine;
+    private final DataVersions dataVersions;
+    private final JakartaServletWebApplication application;
+    private final Cache<String, String> cache;
+
+    public FragmentCache(ITemplateEngine templateEngine, DataVersions dataVersions, ServletContext servletContext,
+                         MeterRegistry meterRegistry,
+                         @Value("${inventory.fragment-cache.max-bytes:8388608}") long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be at least 1");
+        }
+        this.templateEngine = templateEngine;
+        this.dataVersions = dataVersions;
+        this.application = JakartaServletWebApplication.buildApplication(servletContext);
+        this.cache = Caffeine.newBuilder()
+                // two bytes per char
+                .maximumWeight(maxBytes)
+                .weigher((String key, String html) -> 2 * (key.length() + html.length()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "fragments");
+    }
+
+    /**
+     * The table of {@code template}, rendered with {@code rows} as model attribute {@code variable}
+     * unless the current rendering of the data sets is cached. {@code rows} is only called on a miss.
+     * {@code variant} tells apart renderings of the same data, such as pages of a list.
+     */
+    public String table(String template, String variable, Supplier<?> rows, String variant, HttpServletRequest request,
+                        HttpServletResponse response, DataSet... dataSets) {
+        Locale locale = RequestContextUtils.getLocale(request);
+        StringBuilder key = new StringBuilder(template).append('|').append(variant);
+        for (DataSet set : dataSets) {
+            key.append('|').append(set).append('=').append(dataVersions.current(set));
+        }
+        key.append('|').append(roles()).append('|').append(request.getContextPath()).append('|').append(locale);
+        return cache.get(key.toString(), k -> render(template, Map.of(variable, rows.get()), request, response, locale));
+    }
+
+    private String render(String template, Map<String, Object> variables, HttpServletRequest request,
+                          HttpServletResponse response, Locale locale) {
+        IServletWebExchange exchange = application.buildExchange(request, new HttpServletResponseWrapper(response) {
+            // a session id rewritten into a link would be served to every user of the entry
+            @Override
+            public String encodeURL(String url) {
+                return url;
+            }
+
+            @Override
+            public String encodeRedirectURL(String url) {
+                return url;
+            }
+        });
+        return templateEngine.process(template, Set.of(FRAGMENT), new WebContext(exchange, locale, variables));
+    }
+
+    private static Set<String> roles() {
+        Set<String> roles = new TreeSet<>();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                roles.add(authority.getAuthority());
+            }
+        }
+        return roles;
+    }
+}
@@ -1,5 +1,197 @@
 package com.example.inventory.controller;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import com.example.inventory.entity.InventoryTransaction;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.TransactionType;
+import com.example.inventory.service.CycleCountService;
+import com.example.inventory.service.InventorySnapshotService;
+import com.example.inventory.service.InventoryTransactionService;
+import com.example.inventory.service.KeysetPage;
+import com.example.inventory.service.KeysetRequest;
+import com.example.inventory.service.ProductService;
+import com.example.inventory.service.StockMovementIngestor;
+
+@Controller
+@RequestMapping("/transactions")
 public class InventoryTransactionController {
-    
+
+    private final InventoryTransactionService transactionService;
+    private final InventorySnapshotService snapshotService;
+    private final CycleCountService cycleCountService;
+    private final ProductService productService;
+    private final StockMovementIngestor movementIngestor;
+
+    public InventoryTransactionController(InventoryTransactionService transactionService,
+                                          InventorySnapshotService snapshotService, CycleCountService cycleCountService,
+                                          ProductService productService, StockMovementIngestor movementIngestor) {
+        this.transactionService = transactionService;
+        this.snapshotService = snapshotService;
+        this.cycleCountService = cycleCountService;
+        this.productService = productService;
+        this.movementIngestor = movementIngestor;
+    }
+
+    @GetMapping
+    public String listTransactions(Model model,
+                                   @RequestParam(name = "productId", required = false) Long productId,
+                                   @RequestParam(name = "page", defaultValue = "0") int page,
+                                   @RequestParam(name = "size", defaultValue = "20") int size) {
+        Page<InventoryTransaction> transactionsPage = transactionService.getTransactions(productId, PageRequest.of(page, size));
+
+        model.addAttribute("transactionsPage", transactionsPage);
+        model.addAttribute("productId", productId);
+        model.addAttribute("pageSize", size);
+        model.addAttribute("products", productService.getProductSummaries());
+        return "transactions";
+    }
+
+    /**
+     * Stock on hand of one product, or of a keyset page of products, at a point in time, from the
+     * nearest snapshot. Balances are read for the products shown only.
+     */
+    @GetMapping("/as-of")
+    public String stockAsOf(Model model, @ModelAttribute KeysetRequest keyset,
+                            @RequestParam(name = "at", required = false)
+                            @DateTimeFormat(pattern = "yyyy-MM-dd'T'HH:mm") LocalDateTime at,
+                            @RequestParam(name = "productId", required = false) Long productId) {
+        LocalDateTime asOf = at != null ? at : LocalDateTime.now().withSecond(0).withNano(0);
+        KeysetPage<Product> page = null;
+        List<Product> products;
+        if (productId != null) {
+            products = List.of(productService.getProductById(productId));
+        } else {
+            try {
+                page = productService.getProductPage(keyset);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+            }
+            products = page.getContent();
+        }
+        Map<Long, Integer> balances = snapshotService.getStockAsOf(
+                products.stream().map(Product::getId).toList(),
+                Date.from(asOf.atZone(ZoneId.systemDefault()).toInstant()));
+
+        model.addAttribute("asOf", asOf);
+        model.addAttribute("productId", productId);
+        model.addAttribute("products", products);
+        model.addAttribute("page", page);
+        model.addAttribute("balances", balances);
+        return "stock_as_of";
+    }
+
+    @GetMapping("/add")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String addTransactionForm(Model model) {
+        model.addAttribute("products", productService.getProductSummaries());
+        model.addAttribute("types", TransactionType.values());
+        return "transaction_form";
+    }
+
+    /**
+     * Post a receipt, sale, adjustment or return - admin-only
+     */
+    @PostMapping("/save")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String saveTransaction(@RequestParam("productId") Long productId,
+                                  @RequestParam("type") TransactionType type,
+                                  @RequestParam("quantity") int quantity,
+                                  @RequestParam(name = "reason", required = false) String reason,
+                                  Model model,
+                                  RedirectAttributes redirectAttributes) {
+        try {
+            transactionService.post(productId, type, quantity, reason, null);
+            redirectAttributes.addFlashAttribute("successMessage", type + " of " + quantity + " posted.");
+            return "redirect:/transactions?productId=" + productId;
+        } catch (IllegalStateException | IllegalArgumentException ex) {
+            model.addAttribute("errorMessage", ex.getMessage());
+            model.addAttribute("products", productService.getProductSummaries());
+            model.addAttribute("types", TransactionType.values());
+            return "transaction_form";
+        }
+    }
+
+    @GetMapping("/cycle-count")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String cycleCountForm() {
+        return "cycle_count";
+    }
+
+    /**
+     * Apply a stock count uploaded as CSV ("Product ID", "Counted") - admin-only
+     */
+    @PostMapping(value = "/cycle-count", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public String uploadCycleCount(@RequestParam("file") MultipartFile file,
+                                   @RequestParam(name = "reason", required = false) String reason,
+                                   Model model) {
+        if (file.isEmpty()) {
+            model.addAttribute("errorMessage", "Please select a file to upload");
+            return "cycle_count";
+        }
+        try {
+            List<String> problems = new ArrayList<>();
+            List<CycleCountService.Count> counts = cycleCountService.parseCsv(file.getInputStream(), problems);
+            model.addAttribute("summary", cycleCountService.apply(counts, reason, problems));
+        } catch (IOException e) {
+            model.addAttribute("errorMessage", "Error processing file: " + e.getMessage());
+        }
+        return "cycle_count";
+    }
+
+    /**
+     * Apply a stock count sent as a JSON array of {"productId", "counted"} - admin-only
+     */
+    @PostMapping(value = "/cycle-count", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public CycleCountService.Summary applyCycleCount(@RequestBody List<CycleCountService.Count> counts,
+                                                     @RequestParam(name = "reason", required = false) String reason) {
+        return cycleCountService.apply(counts, reason);
+    }
+
+    /**
+     * Queue scanned stock movements, a JSON array of {"productId", "type", "quantity"}, to be applied
+     * in the background - admin-only. 202 with the number accepted, or 503 with the number accepted
+     * so far when the queue is full (the rest should be retried).
+     */
+    @PostMapping(value = "/movements", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public ResponseEntity<Map<String, Integer>> publishMovements(@RequestBody List<StockMovementIngestor.Movement> movements) {
+        try {
+            int accepted = movementIngestor.tryPublishAll(movements);
+            HttpStatus status = accepted == movements.size() ? HttpStatus.ACCEPTED : HttpStatus.SERVICE_UNAVAILABLE;
+            return ResponseEntity.status(status).body(Map.of("accepted", accepted));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("accepted", 0));
+        }
+    }
 }
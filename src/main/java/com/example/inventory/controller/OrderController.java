@@ -1,9 +1,11 @@
 package com.example.inventory.controller;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import java.security.Principal;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -13,8 +15,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.example.inventory.entity.Order;
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.service.KeysetPage;
+import com.example.inventory.service.KeysetRequest;
+import com.example.inventory.service.OrderBulkService;
+import com.example.inventory.service.OrderIntakeQueue;
 import com.example.inventory.service.OrderService;
 import com.example.inventory.service.ProductService;
 import com.example.inventory.service.SupplierService;
@@ -28,30 +37,35 @@ public class OrderController {
     private final OrderService orderService;
     private final ProductService productService;
     private final SupplierService supplierService;
+    private final OrderBulkService orderBulkService;
+    private final OrderIntakeQueue orderIntake;
 
-    public OrderController(OrderService orderService, ProductService productService, SupplierService supplierService) {
+    public OrderController(OrderService orderService, ProductService productService, SupplierService supplierService,
+                           OrderBulkService orderBulkService, OrderIntakeQueue orderIntake) {
         this.orderService = orderService;
         this.productService = productService;
         this.supplierService = supplierService;
+        this.orderBulkService = orderBulkService;
+        this.orderIntake = orderIntake;
     }
 
+    /**
+     * Orders by cursor: {@code after}/{@code afterId} or {@code before}/{@code beforeId} seek from
+     * a row of the previous page instead of skipping an offset, and no count is run unless
+     * {@code count=true}.
+     */
     @GetMapping
-    public String listOrders(Model model,
-                             @RequestParam(name = "page", defaultValue = "0") int page,
-                             @RequestParam(name = "size", defaultValue = "10") int size,
-                             @RequestParam(name = "sortField", defaultValue = "orderDate") String sortField,
-                             @RequestParam(name = "sortDir", defaultValue = "desc") String sortDir) {
-
-        Sort.Direction direction = "asc".equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
-        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortField));
-        Page<Order> ordersPage = orderService.getOrders(pageable);
+    public String listOrders(Model model, @ModelAttribute KeysetRequest keyset) {
+        KeysetPage<Order> ordersPage;
+        try {
+            ordersPage = orderService.getOrderPage(keyset);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
 
         model.addAttribute("ordersPage", ordersPage);
-        model.addAttribute("currentPage", page);
-        model.addAttribute("pageSize", size);
-        model.addAttribute("sortField", sortField);
-        model.addAttribute("sortDir", sortDir);
-        model.addAttribute("reverseSortDir", "asc".equalsIgnoreCase(sortDir) ? "desc" : "asc");
+        model.addAttribute("reverseSortDir", "asc".equals(ordersPage.getSortDir()) ? "desc" : "asc");
+        model.addAttribute("statuses", OrderStatus.values());
 
         return "orders";
     }
@@ -59,7 +73,9 @@ public class OrderController {
     @GetMapping("/add")
     public String addOrderForm(Model model) {
         model.addAttribute("order", new Order());
-        model.addAttribute("products", productService.getAllProducts());
+        // lets a double-submitted or retried form create the order only once
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
+        model.addAttribute("products", productService.getProductSummaries());
         model.addAttribute("suppliers", supplierService.getAllSuppliers());
         return "order_form";
     }
@@ -68,15 +84,17 @@ public class OrderController {
     public String editOrderForm(@PathVariable Long id, Model model) {
         Order order = orderService.getOrderById(id);
         model.addAttribute("order", order);
-        model.addAttribute("products", productService.getAllProducts());
+        model.addAttribute("products", productService.getProductSummaries());
         model.addAttribute("suppliers", supplierService.getAllSuppliers());
         return "order_form";
     }
 
     @PostMapping("/save")
-    public String saveOrUpdateOrder(@Valid @ModelAttribute Order order, BindingResult result, Model model) {
+    public String saveOrUpdateOrder(@Valid @ModelAttribute Order order, BindingResult result,
+                                    @RequestParam(name = "idempotencyKey", required = false) String idempotencyKey,
+                                    Model model) {
         if (result.hasErrors()) {
-            model.addAttribute("products", productService.getAllProducts());
+            model.addAttribute("products", productService.getProductSummaries());
             model.addAttribute("suppliers", supplierService.getAllSuppliers());
             return "order_form";
         }
@@ -94,34 +112,56 @@ public class OrderController {
         // Validate product selection
         if (order.getProduct() == null || order.getProduct().getId() == null) {
             model.addAttribute("errorMessage", "Please select a product for the order.");
-            model.addAttribute("products", productService.getAllProducts());
+            model.addAttribute("products", productService.getProductSummaries());
             model.addAttribute("suppliers", supplierService.getAllSuppliers());
             return "order_form";
         }
 
         try {
-            orderService.saveOrUpdateOrder(order);
+            orderIntake.submit(order, idempotencyKey);
             return "redirect:/orders";
         } catch (IllegalStateException ex) {
             // validation failed (e.g., insufficient inventory)
             model.addAttribute("errorMessage", ex.getMessage());
-            model.addAttribute("products", productService.getAllProducts());
+            model.addAttribute("products", productService.getProductSummaries());
             model.addAttribute("suppliers", supplierService.getAllSuppliers());
             return "order_form";
         } catch (org.springframework.dao.DataIntegrityViolationException ex) {
             // A foreign key constraint (supplier/product mismatch) — error message
             model.addAttribute("errorMessage", "Database constraint error: please ensure selected supplier and product exist.");
-            model.addAttribute("products", productService.getAllProducts());
+            model.addAttribute("products", productService.getProductSummaries());
             model.addAttribute("suppliers", supplierService.getAllSuppliers());
             return "order_form";
         } catch (Exception ex) {
             model.addAttribute("errorMessage", "Unexpected error: " + ex.getMessage());
-            model.addAttribute("products", productService.getAllProducts());
+            model.addAttribute("products", productService.getProductSummaries());
             model.addAttribute("suppliers", supplierService.getAllSuppliers());
             return "order_form";
         }
     }
 
+    /**
+     * Move the checked orders to one status - admin-only
+     */
+    @PostMapping("/bulk-status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String bulkUpdateStatus(@RequestParam(name = "ids", required = false) List<Long> ids,
+                                   @RequestParam("status") OrderStatus status,
+                                   Principal principal,
+                                   RedirectAttributes redirectAttributes) {
+        if (ids == null || ids.isEmpty()) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Select at least one order.");
+            return "redirect:/orders";
+        }
+        try {
+            int updated = orderBulkService.transition(ids, status, principal != null ? principal.getName() : null);
+            redirectAttributes.addFlashAttribute("successMessage", updated + " order(s) moved to " + status + ".");
+        } catch (IllegalStateException ex) {
+            redirectAttributes.addFlashAttribute("errorMessage", ex.getMessage());
+        }
+        return "redirect:/orders";
+    }
+
     @GetMapping("/delete/{id}")
     public String deleteOrder(@PathVariable Long id) {
         orderService.deleteOrder(id);
@@ -1,13 +1,23 @@
 package com.example.inventory.controller;
 
 import com.example.inventory.entity.Product;
+import com.example.inventory.entity.ProductSummary;
 import com.example.inventory.service.CategoryService;
+import com.example.inventory.service.DataVersions.DataSet;
+import com.example.inventory.service.KeysetRequest;
 import com.example.inventory.service.ProductService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
 
 @Controller
 @RequestMapping("/products")
@@ -15,18 +25,38 @@ public class ProductController {
 
     private final ProductService productService;
     private final CategoryService categoryService;
+    private final FragmentCache fragmentCache;
 
-    public ProductController(ProductService productService, CategoryService categoryService) {
+    public ProductController(ProductService productService, CategoryService categoryService, FragmentCache fragmentCache) {
         this.productService = productService;
         this.categoryService = categoryService;
+        this.fragmentCache = fragmentCache;
     }
 
     @GetMapping
-    public String listProducts(Model model) {
-        model.addAttribute("products", productService.getAllProducts());
+    public String listProducts(Model model, @ModelAttribute KeysetRequest keyset, HttpServletRequest request,
+                               HttpServletResponse response) {
+        try {
+            // rows show their category's name
+            model.addAttribute("productTable", fragmentCache.table("fragments/products_table", "productPage",
+                    () -> productService.getProductPage(keyset), keyset.describe(), request, response,
+                    DataSet.PRODUCTS, DataSet.CATEGORIES));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
         return "products";
     }
 
+    /**
+     * Products matching the query, best first (JSON for search as you type)
+     */
+    @GetMapping("/api/search")
+    @ResponseBody
+    public List<ProductSummary> searchProducts(@RequestParam(name = "q", defaultValue = "") String query,
+                                               @RequestParam(defaultValue = "10") int limit) {
+        return productService.searchProducts(query, limit);
+    }
+
     @GetMapping("/add")
     public String addProductForm(Model model) {
         model.addAttribute("product", new Product());
@@ -48,7 +78,14 @@ public class ProductController {
             model.addAttribute("categories", categoryService.getAllCategories());
             return "product_form";
         }
-        productService.saveOrUpdateProduct(product);
+        try {
+            productService.saveOrUpdateProduct(product);
+        } catch (OptimisticLockingFailureException ex) {
+            // someone else (often an order changing stock) saved this product after the form was opened
+            model.addAttribute("errorMessage", "This product was changed while you were editing it. Reload it and apply your changes again.");
+            model.addAttribute("categories", categoryService.getAllCategories());
+            return "product_form";
+        }
         return "redirect:/products";
     }
 
@@ -3,6 +3,7 @@ package com.example.inventory.controller;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -11,10 +12,15 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.example.inventory.entity.Supplier;
+import com.example.inventory.service.DataVersions.DataSet;
+import com.example.inventory.service.KeysetRequest;
 import com.example.inventory.service.SupplierService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @Controller
@@ -24,9 +30,19 @@ public class SupplierController {
     @Autowired
     private SupplierService supplierService;
 
+    @Autowired
+    private FragmentCache fragmentCache;
+
     @GetMapping("/list")
-    public String listSuppliers(Model model) {
-        model.addAttribute("suppliers", supplierService.getAllSuppliers());
+    public String listSuppliers(Model model, @ModelAttribute KeysetRequest keyset, HttpServletRequest request,
+                                HttpServletResponse response) {
+        try {
+            model.addAttribute("supplierTable", fragmentCache.table("fragments/suppliers_table", "supplierPage",
+                    () -> supplierService.getSupplierPage(keyset), keyset.describe(), request, response,
+                    DataSet.SUPPLIERS));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
         return "supplier_list";
     }
 
@@ -0,0 +1,61 @@
+package com.example.inventory.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+
+/**
+ * A product's on-hand quantity at a period boundary: every ledger movement created before
+ * {@code snapshotAt} is included, none after. Stock as of any later time is this quantity plus the
+ * movements since, so a point-in-time query never replays history from the beginning.
+ */
+@Entity
+@Table(name = "inventory_snapshot", indexes = {
+        @Index(name = "ux_inventory_snapshot_product_time", columnList = "product_id, snapshot_at", unique = true)
+})
+public class InventorySnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "snapshot_at", nullable = false)
+    private Date snapshotAt;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    public InventorySnapshot() {
+    }
+
+    public InventorySnapshot(Long productId, Date snapshotAt, int quantity) {
+        this.productId = productId;
+        this.snapshotAt = snapshotAt;
+        this.quantity = quantity;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public Date getSnapshotAt() { return snapshotAt; }
+    public void setSnapshotAt(Date snapshotAt) { this.snapshotAt = snapshotAt; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+}
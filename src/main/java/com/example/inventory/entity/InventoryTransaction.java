@@ -1,5 +1,75 @@
 package com.example.inventory.entity;
 
+import java.util.Date;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+
+/**
+ * One stock movement in the append-only inventory ledger. Rows are written in batches with plain
+ * JDBC and never updated; {@code balanceAfter} is the product's on-hand quantity right after the
+ * movement ({@code null} for products whose stock is sharded). Product and order are plain ids
+ * without foreign keys, so the ledger outlives deleted products and orders.
+ */
+@Entity
+@Immutable
+@Table(name = "inventory_transaction", indexes = {
+        @Index(name = "ix_inventory_transaction_product_time", columnList = "product_id, created_at")
+})
 public class InventoryTransaction {
-    
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TransactionType type;
+
+    @Column(nullable = false)
+    private int delta;
+
+    @Column(name = "balance_after")
+    private Integer balanceAfter;
+
+    private String reason;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at", nullable = false)
+    private Date createdAt;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public TransactionType getType() { return type; }
+    public void setType(TransactionType type) { this.type = type; }
+    public int getDelta() { return delta; }
+    public void setDelta(int delta) { this.delta = delta; }
+    public Integer getBalanceAfter() { return balanceAfter; }
+    public void setBalanceAfter(Integer balanceAfter) { this.balanceAfter = balanceAfter; }
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public Date getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
 }
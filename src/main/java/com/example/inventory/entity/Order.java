@@ -2,22 +2,31 @@ package com.example.inventory.entity;
 
 import java.util.Date;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // one per sort field of the order list, for keyset pagination
+        @Index(name = "ix_orders_order_date_id", columnList = "order_date, id"),
+        @Index(name = "ix_orders_total_price_id", columnList = "total_price, id")
+})
 public class Order {
 
     @Id
@@ -34,17 +43,24 @@ public class Order {
     private Integer quantity;
 
     @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "order_date")
     private Date orderDate = new Date();
 
     @Enumerated(EnumType.STRING)
     private OrderStatus status = OrderStatus.PENDING;
 
+    @Column(name = "total_price")
     private Double totalPrice;
 
     @ManyToOne
     @JoinColumn(name = "supplier_id")
     private Supplier supplier;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // Getters & Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -66,4 +82,7 @@ public class Order {
 
     public Supplier getSupplier() { return supplier; }
     public void setSupplier(Supplier supplier) { this.supplier = supplier; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -0,0 +1,60 @@
+package com.example.inventory.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+
+/**
+ * A status change committed with its order but not yet copied into {@link OrderHistory}.
+ * Written and drained with plain JDBC by the history recorder; mapped here so the table is created
+ * with the rest of the schema. No foreign key to the order, so recording never waits on it.
+ */
+@Entity
+@Table(name = "order_history_outbox")
+public class OrderHistoryOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus previousStatus;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus newStatus;
+
+    private String actor;
+
+    private String note;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date changedAt;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public OrderStatus getPreviousStatus() { return previousStatus; }
+    public void setPreviousStatus(OrderStatus previousStatus) { this.previousStatus = previousStatus; }
+    public OrderStatus getNewStatus() { return newStatus; }
+    public void setNewStatus(OrderStatus newStatus) { this.newStatus = newStatus; }
+    public String getActor() { return actor; }
+    public void setActor(String actor) { this.actor = actor; }
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+    public Date getChangedAt() { return changedAt; }
+    public void setChangedAt(Date changedAt) { this.changedAt = changedAt; }
+}
@@ -1,9 +1,49 @@
 package com.example.inventory.entity;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum OrderStatus {
 	PENDING,
 	CONFIRMED,
 	SHIPPED,
 	COMPLETED,
-	CANCELLED
+	CANCELLED;
+
+	private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+	private static final Set<OrderStatus> STOCK_COMMITTED = EnumSet.of(CONFIRMED, SHIPPED, COMPLETED);
+
+	static {
+		TRANSITIONS.put(PENDING, EnumSet.of(CONFIRMED, CANCELLED));
+		TRANSITIONS.put(CONFIRMED, EnumSet.of(SHIPPED, CANCELLED));
+		TRANSITIONS.put(SHIPPED, EnumSet.of(COMPLETED, CANCELLED));
+		TRANSITIONS.put(COMPLETED, EnumSet.noneOf(OrderStatus.class));
+		TRANSITIONS.put(CANCELLED, EnumSet.noneOf(OrderStatus.class));
+	}
+
+	/**
+	 * Whether an order may move from this status to {@code target} in the normal lifecycle:
+	 * PENDING to CONFIRMED or CANCELLED, CONFIRMED to SHIPPED or CANCELLED, SHIPPED to COMPLETED
+	 * or CANCELLED.
+	 */
+	public boolean canTransitionTo(OrderStatus target) {
+		return target != null && TRANSITIONS.get(this).contains(target);
+	}
+
+	/**
+	 * The statuses an order may move to from this one.
+	 */
+	public Set<OrderStatus> allowedTransitions() {
+		return Collections.unmodifiableSet(TRANSITIONS.get(this));
+	}
+
+	/**
+	 * Whether an order in this status has taken its units out of stock.
+	 */
+	public boolean isStockCommitted() {
+		return STOCK_COMMITTED.contains(this);
+	}
 }
@@ -4,10 +4,22 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.Date;
 
 @Entity
+@Table(name = "product", indexes = {
+        // one per sort field of the product list, for keyset pagination
+        @Index(name = "ix_product_name_id", columnList = "name, id"),
+        @Index(name = "ix_product_price_id", columnList = "price, id"),
+        @Index(name = "ix_product_quantity_id", columnList = "quantity, id"),
+        @Index(name = "ix_product_created_at_id", columnList = "created_at, id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class Product {
 
     @Id
@@ -28,6 +40,7 @@ public class Product {
     private Double price;
 
     @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at")
     private Date createdAt = new Date();
 
     @ManyToOne
@@ -35,6 +48,19 @@ public class Product {
     @NotNull(message = "Category is required")
     private Category category;
 
+    /**
+     * Hot products keep their stock in {@link ProductStockShard} rows; {@link #quantity} is then a
+     * periodically refreshed total.
+     */
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private boolean hot;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // Getters & Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -50,4 +76,8 @@ public class Product {
     public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
     public Category getCategory() { return category; }
     public void setCategory(Category category) { this.category = category; }
+    public boolean isHot() { return hot; }
+    public void setHot(boolean hot) { this.hot = hot; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
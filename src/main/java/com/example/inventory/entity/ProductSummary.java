@@ -0,0 +1,22 @@
+package com.example.inventory.entity;
+
+/**
+ * Read-only id, name and price of a product, for pick lists. Holds no stock, so it stays valid
+ * however often stock moves.
+ */
+public class ProductSummary {
+
+    private final Long id;
+    private final String name;
+    private final Double price;
+
+    public ProductSummary(Long id, String name, Double price) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+    }
+
+    public Long getId() { return id; }
+    public String getName() { return name; }
+    public Double getPrice() { return price; }
+}
@@ -0,0 +1,60 @@
+package com.example.inventory.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Temporal;
+import jakarta.persistence.TemporalType;
+
+/**
+ * Scanned movements of one product and type that the ingestor could not apply, kept for
+ * reprocessing. Written with plain JDBC by the ingestor; mapped here so the table is created with
+ * the rest of the schema. No foreign key to the product, so an unknown product can be recorded too.
+ */
+@Entity
+@Table(name = "stock_movement_reject")
+public class StockMovementReject {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType type;
+
+    /** Net signed change of the rejected movements. */
+    private int quantity;
+
+    private int movements;
+
+    private String reason;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date rejectedAt;
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public TransactionType getType() { return type; }
+    public void setType(TransactionType type) { this.type = type; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public int getMovements() { return movements; }
+    public void setMovements(int movements) { this.movements = movements; }
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+    public Date getRejectedAt() { return rejectedAt; }
+    public void setRejectedAt(Date rejectedAt) { this.rejectedAt = rejectedAt; }
+}
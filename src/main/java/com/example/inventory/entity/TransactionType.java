@@ -0,0 +1,30 @@
+package com.example.inventory.entity;
+
+/**
+ * Kind of stock movement in the inventory ledger.
+ */
+public enum TransactionType {
+	RECEIPT,
+	SALE,
+	ADJUSTMENT,
+	RETURN;
+
+	/**
+	 * The change in stock for {@code quantity} units of this kind: receipts and returns add them,
+	 * sales take them, and an adjustment's quantity is already signed.
+	 *
+	 * @throws IllegalArgumentException if the quantity does not fit the type
+	 */
+	public int signedDelta(int quantity) {
+		if (this == ADJUSTMENT) {
+			if (quantity == 0) {
+				throw new IllegalArgumentException("Adjustment quantity must not be zero");
+			}
+			return quantity;
+		}
+		if (quantity <= 0) {
+			throw new IllegalArgumentException("Quantity must be greater than zero");
+		}
+		return this == SALE ? -quantity : quantity;
+	}
+}
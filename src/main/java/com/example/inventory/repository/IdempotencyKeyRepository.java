@@ -0,0 +1,25 @@
+package com.example.inventory.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.inventory.entity.IdempotencyKey;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    IdempotencyKey findByIdempotencyKey(String idempotencyKey);
+
+    @Query("select k.id from IdempotencyKey k where k.expiresAt <= :now order by k.id")
+    List<Long> findExpiredIds(@Param("now") Date now, Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from IdempotencyKey k where k.id in :ids")
+    int deleteKeys(@Param("ids") Collection<Long> ids);
+}
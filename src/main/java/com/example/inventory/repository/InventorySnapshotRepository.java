@@ -0,0 +1,22 @@
+package com.example.inventory.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.inventory.entity.InventorySnapshot;
+
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, Long> {
+
+    /**
+     * The latest snapshot at or before {@code asOf} of each of the products that has one; served by
+     * the (product_id, snapshot_at) index.
+     */
+    @Query("select s from InventorySnapshot s where s.productId in :ids and s.snapshotAt = "
+            + "(select max(s2.snapshotAt) from InventorySnapshot s2 where s2.productId = s.productId and s2.snapshotAt <= :asOf)")
+    List<InventorySnapshot> findLatest(@Param("ids") Collection<Long> productIds, @Param("asOf") Date asOf);
+}
@@ -1,5 +1,41 @@
 package com.example.inventory.repository;
 
-public class InventoryTransactionRepository {
-    
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.inventory.entity.InventoryTransaction;
+
+/**
+ * Reads of the inventory ledger; rows are written by {@link com.example.inventory.service.InventoryLedger}.
+ */
+public interface InventoryTransactionRepository extends JpaRepository<InventoryTransaction, Long> {
+
+    /**
+     * Movements of one product, newest first; served by the (product_id, created_at) index.
+     */
+    Page<InventoryTransaction> findByProductIdOrderByCreatedAtDescIdDesc(Long productId, Pageable pageable);
+
+    Page<InventoryTransaction> findAllByOrderByIdDesc(Pageable pageable);
+
+    /**
+     * Net movement per product created in {@code [from, to)}, as (productId, sum) rows; products
+     * without movements are left out.
+     */
+    @Query("select t.productId, sum(t.delta) from InventoryTransaction t "
+            + "where t.productId in :ids and t.createdAt >= :from and t.createdAt < :to group by t.productId")
+    List<Object[]> sumDeltas(@Param("ids") Collection<Long> productIds, @Param("from") Date from, @Param("to") Date to);
+
+    /**
+     * Net movement per product created at or after {@code from}, as (productId, sum) rows.
+     */
+    @Query("select t.productId, sum(t.delta) from InventoryTransaction t "
+            + "where t.productId in :ids and t.createdAt >= :from group by t.productId")
+    List<Object[]> sumDeltasSince(@Param("ids") Collection<Long> productIds, @Param("from") Date from);
 }
@@ -1,8 +1,58 @@
 package com.example.inventory.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.inventory.entity.Order;
+import com.example.inventory.entity.OrderStatus;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    /**
+     * An order with its product, the product's category and the supplier, in one query.
+     */
+    @Query("select o from Order o left join fetch o.product p left join fetch p.category "
+            + "left join fetch o.supplier where o.id = :id")
+    Optional<Order> findWithProductById(@Param("id") Long id);
+
+    /**
+     * A keyset window of orders with product, category and supplier joined in, for the order list.
+     */
+    @EntityGraph(attributePaths = { "product", "product.category", "supplier" })
+    Window<Order> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    @Query("select min(o.id) from Order o")
+    Long findMinId();
+
+    @Query("select max(o.id) from Order o")
+    Long findMaxId();
+
+    @Query("select o from Order o left join fetch o.product p left join fetch p.category "
+            + "left join fetch o.supplier where o.id between :fromId and :toId order by o.id")
+    List<Order> findByIdRangeWithDetails(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * {@code [id, status, productId, quantity]} for each of the given orders that exists.
+     */
+    @Query("select o.id, o.status, p.id, o.quantity from Order o left join o.product p where o.id in :ids")
+    List<Object[]> findStatusRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Move the given orders from {@code from} to {@code to}. Returns how many rows actually changed,
+     * which is less than {@code ids.size()} when one of them left {@code from} in the meantime.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Order o set o.status = :to, o.version = o.version + 1 where o.id in :ids and o.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") OrderStatus from, @Param("to") OrderStatus to);
 }
@@ -1,7 +1,75 @@
 package com.example.inventory.repository;
 
 import com.example.inventory.entity.Product;
+import com.example.inventory.entity.ProductSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+import java.util.Collection;
+import java.util.List;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository {
+
+    /**
+     * Query-cached; any product write through Hibernate invalidates the result. Stock moves go through
+     * {@link ProductStockRepository} and leave it alone, as summaries carry no quantity.
+     */
+    @Query("select new com.example.inventory.entity.ProductSummary(p.id, p.name, p.price) from Product p order by p.name, p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<ProductSummary> findSummaries();
+
+    /**
+     * (id, price) of every product that has a price.
+     */
+    @Query("select p.id, p.price from Product p where p.price is not null")
+    List<Object[]> findPrices();
+
+    /**
+     * A keyset window of products with their categories, for the paginated product list.
+     */
+    @EntityGraph(attributePaths = "category")
+    Window<Product> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    /**
+     * (id, name, description, price, category id, category name) of the products after
+     * {@code afterId} in id order, for loading the search index in keyset pages.
+     */
+    @Query("select p.id, p.name, p.description, p.price, c.id, c.name from Product p left join p.category c "
+            + "where p.id > :afterId order by p.id")
+    List<Object[]> findSearchRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select p.quantity from Product p where p.id = :id")
+    Integer findQuantityById(@Param("id") Long id);
+
+    /**
+     * Product ids after {@code afterId} in id order, for walking all products in keyset batches.
+     */
+    @Query("select p.id from Product p where p.id > :afterId order by p.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * (id, name, quantity) of the products after {@code afterId} in id order, for streaming all
+     * products in keyset pages.
+     */
+    @Query("select p.id, p.name, p.quantity from Product p where p.id > :afterId order by p.id")
+    List<Object[]> findStockAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Current on-hand quantity of each product, as (id, quantity) rows.
+     */
+    @Query("select p.id, p.quantity from Product p where p.id in :ids")
+    List<Object[]> findQuantities(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.id from Product p where p.hot = true")
+    List<Long> findHotProductIds();
 }
@@ -0,0 +1,23 @@
+package com.example.inventory.repository;
+
+/**
+ * Stock writes on the product row. They are plain JDBC rather than bulk HQL, which would evict the
+ * whole {@code Product} second-level cache region on every order; only the products actually
+ * written are evicted, once the transaction commits.
+ */
+public interface ProductStockRepository {
+
+    /**
+     * Take {@code qty} units only if that many are on hand with {@code keepFree} more left over.
+     * Returns the number of rows changed (0 or 1). Bumps the version so a product form opened before
+     * the change cannot write back stale stock.
+     */
+    int decrementQuantity(Long id, int qty, long keepFree);
+
+    int incrementQuantity(Long id, int qty);
+
+    /**
+     * Copy the shard totals of hot products into {@code quantity}, touching only rows whose total changed.
+     */
+    int rollupShardedQuantities();
+}
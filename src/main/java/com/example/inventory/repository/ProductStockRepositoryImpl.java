@@ -0,0 +1,87 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.entity.Product;
+import com.example.inventory.support.TransactionCallbacks;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ProductStockRepository} in SQL. Pending entity changes are flushed first, as the bulk
+ * updates this replaces did, so they cannot overwrite the new quantity later in the transaction.
+ */
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    static final String DECREMENT = "update product set quantity = quantity - ?, version = version + 1 "
+            + "where id = ? and quantity >= ?";
+    static final String INCREMENT = "update product set quantity = quantity + ?, version = version + 1 where id = ?";
+    static final String SHARD_TOTAL = "(select coalesce(sum(s.quantity), 0) from product_stock_shard s where s.product_id = p.id)";
+    static final String STALE_HOT_PRODUCTS = "select p.id from product p where p.hot = true and p.quantity <> " + SHARD_TOTAL;
+    static final String ROLLUP = "update product p set p.quantity = " + SHARD_TOTAL + ", p.version = p.version + 1 "
+            + "where p.id = ? and p.quantity <> " + SHARD_TOTAL;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final Cache entityCache;
+
+    @Autowired
+    public ProductStockRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager,
+                                      EntityManagerFactory entityManagerFactory) {
+        this(jdbcTemplate, entityManager, entityManagerFactory.getCache());
+    }
+
+    ProductStockRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager, Cache entityCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.entityCache = entityCache;
+    }
+
+    @Override
+    public int decrementQuantity(Long id, int qty, long keepFree) {
+        entityManager.flush();
+        int rows = jdbcTemplate.update(DECREMENT, qty, id, qty + keepFree);
+        if (rows > 0) {
+            evictAfterCommit(List.of(id));
+        }
+        return rows;
+    }
+
+    @Override
+    public int incrementQuantity(Long id, int qty) {
+        entityManager.flush();
+        int rows = jdbcTemplate.update(INCREMENT, qty, id);
+        if (rows > 0) {
+            evictAfterCommit(List.of(id));
+        }
+        return rows;
+    }
+
+    @Override
+    public int rollupShardedQuantities() {
+        entityManager.flush();
+        List<Long> stale = jdbcTemplate.queryForList(STALE_HOT_PRODUCTS, Long.class);
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> args = new ArrayList<>(stale.size());
+        for (Long id : stale) {
+            args.add(new Object[] { id });
+        }
+        int rows = 0;
+        for (int count : jdbcTemplate.batchUpdate(ROLLUP, args)) {
+            // drivers may report a batched row only as "succeeded, count unknown"
+            rows += count < 0 ? 1 : count;
+        }
+        evictAfterCommit(stale);
+        return rows;
+    }
+
+    private void evictAfterCommit(List<Long> ids) {
+        TransactionCallbacks.afterCommit(() -> ids.forEach(id -> entityCache.evict(Product.class, id)));
+    }
+}
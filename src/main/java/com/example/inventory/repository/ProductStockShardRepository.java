@@ -0,0 +1,43 @@
+package com.example.inventory.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.inventory.entity.ProductStockShard;
+
+import jakarta.persistence.LockModeType;
+
+public interface ProductStockShardRepository extends JpaRepository<ProductStockShard, Long> {
+
+    /**
+     * {@code [shardNo, quantity]} for each shard of a product, read without locking.
+     */
+    @Query("select s.shardNo, s.quantity from ProductStockShard s where s.product.id = :productId order by s.shardNo")
+    List<Object[]> findShardQuantities(@Param("productId") Long productId);
+
+    /**
+     * All shards of a product, locked in shard order so that callers taking every shard cannot deadlock each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ProductStockShard s where s.product.id = :productId order by s.shardNo")
+    List<ProductStockShard> findByProductIdForUpdate(@Param("productId") Long productId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update ProductStockShard s set s.quantity = s.quantity - :qty "
+            + "where s.product.id = :productId and s.shardNo = :shardNo and s.quantity >= :qty")
+    int decrementShard(@Param("productId") Long productId, @Param("shardNo") int shardNo, @Param("qty") int qty);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update ProductStockShard s set s.quantity = s.quantity + :qty "
+            + "where s.product.id = :productId and s.shardNo = :shardNo")
+    int incrementShard(@Param("productId") Long productId, @Param("shardNo") int shardNo, @Param("qty") int qty);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from ProductStockShard s where s.product.id = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
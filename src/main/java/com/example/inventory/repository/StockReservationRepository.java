@@ -0,0 +1,47 @@
+package com.example.inventory.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.inventory.entity.StockReservation;
+
+import jakarta.persistence.LockModeType;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    StockReservation findByOrderId(Long orderId);
+
+    /**
+     * {@code [productId, heldQuantity]} for every product with active holds.
+     */
+    @Query("select r.product.id, sum(r.quantity) from StockReservation r group by r.product.id")
+    List<Object[]> sumQuantityByProduct();
+
+    /**
+     * The oldest expired holds, locked so a concurrent confirmation waits for the sweep instead of
+     * releasing the same hold twice.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from StockReservation r where r.expiresAt <= :now order by r.expiresAt, r.id")
+    List<StockReservation> findExpiredForUpdate(@Param("now") Date now, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from StockReservation r where r.order.id in :orderIds")
+    List<StockReservation> findByOrderIdInForUpdate(@Param("orderIds") Collection<Long> orderIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from StockReservation r where r.id = :id")
+    int deleteReservation(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from StockReservation r where r.id in :ids")
+    int deleteReservations(@Param("ids") Collection<Long> ids);
+}
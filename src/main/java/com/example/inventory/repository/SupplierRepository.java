@@ -1,10 +1,26 @@
 package com.example.inventory.repository;
 
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.example.inventory.entity.Supplier;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface SupplierRepository extends JpaRepository<Supplier, Long> {
+
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Supplier> findAll();
+
+    Window<Supplier> findAllBy(ScrollPosition position, Sort sort, Limit limit);
 }
@@ -1,7 +1,11 @@
 package com.example.inventory.service;
 
+import com.example.inventory.config.CacheConfig;
 import com.example.inventory.entity.Category;
 import com.example.inventory.repository.CategoryRepository;
+import com.example.inventory.service.DataVersions.DataSet;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -9,14 +13,32 @@ import java.util.List;
 @Service
 public class CategoryService {
 
+    private static final KeysetSorts<Category> SORTS = new KeysetSorts<Category>(Category::getId, "name")
+            .add("name", Category::getName, value -> value);
+
     private final CategoryRepository repository;
+    private final DataVersions dataVersions;
+    private final ProductSearchIndex searchIndex;
 
-    public CategoryService(CategoryRepository repository) {
+    public CategoryService(CategoryRepository repository, DataVersions dataVersions, ProductSearchIndex searchIndex) {
         this.repository = repository;
+        this.dataVersions = dataVersions;
+        this.searchIndex = searchIndex;
     }
 
+    /**
+     * All categories, cached. The list is shared between callers and cannot be modified.
+     */
+    @Cacheable(CacheConfig.CATEGORIES)
     public List<Category> getAllCategories() {
-        return repository.findAll();
+        return List.copyOf(repository.findAll());
+    }
+
+    /**
+     * One page of categories by name.
+     */
+    public KeysetPage<Category> getCategoryPage(KeysetRequest request) {
+        return SORTS.page(request, repository::findAllBy, repository::count);
     }
 
     public Category getCategoryById(Long id) {
@@ -24,11 +46,17 @@ public class CategoryService {
                 .orElseThrow(() -> new IllegalArgumentException("Category not found with id: " + id));
     }
 
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public Category saveOrUpdateCategory(Category category) {
-    return repository.save(category);
+        Category saved = repository.save(category);
+        dataVersions.changed(DataSet.CATEGORIES);
+        searchIndex.categoryRenamed(saved.getId(), saved.getName());
+        return saved;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.CATEGORIES, allEntries = true)
     public void deleteCategoryById(Long id) {
         repository.deleteById(id);
+        dataVersions.changed(DataSet.CATEGORIES);
     }
 }
@@ -0,0 +1,275 @@
+package com.example.inventory.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.TransactionType;
+import com.example.inventory.service.DataVersions.DataSet;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Applies a stock count to many products at once.
+ *
+ * Counted quantities are absolute. Product ids are sorted and handled in chunks, each in its own
+ * transaction: one {@code select ... for update} reads and locks the current stock of the whole
+ * chunk, the variances are computed in memory, and every changed product gets its new quantity in
+ * one JDBC batch UPDATE and an ADJUSTMENT row in the ledger, which {@link InventoryLedger} writes as
+ * one batch at commit. Products whose stock is sharded are reset shard by shard. Unknown products
+ * and invalid lines are reported in the summary, not applied; a chunk that fails rolls back alone.
+ * The JDBC UPDATE bypasses Hibernate, so adjusted products are evicted from the second-level cache
+ * once their chunk has committed.
+ */
+@Service
+public class CycleCountService {
+
+    static final String SELECT_FOR_UPDATE = "select id, quantity from product where id in (%s) order by id for update";
+    static final String UPDATE_QUANTITY = "update product set quantity = ?, version = version + 1 where id = ?";
+
+    private static final int MAX_REPORTED_PROBLEMS = 100;
+    private static final int MAX_REPORTED_VARIANCES = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockShardService stockShards;
+    private final InventoryLedger ledger;
+    private final TransactionOperations transactions;
+    private final Cache entityCache;
+    private final DataVersions dataVersions;
+    private final int chunkSize;
+
+    @Autowired
+    public CycleCountService(JdbcTemplate jdbcTemplate, StockShardService stockShards, InventoryLedger ledger,
+                             PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory,
+                             DataVersions dataVersions,
+                             @Value("${inventory.cycle-count.chunk-size:1000}") int chunkSize) {
+        this(jdbcTemplate, stockShards, ledger, new TransactionTemplate(transactionManager), entityManagerFactory.getCache(),
+                dataVersions, chunkSize);
+    }
+
+    public CycleCountService(JdbcTemplate jdbcTemplate, StockShardService stockShards, InventoryLedger ledger,
+                             TransactionOperations transactions, Cache entityCache, DataVersions dataVersions,
+                             int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.stockShards = stockShards;
+        this.ledger = ledger;
+        this.transactions = transactions;
+        this.entityCache = entityCache;
+        this.dataVersions = dataVersions;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Read counted quantities from a CSV file with "Product ID" and "Counted" columns.
+     * Lines that cannot be read are added to {@code problems}.
+     */
+    public List<Count> parseCsv(InputStream input, List<String> problems) throws IOException {
+        List<Count> counts = new ArrayList<>();
+        try (InputStreamReader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader().withIgnoreHeaderCase().withTrim())) {
+            for (CSVRecord csvRecord : csvParser) {
+                try {
+                    counts.add(new Count(Long.parseLong(csvRecord.get("Product ID")),
+                            Integer.parseInt(csvRecord.get("Counted"))));
+                } catch (IllegalArgumentException e) {
+                    problems.add("Line " + csvRecord.getRecordNumber() + ": " + e.getMessage());
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Set each counted product's stock to its counted quantity and record the variances. Several
+     * lines for one product (counted in more than one place) are added up.
+     */
+    public Summary apply(Collection<Count> counts, String reason) {
+        return apply(counts, reason, new ArrayList<>());
+    }
+
+    public Summary apply(Collection<Count> counts, String reason, List<String> problems) {
+        Summary summary = new Summary();
+        summary.lines = counts.size() + problems.size();
+        String note = reason == null || reason.isBlank() ? "Cycle count" : reason.trim();
+
+        TreeMap<Long, Integer> counted = new TreeMap<>();
+        for (Count count : counts) {
+            if (count.getProductId() == null) {
+                problems.add("Missing product id");
+            } else if (count.getCounted() < 0) {
+                problems.add("Product " + count.getProductId() + ": counted quantity cannot be negative");
+            } else {
+                counted.merge(count.getProductId(), count.getCounted(), Integer::sum);
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(counted.keySet());
+        List<Variance> variances = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            try {
+                List<Variance> applied = transactions.execute(status -> applyChunk(chunk, counted, note, problems));
+                if (applied != null) {
+                    boolean changed = false;
+                    for (Variance v : applied) {
+                        if (v.getVariance() != 0) {
+                            entityCache.evict(Product.class, v.getProductId());
+                            changed = true;
+                        }
+                    }
+                    if (changed) {
+                        dataVersions.changed(DataSet.PRODUCTS);
+                    }
+                    variances.addAll(applied);
+                }
+            } catch (RuntimeException e) {
+                problems.add("Products " + chunk.get(0) + " to " + chunk.get(chunk.size() - 1)
+                        + " were not applied: " + e.getMessage());
+            }
+        }
+
+        for (Variance v : variances) {
+            summary.products++;
+            if (v.getVariance() == 0) {
+                summary.matched++;
+            } else {
+                summary.adjusted++;
+                if (v.getVariance() < 0) {
+                    summary.shrinkage -= v.getVariance();
+                } else {
+                    summary.overage += v.getVariance();
+                }
+            }
+        }
+        variances.removeIf(v -> v.getVariance() == 0);
+        variances.sort(Comparator.comparingInt((Variance v) -> Math.abs(v.getVariance())).reversed());
+        summary.largestVariances = new ArrayList<>(variances.subList(0, Math.min(MAX_REPORTED_VARIANCES, variances.size())));
+        summary.problemCount = problems.size();
+        summary.problems = new ArrayList<>(problems.subList(0, Math.min(MAX_REPORTED_PROBLEMS, problems.size())));
+        return summary;
+    }
+
+    private List<Variance> applyChunk(List<Long> ids, Map<Long, Integer> counted, String reason, List<String> problems) {
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Map<Long, Integer> current = new HashMap<>();
+        jdbcTemplate.query(String.format(SELECT_FOR_UPDATE, placeholders),
+                rs -> { current.put(rs.getLong(1), rs.getInt(2)); }, ids.toArray());
+
+        List<Variance> variances = new ArrayList<>(ids.size());
+        List<Object[]> updates = new ArrayList<>();
+        for (Long id : ids) {
+            Integer onHand = current.get(id);
+            if (onHand == null) {
+                problems.add("Product " + id + " not found");
+                continue;
+            }
+            int newQuantity = counted.get(id);
+            if (stockShards.isSharded(id)) {
+                // the product row only holds a rollup; the shards are the stock
+                onHand = stockShards.reset(id, newQuantity);
+            } else if (newQuantity != onHand) {
+                updates.add(new Object[] {newQuantity, id});
+            }
+            int variance = newQuantity - onHand;
+            if (variance != 0) {
+                ledger.record(id, TransactionType.ADJUSTMENT, variance, newQuantity, reason, null);
+            }
+            variances.add(new Variance(id, onHand, newQuantity));
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_QUANTITY, updates);
+        }
+        return variances;
+    }
+
+    /**
+     * One counted line: the units of a product found on hand.
+     */
+    public static class Count {
+        private Long productId;
+        private int counted;
+
+        public Count() {
+        }
+
+        public Count(Long productId, int counted) {
+            this.productId = productId;
+            this.counted = counted;
+        }
+
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public int getCounted() { return counted; }
+        public void setCounted(int counted) { this.counted = counted; }
+    }
+
+    public static class Variance {
+        private final Long productId;
+        private final int expected;
+        private final int counted;
+
+        public Variance(Long productId, int expected, int counted) {
+            this.productId = productId;
+            this.expected = expected;
+            this.counted = counted;
+        }
+
+        public Long getProductId() { return productId; }
+        public int getExpected() { return expected; }
+        public int getCounted() { return counted; }
+        public int getVariance() { return counted - expected; }
+    }
+
+    /**
+     * Outcome of a count: how many products matched or were adjusted, units lost and found, the
+     * largest variances and the first problems.
+     */
+    public static class Summary {
+        private int lines;
+        private int products;
+        private int matched;
+        private int adjusted;
+        private long shrinkage;
+        private long overage;
+        private int problemCount;
+        private List<Variance> largestVariances = List.of();
+        private List<String> problems = List.of();
+
+        public int getLines() { return lines; }
+        public int getProducts() { return products; }
+        public int getMatched() { return matched; }
+        public int getAdjusted() { return adjusted; }
+        public long getShrinkage() { return shrinkage; }
+        public long getOverage() { return overage; }
+        public long getNetVariance() { return overage - shrinkage; }
+        public int getProblemCount() { return problemCount; }
+        public List<Variance> getLargestVariances() { return largestVariances; }
+        public List<String> getProblems() { return problems; }
+    }
+}
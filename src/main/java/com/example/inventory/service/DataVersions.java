@@ -0,0 +1,46 @@
+package com.example.inventory.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.example.inventory.support.TransactionCallbacks;
+
+/**
+ * A version stamp per data set, bumped by the services whenever rows of that set change.
+ *
+ * Anything derived from the data, such as rendered list tables, can be cached under the current
+ * stamp and is simply never asked for again once the stamp moves on. A change made in a transaction
+ * bumps the stamp only after the transaction has committed, so a cache filled in between reads the
+ * new rows under the new stamp, never old rows under it. Like {@link ProductPriceCache} the stamps
+ * only see changes made through this JVM.
+ */
+@Component
+public class DataVersions {
+
+    public enum DataSet {
+        PRODUCTS, CATEGORIES, SUPPLIERS
+    }
+
+    private final Map<DataSet, AtomicLong> versions = new EnumMap<>(DataSet.class);
+
+    public DataVersions() {
+        for (DataSet set : DataSet.values()) {
+            versions.put(set, new AtomicLong());
+        }
+    }
+
+    public long current(DataSet set) {
+        return versions.get(set).get();
+    }
+
+    /**
+     * Bump the stamp once the current transaction commits (at once outside one).
+     */
+    public void changed(DataSet set) {
+        AtomicLong version = versions.get(set);
+        TransactionCallbacks.afterCommit(version::incrementAndGet);
+    }
+}
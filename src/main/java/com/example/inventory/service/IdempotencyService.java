@@ -0,0 +1,167 @@
+package com.example.inventory.service;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.inventory.entity.IdempotencyKey;
+import com.example.inventory.repository.IdempotencyKeyRepository;
+import com.example.inventory.support.TransactionCallbacks;
+
+/**
+ * Idempotency keys for order creation.
+ *
+ * A submission claims its key by inserting it in the same transaction that creates the order; a
+ * concurrent or later submission with the same key then hits the unique index and is answered with
+ * the order the first one created. Recently completed keys are also kept in a bounded LRU so most
+ * retries are answered without a query. Keys expire after {@code inventory.idempotency.ttl-hours}
+ * and are purged in batches by a scheduler.
+ */
+@Service
+public class IdempotencyService {
+
+    private final IdempotencyKeyRepository repository;
+    private final TransactionOperations transactions;
+    private final long ttlMillis;
+    private final int purgeBatchSize;
+    private final Map<String, CachedKey> recent;
+
+    @Autowired
+    public IdempotencyService(IdempotencyKeyRepository repository, PlatformTransactionManager transactionManager,
+                              @Value("${inventory.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${inventory.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${inventory.idempotency.purge-batch-size:500}") int purgeBatchSize) {
+        this(repository, new TransactionTemplate(transactionManager), ttlHours * 3_600_000L, cacheSize, purgeBatchSize);
+    }
+
+    public IdempotencyService(IdempotencyKeyRepository repository, TransactionOperations transactions,
+                              long ttlMillis, int cacheSize, int purgeBatchSize) {
+        if (cacheSize < 1 || purgeBatchSize < 1) {
+            throw new IllegalArgumentException("cacheSize and purgeBatchSize must be at least 1");
+        }
+        this.repository = repository;
+        this.transactions = transactions;
+        this.ttlMillis = ttlMillis;
+        this.purgeBatchSize = purgeBatchSize;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedKey> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Trimmed key, or {@code null} when none was given.
+     *
+     * @throws IllegalArgumentException if the key is longer than {@link IdempotencyKey#MAX_LENGTH}
+     */
+    public String normalize(String key) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        String trimmed = key.trim();
+        if (trimmed.length() > IdempotencyKey.MAX_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must be at most " + IdempotencyKey.MAX_LENGTH + " characters");
+        }
+        return trimmed;
+    }
+
+    /**
+     * The order created under {@code key}, or {@code null} if the key is unknown, expired or still in flight.
+     */
+    public Long findOrderId(String key) {
+        long now = System.currentTimeMillis();
+        synchronized (recent) {
+            CachedKey cached = recent.get(key);
+            if (cached != null) {
+                if (cached.expiresAtMillis > now) {
+                    return cached.orderId;
+                }
+                recent.remove(key);
+            }
+        }
+        IdempotencyKey stored = repository.findByIdempotencyKey(key);
+        if (stored == null || stored.getOrderId() == null || stored.getExpiresAt().getTime() <= now) {
+            return null;
+        }
+        remember(key, stored.getOrderId(), stored.getExpiresAt().getTime());
+        return stored.getOrderId();
+    }
+
+    /**
+     * Insert {@code key} in the current transaction. Fails with a
+     * {@link org.springframework.dao.DataIntegrityViolationException} when another submission holds it;
+     * an expired leftover is removed first.
+     */
+    @Transactional
+    public IdempotencyKey claim(String key) {
+        IdempotencyKey stale = repository.findByIdempotencyKey(key);
+        if (stale != null && stale.getExpiresAt().getTime() <= System.currentTimeMillis()) {
+            repository.deleteKeys(List.of(stale.getId()));
+        }
+        IdempotencyKey claim = new IdempotencyKey();
+        claim.setIdempotencyKey(key);
+        claim.setExpiresAt(new Date(System.currentTimeMillis() + ttlMillis));
+        return repository.saveAndFlush(claim);
+    }
+
+    /**
+     * Attach the created order to a claimed key; it enters the LRU once the transaction commits.
+     */
+    @Transactional
+    public void complete(IdempotencyKey claim, Long orderId) {
+        claim.setOrderId(orderId);
+        repository.save(claim);
+        String key = claim.getIdempotencyKey();
+        long expiresAt = claim.getExpiresAt().getTime();
+        TransactionCallbacks.afterCommit(() -> remember(key, orderId, expiresAt));
+    }
+
+    /**
+     * Delete expired keys in batches, each in its own transaction. Returns the number deleted.
+     */
+    @Scheduled(fixedDelayString = "${inventory.idempotency.purge-interval-ms:300000}")
+    public int purgeExpired() {
+        Date now = new Date();
+        int total = 0;
+        while (true) {
+            Integer deleted = transactions.execute(status -> {
+                List<Long> ids = repository.findExpiredIds(now, PageRequest.of(0, purgeBatchSize));
+                return ids.isEmpty() ? 0 : repository.deleteKeys(ids);
+            });
+            int count = deleted == null ? 0 : deleted;
+            total += count;
+            if (count < purgeBatchSize) {
+                return total;
+            }
+        }
+    }
+
+    private void remember(String key, Long orderId, long expiresAtMillis) {
+        synchronized (recent) {
+            recent.put(key, new CachedKey(orderId, expiresAtMillis));
+        }
+    }
+
+    private static final class CachedKey {
+        final Long orderId;
+        final long expiresAtMillis;
+
+        CachedKey(Long orderId, long expiresAtMillis) {
+            this.orderId = orderId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
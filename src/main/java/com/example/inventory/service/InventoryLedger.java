@@ -0,0 +1,137 @@
+package com.example.inventory.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.inventory.entity.TransactionType;
+
+/**
+ * Appends stock movements to the {@code inventory_transaction} ledger.
+ *
+ * Movements recorded inside a transaction are buffered and written as JDBC batches just before it
+ * commits, so they commit or roll back with the stock change they describe. The caller has already
+ * changed {@code product.quantity} (the running balance) with its own O(1) UPDATE; the ledger never
+ * reads history to post a movement. A row's {@code balance_after} is either given by the caller or
+ * taken from the product row at commit, less the movements recorded for that product later in the
+ * same transaction: the stock UPDATE holds the row lock until commit, so that value is ours.
+ * Products with sharded stock get no balance, since their quantity is only a periodic rollup.
+ */
+@Service
+public class InventoryLedger {
+
+    static final String INSERT = "insert into inventory_transaction "
+            + "(product_id, type, delta, balance_after, reason, order_id, created_at) values (?, ?, ?, ?, ?, ?, ?)";
+    static final String INSERT_FROM_PRODUCT = "insert into inventory_transaction "
+            + "(product_id, type, delta, balance_after, reason, order_id, created_at) "
+            + "select p.id, ?, ?, p.quantity + ?, ?, ?, ? from product p where p.id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockShardService stockShards;
+
+    public InventoryLedger(JdbcTemplate jdbcTemplate, StockShardService stockShards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stockShards = stockShards;
+    }
+
+    /**
+     * Record a movement whose balance is read from the product row when the transaction commits.
+     */
+    public void record(Long productId, TransactionType type, int delta, String reason, Long orderId) {
+        add(new Movement(productId, type, delta, null, reason, orderId));
+    }
+
+    /**
+     * Record a movement that leaves the product with {@code balanceAfter} units.
+     */
+    public void record(Long productId, TransactionType type, int delta, int balanceAfter, String reason, Long orderId) {
+        add(new Movement(productId, type, delta, balanceAfter, reason, orderId));
+    }
+
+    private void add(Movement movement) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(List.of(movement));
+            return;
+        }
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        buffer.movements.add(movement);
+    }
+
+    private void write(List<Movement> movements) {
+        // walk backwards so each row knows how far the product moved after it in this transaction
+        Map<Long, Integer> later = new HashMap<>();
+        Object[][] derived = new Object[movements.size()][];
+        List<Object[]> fixed = new ArrayList<>();
+        List<Object[]> fromProduct = new ArrayList<>();
+        for (int i = movements.size() - 1; i >= 0; i--) {
+            Movement m = movements.get(i);
+            int offset = later.getOrDefault(m.productId, 0);
+            later.put(m.productId, offset - m.delta);
+            if (m.balanceAfter == null && !stockShards.isSharded(m.productId)) {
+                derived[i] = new Object[] {m.type.name(), m.delta, offset, m.reason, m.orderId, m.createdAt, m.productId};
+            }
+        }
+        for (int i = 0; i < movements.size(); i++) {
+            Movement m = movements.get(i);
+            if (derived[i] != null) {
+                fromProduct.add(derived[i]);
+            } else {
+                fixed.add(new Object[] {m.productId, m.type.name(), m.delta, m.balanceAfter, m.reason, m.orderId, m.createdAt});
+            }
+        }
+        if (!fixed.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, fixed);
+        }
+        if (!fromProduct.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_FROM_PRODUCT, fromProduct);
+        }
+    }
+
+    private static final class Movement {
+        final Long productId;
+        final TransactionType type;
+        final int delta;
+        final Integer balanceAfter;
+        final String reason;
+        final Long orderId;
+        final Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+
+        Movement(Long productId, TransactionType type, int delta, Integer balanceAfter, String reason, Long orderId) {
+            this.productId = productId;
+            this.type = type;
+            this.delta = delta;
+            this.balanceAfter = balanceAfter;
+            this.reason = reason;
+            this.orderId = orderId;
+        }
+    }
+
+    /**
+     * Movements recorded in the current transaction, written just before it commits.
+     */
+    private final class Buffer implements TransactionSynchronization {
+        final List<Movement> movements = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            write(movements);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(InventoryLedger.this);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.inventory.service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.inventory.entity.InventorySnapshot;
+import com.example.inventory.repository.InventorySnapshotRepository;
+import com.example.inventory.repository.InventoryTransactionRepository;
+import com.example.inventory.repository.ProductRepository;
+
+/**
+ * Periodic per-product stock snapshots and point-in-time stock queries built on them.
+ *
+ * A background job snapshots every product at each period boundary (midnight, or the first of the
+ * month) once {@code inventory.snapshots.grace-minutes} have passed, so ledger rows created just
+ * before the boundary have committed. Snapshots are incremental: the previous one plus the net
+ * movement in between. A product without any snapshot yet is seeded backwards from its current
+ * quantity, which also covers stock that predates the ledger.
+ *
+ * Stock as of a time is the nearest snapshot at or before it plus the movements after the snapshot,
+ * at most one period of ledger rows per product.
+ */
+@Service
+public class InventorySnapshotService {
+
+    public enum Period { DAILY, MONTHLY }
+
+    private final InventorySnapshotRepository snapshotRepository;
+    private final InventoryTransactionRepository transactionRepository;
+    private final ProductRepository productRepository;
+    private final TransactionOperations transactions;
+    private final Period period;
+    private final long graceMillis;
+    private final int batchSize;
+
+    @Autowired
+    public InventorySnapshotService(InventorySnapshotRepository snapshotRepository,
+                                    InventoryTransactionRepository transactionRepository,
+                                    ProductRepository productRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${inventory.snapshots.period:DAILY}") Period period,
+                                    @Value("${inventory.snapshots.grace-minutes:10}") long graceMinutes,
+                                    @Value("${inventory.snapshots.batch-size:500}") int batchSize) {
+        this(snapshotRepository, transactionRepository, productRepository, new TransactionTemplate(transactionManager),
+                period, graceMinutes * 60_000L, batchSize);
+    }
+
+    InventorySnapshotService(InventorySnapshotRepository snapshotRepository,
+                             InventoryTransactionRepository transactionRepository,
+                             ProductRepository productRepository, TransactionOperations transactions,
+                             Period period, long graceMillis, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.snapshotRepository = snapshotRepository;
+        this.transactionRepository = transactionRepository;
+        this.productRepository = productRepository;
+        this.transactions = transactions;
+        this.period = period;
+        this.graceMillis = graceMillis;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * The latest period boundary that is at least the grace time before {@code now}.
+     */
+    Date boundary(Date now) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate day = new Date(now.getTime() - graceMillis).toInstant().atZone(zone).toLocalDate();
+        if (period == Period.MONTHLY) {
+            day = day.withDayOfMonth(1);
+        }
+        return Date.from(day.atStartOfDay(zone).toInstant());
+    }
+
+    /**
+     * Snapshot every product that has no snapshot at the current boundary yet, in batches of product
+     * ids, each in its own transaction. Returns the number of snapshots taken.
+     */
+    @Scheduled(fixedDelayString = "${inventory.snapshots.interval-ms:600000}")
+    public int takeSnapshots() {
+        return takeSnapshots(new Date());
+    }
+
+    int takeSnapshots(Date now) {
+        Date at = boundary(now);
+        long afterId = 0;
+        int total = 0;
+        int[] createdInBatch = new int[1];
+        while (true) {
+            long from = afterId;
+            List<Long> ids = transactions.execute(status -> {
+                List<Long> batch = productRepository.findIdsAfter(from, PageRequest.of(0, batchSize));
+                if (!batch.isEmpty()) {
+                    createdInBatch[0] = snapshot(batch, at);
+                }
+                return batch;
+            });
+            if (ids == null || ids.isEmpty()) {
+                return total;
+            }
+            total += createdInBatch[0];
+            if (ids.size() < batchSize) {
+                return total;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    private int snapshot(List<Long> productIds, Date at) {
+        Map<Long, InventorySnapshot> latest = new HashMap<>();
+        for (InventorySnapshot s : snapshotRepository.findLatest(productIds, at)) {
+            latest.put(s.getProductId(), s);
+        }
+        List<Long> missing = new ArrayList<>();
+        for (Long id : productIds) {
+            InventorySnapshot s = latest.get(id);
+            if (s == null || s.getSnapshotAt().getTime() != at.getTime()) {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Integer> quantities = quantitiesAt(missing, latest, at);
+        List<InventorySnapshot> created = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> e : quantities.entrySet()) {
+            created.add(new InventorySnapshot(e.getKey(), at, e.getValue()));
+        }
+        snapshotRepository.saveAll(created);
+        return created.size();
+    }
+
+    /**
+     * On-hand quantity of each product as of {@code asOf}: ledger movements created before it are
+     * included. Products that no longer exist and were never snapshotted are left out.
+     */
+    public Map<Long, Integer> getStockAsOf(Collection<Long> productIds, Date asOf) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        // one transaction, so a backward seed sees quantities and ledger rows consistently
+        return transactions.execute(status -> {
+            Map<Long, InventorySnapshot> latest = new HashMap<>();
+            for (InventorySnapshot s : snapshotRepository.findLatest(productIds, asOf)) {
+                latest.put(s.getProductId(), s);
+            }
+            return quantitiesAt(productIds, latest, asOf);
+        });
+    }
+
+    public Integer getStockAsOf(Long productId, Date asOf) {
+        return getStockAsOf(List.of(productId), asOf).get(productId);
+    }
+
+    /**
+     * Forward from each product's snapshot where it has one (grouped by snapshot time, one sum query
+     * per group), backward from the current quantity where it does not.
+     */
+    private Map<Long, Integer> quantitiesAt(Collection<Long> productIds, Map<Long, InventorySnapshot> snapshots, Date at) {
+        Map<Long, Integer> result = new TreeMap<>();
+        Map<Date, List<Long>> bySnapshotTime = new HashMap<>();
+        List<Long> unseeded = new ArrayList<>();
+        for (Long id : productIds) {
+            InventorySnapshot s = snapshots.get(id);
+            if (s == null) {
+                unseeded.add(id);
+            } else {
+                result.put(id, s.getQuantity());
+                if (s.getSnapshotAt().before(at)) {
+                    bySnapshotTime.computeIfAbsent(s.getSnapshotAt(), t -> new ArrayList<>()).add(id);
+                }
+            }
+        }
+        for (Map.Entry<Date, List<Long>> group : bySnapshotTime.entrySet()) {
+            for (Object[] row : transactionRepository.sumDeltas(group.getValue(), group.getKey(), at)) {
+                result.merge((Long) row[0], ((Number) row[1]).intValue(), Integer::sum);
+            }
+        }
+        if (!unseeded.isEmpty()) {
+            for (Object[] row : productRepository.findQuantities(unseeded)) {
+                result.put((Long) row[0], row[1] == null ? 0 : ((Number) row[1]).intValue());
+            }
+            for (Object[] row : transactionRepository.sumDeltasSince(unseeded, at)) {
+                result.computeIfPresent((Long) row[0], (id, quantity) -> quantity - ((Number) row[1]).intValue());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.inventory.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.inventory.entity.InventoryTransaction;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.TransactionType;
+import com.example.inventory.repository.InventoryTransactionRepository;
+
+@Service
+public class InventoryTransactionService {
+
+    private final InventoryTransactionRepository repository;
+    private final InventoryLedger ledger;
+    private final ProductService productService;
+
+    public InventoryTransactionService(InventoryTransactionRepository repository, InventoryLedger ledger,
+                                       ProductService productService) {
+        this.repository = repository;
+        this.ledger = ledger;
+        this.productService = productService;
+    }
+
+    /**
+     * Ledger rows, newest first; for one product when {@code productId} is given.
+     */
+    public Page<InventoryTransaction> getTransactions(Long productId, Pageable pageable) {
+        if (productId == null) {
+            return repository.findAllByOrderByIdDesc(pageable);
+        }
+        return repository.findByProductIdOrderByCreatedAtDescIdDesc(productId, pageable);
+    }
+
+    /**
+     * Post a stock movement that is not tied to an order status change. Receipts and returns add
+     * {@code quantity} units and sales take them; an adjustment takes a signed quantity. The running
+     * balance on the product moves in one conditional UPDATE and the ledger row commits with it.
+     *
+     * @throws IllegalArgumentException if the quantity does not fit the type
+     * @throws IllegalStateException if a movement would take more units than are on hand
+     */
+    @Transactional
+    public void post(Long productId, TransactionType type, int quantity, String reason, Long orderId) {
+        if (type == null) {
+            throw new IllegalArgumentException("Transaction type must be provided");
+        }
+        int delta = type.signedDelta(quantity);
+        Product product = productService.getProductById(productId);
+        if (delta < 0) {
+            if (!productService.tryDecrementStock(productId, -delta)) {
+                throw new IllegalStateException("Insufficient inventory for product: " + product.getName());
+            }
+        } else {
+            productService.restock(productId, delta);
+        }
+        ledger.record(productId, type, delta, reason, orderId);
+    }
+}
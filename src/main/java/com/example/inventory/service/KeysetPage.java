@@ -0,0 +1,66 @@
+package com.example.inventory.service;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated list, with the cursors of its neighbours.
+ */
+public class KeysetPage<T> {
+
+    private final List<T> content;
+    private final String sortField;
+    private final String sortDir;
+    private final int size;
+    private final Cursor previous;
+    private final Cursor next;
+    private final Long total;
+
+    public KeysetPage(List<T> content, String sortField, String sortDir, int size, Cursor previous, Cursor next,
+                      Long total) {
+        this.content = content;
+        this.sortField = sortField;
+        this.sortDir = sortDir;
+        this.size = size;
+        this.previous = previous;
+        this.next = next;
+        this.total = total;
+    }
+
+    public List<T> getContent() { return content; }
+    public String getSortField() { return sortField; }
+    public String getSortDir() { return sortDir; }
+    public int getSize() { return size; }
+
+    /** The first row of this page, to ask for the page before it; null on the first page. */
+    public Cursor getPrevious() { return previous; }
+
+    /** The last row of this page, to ask for the page after it; null on the last page. */
+    public Cursor getNext() { return next; }
+
+    /** Total number of rows, or null when it was not asked for. */
+    public Long getTotal() { return total; }
+
+    public boolean hasPrevious() {
+        return previous != null;
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * A row's position in the sort order: its sort value, as it travels in a URL, and its id.
+     */
+    public static class Cursor {
+        private final String value;
+        private final Long id;
+
+        public Cursor(String value, Long id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        public String getValue() { return value; }
+        public Long getId() { return id; }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.inventory.service;
+
+/**
+ * Query parameters of a keyset-paginated list, bound from the request.
+ *
+ * {@code after}/{@code afterId} ask for the page following the row with that sort value and id,
+ * {@code before}/{@code beforeId} for the page preceding it; without either the first page is
+ * returned. Without {@code sortField} or {@code sortDir} the list's default order applies.
+ * {@code count} adds the total number of rows, which costs a full count.
+ */
+public class KeysetRequest {
+
+    private String sortField;
+    private String sortDir;
+    private int size = 20;
+    private String after;
+    private Long afterId;
+    private String before;
+    private Long beforeId;
+    private boolean count;
+
+    public boolean hasAfter() {
+        return after != null && afterId != null;
+    }
+
+    public boolean hasBefore() {
+        return before != null && beforeId != null;
+    }
+
+    /**
+     * Everything that selects the page, for keying a cache of its rendering.
+     */
+    public String describe() {
+        return sortField + "," + sortDir + "," + size + ",after=" + (hasAfter() ? after + "," + afterId : "")
+                + ",before=" + (hasBefore() ? before + "," + beforeId : "") + ",count=" + count;
+    }
+
+    public String getSortField() { return sortField; }
+    public void setSortField(String sortField) { this.sortField = sortField; }
+
+    public String getSortDir() { return sortDir; }
+    public void setSortDir(String sortDir) { this.sortDir = sortDir; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public String getAfter() { return after; }
+    public void setAfter(String after) { this.after = after; }
+
+    public Long getAfterId() { return afterId; }
+    public void setAfterId(Long afterId) { this.afterId = afterId; }
+
+    public String getBefore() { return before; }
+    public void setBefore(String before) { this.before = before; }
+
+    public Long getBeforeId() { return beforeId; }
+    public void setBeforeId(Long beforeId) { this.beforeId = beforeId; }
+
+    public boolean isCount() { return count; }
+    public void setCount(boolean count) { this.count = count; }
+}
@@ -0,0 +1,144 @@
+package com.example.inventory.service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+/**
+ * The columns a list may be sorted on, and keyset (seek) pagination over them.
+ *
+ * A page is read as {@code where (field, id) > (:value, :id) order by field, id limit size + 1}
+ * (reversed for the page before a cursor), so every page costs one index range scan on the
+ * {@code (field, id)} index that each listed field must have, however deep it is. Only the fields
+ * added here can be sorted on, and their columns must not be null.
+ */
+public final class KeysetSorts<T> {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Reads a window of rows, typically a repository method {@code Window<T> findAllBy(ScrollPosition, Sort, Limit)}.
+     */
+    @FunctionalInterface
+    public interface Scroller<T> {
+        Window<T> scroll(ScrollPosition position, Sort sort, Limit limit);
+    }
+
+    private final Function<T, Long> id;
+    private final String defaultField;
+    private final Sort.Direction defaultDirection;
+    private final Map<String, Field<T>> fields = new LinkedHashMap<>();
+
+    public KeysetSorts(Function<T, Long> id, String defaultField) {
+        this(id, defaultField, Sort.Direction.ASC);
+    }
+
+    public KeysetSorts(Function<T, Long> id, String defaultField, Sort.Direction defaultDirection) {
+        this.id = id;
+        this.defaultField = defaultField;
+        this.defaultDirection = defaultDirection;
+    }
+
+    /**
+     * Allow sorting on the entity property {@code field}, whose cursor values {@code parser} reads back.
+     */
+    public KeysetSorts<T> add(String field, Function<T, ?> getter, Function<String, ?> parser) {
+        fields.put(field, new Field<>(getter, parser));
+        return this;
+    }
+
+    public Set<String> getFields() {
+        return fields.keySet();
+    }
+
+    /**
+     * The page the request asks for.
+     *
+     * @throws IllegalArgumentException if the sort field is not allowed or a cursor cannot be read
+     */
+    public KeysetPage<T> page(KeysetRequest request, Scroller<T> scroller, LongSupplier count) {
+        String fieldName = request.getSortField() == null || request.getSortField().isBlank()
+                ? defaultField : request.getSortField();
+        Field<T> field = fields.get(fieldName);
+        if (field == null) {
+            throw new IllegalArgumentException("Cannot sort on: " + fieldName);
+        }
+        int size = Math.max(1, Math.min(request.getSize(), MAX_PAGE_SIZE));
+        Sort.Direction direction = request.getSortDir() == null || request.getSortDir().isBlank() ? defaultDirection
+                : "desc".equalsIgnoreCase(request.getSortDir()) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, fieldName).and(Sort.by(direction, "id"));
+
+        boolean backward = request.hasBefore();
+        ScrollPosition position;
+        if (backward) {
+            position = ScrollPosition.backward(keys(fieldName, field, request.getBefore(), request.getBeforeId()));
+        } else if (request.hasAfter()) {
+            position = ScrollPosition.forward(keys(fieldName, field, request.getAfter(), request.getAfterId()));
+        } else {
+            position = ScrollPosition.keyset();
+        }
+
+        Window<T> window = scroller.scroll(position, sort, Limit.of(size));
+        List<T> content = window.getContent();
+        KeysetPage.Cursor previous = null;
+        KeysetPage.Cursor next = null;
+        if (!content.isEmpty()) {
+            // a window only knows whether more rows follow in the direction it was read
+            if (backward ? window.hasNext() : request.hasAfter()) {
+                previous = cursor(field, content.get(0));
+            }
+            if (backward || window.hasNext()) {
+                next = cursor(field, content.get(content.size() - 1));
+            }
+        }
+        Long total = request.isCount() ? count.getAsLong() : null;
+        return new KeysetPage<>(content, fieldName, direction == Sort.Direction.DESC ? "desc" : "asc", size,
+                previous, next, total);
+    }
+
+    /**
+     * Cursor values of timestamps are ISO-8601 instants, to the nanosecond the column holds.
+     */
+    public static Timestamp parseTimestamp(String value) {
+        try {
+            return Timestamp.from(Instant.parse(value));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid timestamp: " + value, e);
+        }
+    }
+
+    private static <T> Map<String, Object> keys(String fieldName, Field<T> field, String value, Long id) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(fieldName, field.parser.apply(value));
+        keys.put("id", id);
+        return keys;
+    }
+
+    private KeysetPage.Cursor cursor(Field<T> field, T row) {
+        Object value = field.getter.apply(row);
+        String text = value instanceof Date date ? date.toInstant().toString() : String.valueOf(value);
+        return new KeysetPage.Cursor(text, id.apply(row));
+    }
+
+    private static final class Field<T> {
+        private final Function<T, ?> getter;
+        private final Function<String, ?> parser;
+
+        Field(Function<T, ?> getter, Function<String, ?> parser) {
+            this.getter = getter;
+            this.parser = parser;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.inventory.service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The ids an in-memory copy of the products changed while its startup load was reading them. A save
+ * or delete that committed while the load was reading is newer than the row the load read, so the
+ * load skips those ids. Not thread-safe: callers use it under their own write lock.
+ */
+final class LoadGuard {
+
+    private boolean loading;
+    private final Set<Long> touched = new HashSet<>();
+
+    void start() {
+        loading = true;
+        touched.clear();
+    }
+
+    void finish() {
+        loading = false;
+        touched.clear();
+    }
+
+    boolean isLoading() {
+        return loading;
+    }
+
+    /** Note a change applied while the load may be running. */
+    void touched(long id) {
+        if (loading) {
+            touched.add(id);
+        }
+    }
+
+    /** Whether the load must skip its row for {@code id}. */
+    boolean isNewer(long id) {
+        return touched.contains(id);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.inventory.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+
+/**
+ * Runs a unit of work in its own transaction and retries it when it loses an optimistic-lock race,
+ * or is picked as a deadlock victim by the database.
+ *
+ * Backoff doubles per attempt up to a cap, with half of each delay randomised so that threads
+ * which collided once do not collide again in lockstep. When the caller already holds a
+ * transaction the work runs once inside it: the conflict only surfaces at the caller's commit,
+ * so that is the only place a retry could help.
+ *
+ * Metrics: {@code inventory.optimistic.conflicts}, {@code inventory.optimistic.retries} and
+ * {@code inventory.optimistic.exhausted}, tagged by operation.
+ */
+@Component
+public class OptimisticLockRetry {
+
+    private final TransactionOperations transactions;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    @Autowired
+    public OptimisticLockRetry(PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${inventory.optimistic-retry.max-attempts:5}") int maxAttempts,
+                               @Value("${inventory.optimistic-retry.base-backoff-ms:10}") long baseBackoffMillis,
+                               @Value("${inventory.optimistic-retry.max-backoff-ms:200}") long maxBackoffMillis) {
+        this(new TransactionTemplate(transactionManager), meterRegistry, maxAttempts, baseBackoffMillis, maxBackoffMillis);
+    }
+
+    public OptimisticLockRetry(TransactionOperations transactions, MeterRegistry meterRegistry,
+                               int maxAttempts, long baseBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.transactions = transactions;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactions.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException | OptimisticLockException | CannotAcquireLockException ex) {
+                counter("inventory.optimistic.conflicts", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("inventory.optimistic.exhausted", operation).increment();
+                    throw ex;
+                }
+                counter("inventory.optimistic.retries", operation).increment();
+                sleep(backoffMillis(attempt));
+            }
+        }
+    }
+
+    long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return 0;
+        }
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    private Counter counter(String name, String operation) {
+        return Counter.builder(name).tag("operation", operation).register(meterRegistry);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.repository.OrderRepository;
+
+/**
+ * Moves many orders to one status at once.
+ *
+ * All requested transitions are checked up front with a single query, and nothing is changed if
+ * any of them is invalid. The orders are then applied in chunks, each in its own transaction, with
+ * the effects of {@link OrderTransitionEngine} run once per chunk: release of the pending orders'
+ * stock holds, one conditional stock UPDATE or restock per product with the quantities summed, one
+ * set-based UPDATE per previous status, and the history events, which {@link OrderHistoryRecorder}
+ * writes as one batch at commit. Orders already at the target status
+ * are left alone. If a chunk fails (not enough stock, or an order changed status since the check) that
+ * chunk is rolled back and the exception propagates; earlier chunks stay committed.
+ */
+@Service
+public class OrderBulkService {
+
+    private static final int MAX_REPORTED_PROBLEMS = 10;
+
+    private final OrderRepository repository;
+    private final OrderTransitionEngine engine;
+    private final TransactionOperations transactions;
+    private final int chunkSize;
+
+    @Autowired
+    public OrderBulkService(OrderRepository repository, OrderTransitionEngine engine,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${inventory.bulk.chunk-size:500}") int chunkSize) {
+        this(repository, engine, new TransactionTemplate(transactionManager), chunkSize);
+    }
+
+    public OrderBulkService(OrderRepository repository, OrderTransitionEngine engine,
+                            TransactionOperations transactions, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        this.repository = repository;
+        this.engine = engine;
+        this.transactions = transactions;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Move the given orders to {@code target}. Returns the number of orders whose status changed.
+     *
+     * @throws IllegalStateException if an order is missing or cannot move to {@code target},
+     *         or if a chunk runs out of stock or races with another update
+     */
+    public int transition(Collection<Long> orderIds, OrderStatus target, String actor) {
+        if (target == null) {
+            throw new IllegalArgumentException("Target status is required");
+        }
+        List<Long> ids = orderIds.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Map<Long, StatusRow> rows = loadAndValidate(ids, target);
+
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<StatusRow> chunk = new ArrayList<>();
+            for (Long id : ids.subList(from, Math.min(from + chunkSize, ids.size()))) {
+                StatusRow row = rows.get(id);
+                if (row.status != target) {
+                    chunk.add(row);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                Integer changed = transactions.execute(status -> applyChunk(chunk, target, actor));
+                updated += changed == null ? 0 : changed;
+            }
+        }
+        return updated;
+    }
+
+    private Map<Long, StatusRow> loadAndValidate(List<Long> ids, OrderStatus target) {
+        Map<Long, StatusRow> rows = new HashMap<>();
+        for (Object[] r : repository.findStatusRowsByIdIn(ids)) {
+            StatusRow row = new StatusRow((Long) r[0], (OrderStatus) r[1], (Long) r[2],
+                    r[3] == null ? 0 : ((Number) r[3]).intValue());
+            rows.put(row.id, row);
+        }
+
+        List<String> problems = new ArrayList<>();
+        for (Long id : ids) {
+            StatusRow row = rows.get(id);
+            if (row == null) {
+                problems.add("order " + id + " not found");
+            } else if (row.status == target) {
+                continue;
+            } else if (row.status == null || !row.status.canTransitionTo(target)) {
+                problems.add("order " + id + " is " + row.status);
+            } else if (target.isStockCommitted() && !row.status.isStockCommitted()
+                    && (row.productId == null || row.quantity <= 0)) {
+                problems.add("order " + id + " has no product or quantity");
+            }
+        }
+        if (!problems.isEmpty()) {
+            String listed = String.join(", ", problems.subList(0, Math.min(MAX_REPORTED_PROBLEMS, problems.size())));
+            if (problems.size() > MAX_REPORTED_PROBLEMS) {
+                listed += " and " + (problems.size() - MAX_REPORTED_PROBLEMS) + " more";
+            }
+            throw new IllegalStateException("Cannot move orders to " + target + ": " + listed);
+        }
+        return rows;
+    }
+
+    private int applyChunk(List<StatusRow> chunk, OrderStatus target, String actor) {
+        Map<OrderStatus, List<Long>> byPrevious = new EnumMap<>(OrderStatus.class);
+        List<OrderTransition> batch = new ArrayList<>(chunk.size());
+        for (StatusRow row : chunk) {
+            byPrevious.computeIfAbsent(row.status, s -> new ArrayList<>()).add(row.id);
+            batch.add(new OrderTransition(row.id, row.status, target, row.productId, row.quantity,
+                    row.productId, row.quantity, actor, "Bulk status change"));
+        }
+
+        engine.apply(OrderTransitionEngine.Phase.BEFORE_WRITE, batch);
+        for (Map.Entry<OrderStatus, List<Long>> e : byPrevious.entrySet()) {
+            if (repository.updateStatus(e.getValue(), e.getKey(), target) != e.getValue().size()) {
+                throw new IllegalStateException("Some orders changed while the bulk update was running; "
+                        + "the current batch was not applied");
+            }
+        }
+        engine.apply(OrderTransitionEngine.Phase.AFTER_WRITE, batch);
+        return chunk.size();
+    }
+
+    private static final class StatusRow {
+        final Long id;
+        final OrderStatus status;
+        final Long productId;
+        final int quantity;
+
+        StatusRow(Long id, OrderStatus status, Long productId, int quantity) {
+            this.id = id;
+            this.status = status;
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+}
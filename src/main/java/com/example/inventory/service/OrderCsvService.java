@@ -1,18 +1,36 @@
 package com.example.inventory.service;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -24,37 +42,60 @@ import com.example.inventory.entity.Supplier;
 @Service
 public class OrderCsvService {
 
+    static final String[] ORDER_HEADER = {"ID", "Product", "Quantity", "Status", "Total Price", "Supplier", "Order Date"};
+
+    /** Upper bound on partitions per export; also caps the number of temporary part files. */
+    static final int MAX_PARTITIONS = 64;
+
+    /** Width of the id window fetched per query inside a partition. */
+    static final long PAGE_ID_SPAN = 5_000L;
+
     private final OrderService orderService;
     private final ProductService productService;
     private final SupplierService supplierService;
 
-    public OrderCsvService(OrderService orderService, ProductService productService, SupplierService supplierService) {
+    /**
+     * Partition readers shared by all exports, so {@code inventory.export.threads} bounds the database
+     * connections exports hold at once however many run; keep it below the connection pool size.
+     */
+    private final ExecutorService exportPool;
+
+    @Autowired
+    public OrderCsvService(OrderService orderService, ProductService productService, SupplierService supplierService,
+                           @Value("${inventory.export.threads:8}") int exportThreads) {
+        if (exportThreads < 1) {
+            throw new IllegalArgumentException("exportThreads must be at least 1");
+        }
         this.orderService = orderService;
         this.productService = productService;
         this.supplierService = supplierService;
+        AtomicInteger threadNo = new AtomicInteger();
+        this.exportPool = Executors.newFixedThreadPool(exportThreads, task -> {
+            Thread thread = new Thread(task, "order-export-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        exportPool.shutdownNow();
     }
 
     /**
      * Export all orders to CSV format
      */
     public ByteArrayOutputStream exportOrdersToCsv() throws IOException {
-        List<Order> orders = orderService.getAllOrders();
+        // id order keeps the output deterministic and identical to the partitioned export
+        List<Order> orders = new ArrayList<>(orderService.getAllOrders());
+        orders.sort(Comparator.comparing(Order::getId, Comparator.nullsLast(Comparator.<Long>naturalOrder())));
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         
         try (OutputStreamWriter writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
-             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT
-                     .withHeader("ID", "Product", "Quantity", "Status", "Total Price", "Supplier", "Order Date"))) {
+             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(ORDER_HEADER))) {
             
             for (Order order : orders) {
-                csvPrinter.printRecord(
-                        order.getId(),
-                        order.getProduct() != null ? order.getProduct().getName() : "",
-                        order.getQuantity() != null ? order.getQuantity() : 0,
-                        order.getStatus() != null ? order.getStatus().name() : "",
-                        order.getTotalPrice() != null ? order.getTotalPrice() : 0,
-                        order.getSupplier() != null ? order.getSupplier().getName() : "",
-                        order.getOrderDate()
-                );
+                printOrder(csvPrinter, order);
             }
             csvPrinter.flush();
         }
@@ -62,6 +103,143 @@ public class OrderCsvService {
         return outputStream;
     }
 
+    /**
+     * Export all orders to CSV by reading and encoding id-range partitions concurrently.
+     *
+     * The id range is split into {@code partitions} equal slices. Each slice is read in id windows and
+     * encoded to a temporary file on the shared export pool. A slice is copied to {@code out} as soon
+     * as it and every slice before it are done, while later slices are still encoding, so the result
+     * is byte-identical to {@link #exportOrdersToCsv()} while memory stays bounded by one id window
+     * per thread.
+     */
+    public void exportOrdersToCsvPartitioned(OutputStream out, int partitions) throws IOException {
+        writeHeader(out);
+        encodePartitions(partitions, (index, part) -> Files.copy(part, out));
+        out.flush();
+    }
+
+    /**
+     * Export all orders as a ZIP archive with one CSV entry per id-range partition.
+     *
+     * Only the first entry carries the header, so concatenating the entries in name order gives the
+     * same bytes as {@link #exportOrdersToCsv()}.
+     */
+    public void exportOrdersToCsvArchive(OutputStream out, int partitions) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        encodePartitions(partitions, (index, part) -> {
+            zip.putNextEntry(new ZipEntry(String.format("orders_part_%03d.csv", index)));
+            if (index == 0) {
+                writeHeader(zip);
+            }
+            Files.copy(part, zip);
+            zip.closeEntry();
+        });
+        zip.finish();
+        zip.flush();
+    }
+
+    @FunctionalInterface
+    private interface PartWriter {
+        void write(int index, Path part) throws IOException;
+    }
+
+    /**
+     * Encode every partition to its own temporary file on the export pool and hand the files to
+     * {@code writer} in id order, each as soon as it is done; a file is deleted once written.
+     * An empty table still yields one (empty) part.
+     */
+    private void encodePartitions(int requestedPartitions, PartWriter writer) throws IOException {
+        int partitions = Math.max(1, Math.min(requestedPartitions, MAX_PARTITIONS));
+        long[] range = orderService.getOrderIdRange();
+        if (range == null) {
+            range = new long[] { 0L, -1L };
+        }
+        long first = range[0];
+        long span = range[1] - range[0] + 1;
+        if (span < partitions) {
+            partitions = (int) Math.max(1L, span);
+        }
+        long sliceSize = span <= 0 ? 0 : (span + partitions - 1) / partitions;
+
+        List<Path> parts = new ArrayList<>(partitions);
+        List<Future<?>> futures = new ArrayList<>(partitions);
+        try {
+            for (int i = 0; i < partitions; i++) {
+                // created here, so cleanup never depends on a task that was cancelled part way
+                Path part = Files.createTempFile("orders_export_", ".csv");
+                parts.add(part);
+                long from = first + i * sliceSize;
+                long to = Math.min(range[1], from + sliceSize - 1);
+                futures.add(exportPool.submit(() -> encodePartition(part, from, to)));
+            }
+            for (int i = 0; i < partitions; i++) {
+                futures.get(i).get();
+                writer.write(i, parts.get(i));
+                Files.deleteIfExists(parts.get(i));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Order export interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+            throw new IOException("Order export failed: " + cause.getMessage(), cause);
+        } finally {
+            // the pool is shared: stop only this export's partitions
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            deleteQuietly(parts);
+        }
+    }
+
+    private void encodePartition(Path part, long fromId, long toId) {
+        try {
+            // no CREATE: a partition cancelled after its file was cleaned up fails instead of leaking it
+            OutputStream stream = Files.newOutputStream(part, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            try (OutputStream file = new BufferedOutputStream(stream);
+                 OutputStreamWriter writer = new OutputStreamWriter(file, StandardCharsets.UTF_8);
+                 CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT)) {
+                for (long from = fromId; from <= toId; from += PAGE_ID_SPAN) {
+                    long to = Math.min(toId, from + PAGE_ID_SPAN - 1);
+                    for (Order order : orderService.getOrdersInIdRange(from, to)) {
+                        printOrder(csvPrinter, order);
+                    }
+                }
+                csvPrinter.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeHeader(OutputStream out) throws IOException {
+        OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(ORDER_HEADER));
+        csvPrinter.flush();
+    }
+
+    private void printOrder(CSVPrinter csvPrinter, Order order) throws IOException {
+        csvPrinter.printRecord(
+                order.getId(),
+                order.getProduct() != null ? order.getProduct().getName() : "",
+                order.getQuantity() != null ? order.getQuantity() : 0,
+                order.getStatus() != null ? order.getStatus().name() : "",
+                order.getTotalPrice() != null ? order.getTotalPrice() : 0,
+                order.getSupplier() != null ? order.getSupplier().getName() : "",
+                order.getOrderDate()
+        );
+    }
+
+    private static void deleteQuietly(List<Path> parts) {
+        for (Path part : parts) {
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignored) {
+                // temp files are best-effort cleanup
+            }
+        }
+    }
+
     /**
      * Import orders from CSV file
      */
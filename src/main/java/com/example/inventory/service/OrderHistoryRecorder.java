@@ -0,0 +1,205 @@
+package com.example.inventory.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.inventory.entity.OrderStatus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records order status changes through a transactional outbox.
+ *
+ * Changes recorded inside a transaction are buffered and written to {@code order_history_outbox}
+ * as one JDBC batch just before that transaction commits, so they commit or roll back with the
+ * order. A scheduled relay then moves outbox rows into {@code order_history} in set-based batches.
+ * Events for orders deleted in the meantime are dropped by the relay.
+ *
+ * The outbox is bounded by {@code inventory.history.outbox-capacity}. Once that many events are
+ * waiting, the overflow policy applies: {@link OverflowPolicy#WRITE_THROUGH} writes straight to
+ * {@code order_history} in the caller's transaction (slower, never lost), {@link OverflowPolicy#REJECT}
+ * fails the caller's transaction.
+ *
+ * Metrics: {@code inventory.history.outbox.pending}, {@code inventory.history.outbox.lag} (age in
+ * seconds of the oldest waiting event, as of the last relay run), {@code inventory.history.relay.delay}
+ * (commit-to-history time per relayed batch) and {@code inventory.history.overflow}.
+ */
+@Service
+public class OrderHistoryRecorder {
+
+    public enum OverflowPolicy { WRITE_THROUGH, REJECT }
+
+    static final String INSERT_OUTBOX = "insert into order_history_outbox "
+            + "(order_id, previous_status, new_status, actor, note, changed_at) values (?, ?, ?, ?, ?, ?)";
+    static final String INSERT_HISTORY = "insert into order_history "
+            + "(order_id, previous_status, new_status, actor, note, changed_at) values (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactions;
+    private final long capacity;
+    private final int relayBatchSize;
+    private final OverflowPolicy overflowPolicy;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestPendingMillis = new AtomicLong();
+    private final Timer relayDelay;
+    private final Counter overflowCounter;
+
+    @Autowired
+    public OrderHistoryRecorder(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${inventory.history.outbox-capacity:100000}") long capacity,
+                                @Value("${inventory.history.relay-batch-size:500}") int relayBatchSize,
+                                @Value("${inventory.history.overflow-policy:WRITE_THROUGH}") OverflowPolicy overflowPolicy) {
+        this(jdbcTemplate, new TransactionTemplate(transactionManager), meterRegistry, capacity, relayBatchSize, overflowPolicy);
+    }
+
+    public OrderHistoryRecorder(JdbcTemplate jdbcTemplate, TransactionOperations transactions, MeterRegistry meterRegistry,
+                                long capacity, int relayBatchSize, OverflowPolicy overflowPolicy) {
+        if (relayBatchSize < 1) {
+            throw new IllegalArgumentException("relayBatchSize must be at least 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactions = transactions;
+        this.capacity = capacity;
+        this.relayBatchSize = relayBatchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.relayDelay = Timer.builder("inventory.history.relay.delay").register(meterRegistry);
+        this.overflowCounter = Counter.builder("inventory.history.overflow").register(meterRegistry);
+        Gauge.builder("inventory.history.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("inventory.history.outbox.lag", oldestPendingMillis,
+                oldest -> oldest.get() == 0 ? 0.0 : (System.currentTimeMillis() - oldest.get()) / 1000.0)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPending() {
+        Long count = jdbcTemplate.queryForObject("select count(*) from order_history_outbox", Long.class);
+        pending.set(count == null ? 0 : count);
+        refreshOldest();
+    }
+
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Record a status change. Inside a transaction it is written when that transaction commits;
+     * outside one it is written to the outbox immediately.
+     */
+    public void record(Long orderId, OrderStatus previousStatus, OrderStatus newStatus, String actor, String note) {
+        Object[] event = {orderId, name(previousStatus), name(newStatus), actor, note,
+                new Timestamp(System.currentTimeMillis())};
+        if (pending.get() >= capacity) {
+            overflowCounter.increment();
+            if (overflowPolicy == OverflowPolicy.REJECT) {
+                throw new IllegalStateException("Order history backlog is full (" + capacity + " events)");
+            }
+            jdbcTemplate.update(INSERT_HISTORY, event);
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            jdbcTemplate.update(INSERT_OUTBOX, event);
+            pending.incrementAndGet();
+            return;
+        }
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        buffer.events.add(event);
+    }
+
+    /**
+     * Move waiting events into {@code order_history}, one transaction per batch. Returns the number moved.
+     */
+    @Scheduled(fixedDelayString = "${inventory.history.relay-interval-ms:500}")
+    public int relay() {
+        int total = 0;
+        while (true) {
+            Integer moved = transactions.execute(status -> relayBatch());
+            int count = moved == null ? 0 : moved;
+            total += count;
+            if (count < relayBatchSize) {
+                break;
+            }
+        }
+        refreshOldest();
+        return total;
+    }
+
+    private int relayBatch() {
+        // SKIP LOCKED lets several application instances relay side by side without taking the same rows
+        List<Long> ids = jdbcTemplate.queryForList(
+                "select id from order_history_outbox order by id limit ? for update skip locked",
+                Long.class, relayBatchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Object[] args = ids.toArray();
+        Timestamp oldest = jdbcTemplate.queryForObject(
+                "select min(changed_at) from order_history_outbox where id in (" + in + ")", Timestamp.class, args);
+        jdbcTemplate.update("insert into order_history (order_id, previous_status, new_status, actor, note, changed_at) "
+                + "select ob.order_id, ob.previous_status, ob.new_status, ob.actor, ob.note, ob.changed_at "
+                + "from order_history_outbox ob join orders o on o.id = ob.order_id "
+                + "where ob.id in (" + in + ") order by ob.id", args);
+        int deleted = jdbcTemplate.update("delete from order_history_outbox where id in (" + in + ")", args);
+        pending.updateAndGet(p -> Math.max(0, p - deleted));
+        if (oldest != null) {
+            relayDelay.record(System.currentTimeMillis() - oldest.getTime(), TimeUnit.MILLISECONDS);
+        }
+        return ids.size();
+    }
+
+    private void refreshOldest() {
+        Timestamp oldest = jdbcTemplate.queryForObject("select min(changed_at) from order_history_outbox", Timestamp.class);
+        oldestPendingMillis.set(oldest == null ? 0 : oldest.getTime());
+    }
+
+    private static String name(OrderStatus status) {
+        return status == null ? null : status.name();
+    }
+
+    /**
+     * Events recorded in the current transaction, written as one batch before it commits.
+     */
+    private final class Buffer implements TransactionSynchronization {
+        final List<Object[]> events = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            jdbcTemplate.batchUpdate(INSERT_OUTBOX, events);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(OrderHistoryRecorder.this);
+            if (status == STATUS_COMMITTED) {
+                pending.addAndGet(events.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.inventory.entity.IdempotencyKey;
+import com.example.inventory.entity.Order;
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.entity.Product;
+import com.example.inventory.repository.OrderRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Group-commit intake for new orders.
+ *
+ * With {@code inventory.intake.enabled} set, new orders are queued and a single committer thread
+ * drains up to {@code inventory.intake.max-batch} of them, waiting at most
+ * {@code inventory.intake.max-wait-ms} after the first arrives, and creates the whole group in one
+ * transaction: one commit instead of one per order. Stock is checked per order against a running
+ * available-to-promise figure, so an order that does not fit fails on its own without failing the
+ * group, and confirmed units are then taken with one conditional UPDATE per product. If the group
+ * transaction still fails, its orders are replayed one by one through
+ * {@link OrderService#saveOrUpdateOrder(Order, String)} so every caller gets its own answer.
+ *
+ * Updates to existing orders, and every save while intake is disabled, go straight to
+ * {@link OrderService}.
+ *
+ * Metrics: {@code inventory.intake.orders} and {@code inventory.intake.commits} (compare their
+ * rates for orders per commit), {@code inventory.intake.batch.size}, {@code inventory.intake.latency}
+ * (queue to answer), {@code inventory.intake.queue.depth} and {@code inventory.intake.fallbacks}.
+ */
+@Service
+public class OrderIntakeQueue {
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final ProductService productService;
+    private final ReservationService reservationService;
+    private final OrderTransitionEngine engine;
+    private final IdempotencyService idempotencyService;
+    private final ProductLockManager productLocks;
+    private final TransactionOperations transactions;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long maxWaitMillis;
+    private final BlockingQueue<Submission> queue;
+
+    private final Counter ordersCounter;
+    private final Counter commitsCounter;
+    private final Counter fallbackCounter;
+    private final DistributionSummary batchSize;
+    private final Timer latency;
+
+    private volatile boolean running;
+    private Thread committer;
+
+    @Autowired
+    public OrderIntakeQueue(OrderService orderService, OrderRepository orderRepository, ProductService productService,
+                            ReservationService reservationService, OrderTransitionEngine engine,
+                            IdempotencyService idempotencyService, ProductLockManager productLocks,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                            @Value("${inventory.intake.enabled:false}") boolean enabled,
+                            @Value("${inventory.intake.max-batch:100}") int maxBatch,
+                            @Value("${inventory.intake.max-wait-ms:5}") long maxWaitMillis,
+                            @Value("${inventory.intake.capacity:10000}") int capacity) {
+        this(orderService, orderRepository, productService, reservationService, engine, idempotencyService,
+                productLocks, new TransactionTemplate(transactionManager), meterRegistry, enabled, maxBatch, maxWaitMillis,
+                capacity);
+    }
+
+    public OrderIntakeQueue(OrderService orderService, OrderRepository orderRepository, ProductService productService,
+                            ReservationService reservationService, OrderTransitionEngine engine,
+                            IdempotencyService idempotencyService, ProductLockManager productLocks,
+                            TransactionOperations transactions, MeterRegistry meterRegistry,
+                            boolean enabled, int maxBatch, long maxWaitMillis, int capacity) {
+        if (maxBatch < 1 || capacity < 1) {
+            throw new IllegalArgumentException("maxBatch and capacity must be at least 1");
+        }
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.productService = productService;
+        this.reservationService = reservationService;
+        this.engine = engine;
+        this.idempotencyService = idempotencyService;
+        this.productLocks = productLocks;
+        this.transactions = transactions;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.maxWaitMillis = maxWaitMillis;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.ordersCounter = Counter.builder("inventory.intake.orders").register(meterRegistry);
+        this.commitsCounter = Counter.builder("inventory.intake.commits").register(meterRegistry);
+        this.fallbackCounter = Counter.builder("inventory.intake.fallbacks").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("inventory.intake.batch.size").register(meterRegistry);
+        this.latency = Timer.builder("inventory.intake.latency").register(meterRegistry);
+        Gauge.builder("inventory.intake.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        committer = new Thread(this::run, "order-intake");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Save an order, through the group-commit queue when it is a new order and intake is running,
+     * and wait for the result. Failures surface as they would from {@link OrderService}.
+     */
+    public Order submit(Order order, String idempotencyKey) {
+        if (!running || order.getId() != null || order.getProduct() == null || order.getProduct().getId() == null) {
+            return orderService.saveOrUpdateOrder(order, idempotencyKey);
+        }
+        try {
+            return submitAsync(order, idempotencyKey).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Queue a new order. The future completes once its group has committed, or with the error that
+     * kept this order out of it.
+     *
+     * @throws IllegalStateException if the queue is full
+     */
+    public CompletableFuture<Order> submitAsync(Order order, String idempotencyKey) {
+        String key = idempotencyService.normalize(idempotencyKey);
+        if (key != null) {
+            Long previous = idempotencyService.findOrderId(key);
+            if (previous != null) {
+                return CompletableFuture.completedFuture(orderService.getOrderById(previous));
+            }
+        }
+        Submission submission = new Submission(order, key);
+        if (!queue.offer(submission)) {
+            throw new IllegalStateException("Order intake queue is full; try again shortly");
+        }
+        return submission.result;
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                commitNext(maxWaitMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // commitNext answers every caller itself; keep the committer alive
+            }
+        }
+    }
+
+    /**
+     * Take the next group off the queue, waiting up to {@code waitMillis} for its first order and
+     * then up to {@code maxWaitMillis} for the rest, and commit it. Returns the group size.
+     */
+    int commitNext(long waitMillis) throws InterruptedException {
+        Submission first = queue.poll(waitMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return 0;
+        }
+        List<Submission> group = new ArrayList<>(maxBatch);
+        group.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        while (group.size() < maxBatch) {
+            long remaining = deadline - System.nanoTime();
+            Submission next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            group.add(next);
+            queue.drainTo(group, maxBatch - group.size());
+        }
+        commit(group);
+        return group.size();
+    }
+
+    private void commit(List<Submission> group) {
+        batchSize.record(group.size());
+        ordersCounter.increment(group.size());
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (Submission submission : group) {
+            if (!productService.isStockSharded(submission.order.getProduct().getId())) {
+                productIds.add(submission.order.getProduct().getId());
+            }
+        }
+        List<Submission> accepted;
+        try {
+            accepted = productLocks.withLocks(productIds, () -> transactions.execute(status -> applyGroup(group)));
+            commitsCounter.increment();
+        } catch (RuntimeException ex) {
+            replayIndividually(group);
+            return;
+        }
+        for (Submission submission : accepted) {
+            submission.complete(submission.saved, null);
+        }
+    }
+
+    /**
+     * One transaction for the whole group. Orders that fail validation are answered here and left
+     * out; the rest are returned once written.
+     */
+    private List<Submission> applyGroup(List<Submission> group) {
+        Map<Long, Product> products = new HashMap<>();
+        Map<Long, Integer> available = new HashMap<>();
+        List<Submission> accepted = new ArrayList<>(group.size());
+
+        for (Submission submission : group) {
+            Order order = submission.order;
+            Long productId = order.getProduct().getId();
+            Product product = products.get(productId);
+            if (product == null) {
+                try {
+                    product = productService.getProductById(productId);
+                } catch (IllegalArgumentException ex) {
+                    submission.complete(null, ex);
+                    continue;
+                }
+                products.put(productId, product);
+                available.put(productId, reservationService.getAvailableToPromise(product));
+            }
+            OrderStatus status = order.getStatus() == null ? OrderStatus.PENDING : order.getStatus();
+            Integer quantity = order.getQuantity();
+            if (status.isStockCommitted() && (quantity == null || quantity <= 0)) {
+                submission.complete(null, new IllegalStateException("Order quantity must be provided and greater than zero"));
+                continue;
+            }
+            int units = (status.isStockCommitted() || status == OrderStatus.PENDING) && quantity != null ? quantity : 0;
+            if (units > available.get(productId)) {
+                String message = status.isStockCommitted()
+                        ? "Insufficient inventory for product: " + product.getName()
+                        : "Insufficient available stock for product: " + product.getName();
+                submission.complete(null, new IllegalStateException(message));
+                continue;
+            }
+            available.merge(productId, -units, Integer::sum);
+            order.setStatus(status);
+            order.setProduct(product);
+            if (product.getPrice() != null && quantity != null) {
+                order.setTotalPrice(product.getPrice() * quantity);
+            }
+            accepted.add(submission);
+        }
+
+        // stock is taken with one conditional UPDATE per product for the whole group
+        List<OrderTransition> batch = new ArrayList<>(accepted.size());
+        for (Submission submission : accepted) {
+            Order order = submission.order;
+            batch.add(OrderTransition.forSave(null, order, products.get(order.getProduct().getId()), null, "Status changed"));
+        }
+        engine.apply(OrderTransitionEngine.Phase.BEFORE_WRITE, batch);
+
+        List<IdempotencyKey> claims = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            Submission submission = accepted.get(i);
+            claims.add(submission.key != null ? idempotencyService.claim(submission.key) : null);
+            submission.saved = orderRepository.save(submission.order);
+            batch.get(i).setOrder(submission.saved);
+        }
+        engine.apply(OrderTransitionEngine.Phase.AFTER_WRITE, batch);
+
+        for (int i = 0; i < accepted.size(); i++) {
+            if (claims.get(i) != null) {
+                idempotencyService.complete(claims.get(i), accepted.get(i).saved.getId());
+            }
+        }
+        return accepted;
+    }
+
+    private void replayIndividually(List<Submission> group) {
+        fallbackCounter.increment();
+        for (Submission submission : group) {
+            if (submission.result.isDone()) {
+                continue;
+            }
+            // the failed group may have assigned an id or version; start from what was submitted
+            submission.order.setId(null);
+            submission.order.setVersion(null);
+            try {
+                submission.complete(orderService.saveOrUpdateOrder(submission.order, submission.key), null);
+            } catch (RuntimeException ex) {
+                submission.complete(null, ex);
+            }
+        }
+    }
+
+    private final class Submission {
+        final Order order;
+        final String key;
+        final CompletableFuture<Order> result = new CompletableFuture<>();
+        final long queuedAt = System.nanoTime();
+        Order saved;
+
+        Submission(Order order, String key) {
+            this.order = order;
+            this.key = key;
+        }
+
+        void complete(Order order, RuntimeException error) {
+            latency.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(order);
+            }
+        }
+    }
+}
@@ -1,31 +1,50 @@
 package com.example.inventory.service;
 
 import java.util.List;
+import java.util.function.Supplier;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.inventory.entity.IdempotencyKey;
 import com.example.inventory.entity.Order;
-import com.example.inventory.entity.OrderHistory;
 import com.example.inventory.entity.OrderStatus;
 import com.example.inventory.entity.Product;
-import com.example.inventory.repository.OrderHistoryRepository;
 import com.example.inventory.repository.OrderRepository;
 
 @Service
 @Transactional
 public class OrderService {
 
+    private static final KeysetSorts<Order> SORTS = new KeysetSorts<Order>(Order::getId, "orderDate", Sort.Direction.DESC)
+            .add("orderDate", Order::getOrderDate, KeysetSorts::parseTimestamp)
+            .add("totalPrice", Order::getTotalPrice, Double::valueOf);
+
     private final OrderRepository repository;
-    private final OrderHistoryRepository historyRepository;
+    private final OrderTransitionEngine engine;
     private final ProductService productService;
-
-    public OrderService(OrderRepository repository, OrderHistoryRepository historyRepository, ProductService productService) {
+    private final OptimisticLockRetry retry;
+    private final ProductLockManager productLocks;
+    private final ReservationService reservationService;
+    private final IdempotencyService idempotencyService;
+    private final ProductPriceCache priceCache;
+
+    public OrderService(OrderRepository repository, OrderTransitionEngine engine, ProductService productService,
+                        OptimisticLockRetry retry, ProductLockManager productLocks, ReservationService reservationService,
+                        IdempotencyService idempotencyService, ProductPriceCache priceCache) {
         this.repository = repository;
-        this.historyRepository = historyRepository;
+        this.engine = engine;
         this.productService = productService;
+        this.retry = retry;
+        this.productLocks = productLocks;
+        this.reservationService = reservationService;
+        this.idempotencyService = idempotencyService;
+        this.priceCache = priceCache;
     }
 
     public List<Order> getAllOrders() {
@@ -36,74 +55,171 @@ public class OrderService {
         return repository.findAll(pageable);
     }
 
+    /**
+     * One page of orders, newest first unless sorted on orderDate or totalPrice. Seeks on the
+     * {@code (field, id)} index, so any page costs the same as the first, and counts all orders
+     * only when asked to.
+     */
+    public KeysetPage<Order> getOrderPage(KeysetRequest request) {
+        return SORTS.page(request, repository::findAllBy, repository::count);
+    }
+
+    /**
+     * Smallest and largest order id, or {@code null} when there are no orders.
+     */
+    public long[] getOrderIdRange() {
+        Long min = repository.findMinId();
+        Long max = repository.findMaxId();
+        if (min == null || max == null) return null;
+        return new long[] { min, max };
+    }
+
+    /**
+     * Orders with ids in {@code [fromId, toId]}, ordered by id, with product, category and supplier fetched.
+     */
+    public List<Order> getOrdersInIdRange(long fromId, long toId) {
+        return repository.findByIdRangeWithDetails(fromId, toId);
+    }
+
     public Order getOrderById(Long id) {
         return repository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found with id: " + id));
     }
 
+    /**
+     * Save an order and apply the stock effects of its status change. An existing order may only
+     * move along {@link OrderStatus#canTransitionTo}; anything else fails with an IllegalStateException.
+     *
+     * Runs in its own transaction and is retried with backoff when another writer changes the same
+     * order between our read and our commit; each attempt re-reads the current status, so a retried
+     * confirmation or cancellation never applies its stock effect twice.
+     *
+     * Every status moves stock or a stock hold (PENDING orders reserve their units, see
+     * {@link ReservationService}), so saves first take the in-process lock for their product:
+     * callers racing on the same product wait here rather than on the database row, and the lock
+     * is held until the transaction has committed. Hot products with sharded stock skip the lock;
+     * their confirmations mostly touch different shard rows and can run side by side.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Order saveOrUpdateOrder(Order order) {
-        // Compute total price from product price and quantity when possible
-        if (order.getProduct() != null && order.getQuantity() != null) {
-            Product p = productService.getProductById(order.getProduct().getId());
-            if (p != null && p.getPrice() != null) {
-                order.setTotalPrice(p.getPrice() * order.getQuantity());
+        return saveOrUpdateOrder(order, null);
+    }
+
+    /**
+     * As {@link #saveOrUpdateOrder(Order)}, but a new order submitted with an idempotency key is
+     * created at most once: a retry with the same key returns the order the first submission created
+     * without running the save again. The key is claimed in the same transaction as the order, so
+     * two submissions racing with one key leave one order and one answer. Ignored for updates.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Order saveOrUpdateOrder(Order order, String idempotencyKey) {
+        String key = order.getId() == null ? idempotencyService.normalize(idempotencyKey) : null;
+        if (key != null) {
+            Long previous = idempotencyService.findOrderId(key);
+            if (previous != null) {
+                return getOrderById(previous);
             }
         }
-
-        // Determine previous status (if existing)
-        OrderStatus previousStatus = null;
-        if (order.getId() != null) {
-            Order existing = repository.findById(order.getId()).orElse(null);
-            if (existing != null) previousStatus = existing.getStatus();
+        Long submittedId = order.getId();
+        Long submittedVersion = order.getVersion();
+        OrderStatus target = order.getStatus() == null ? OrderStatus.PENDING : order.getStatus();
+        Supplier<Order> save = () -> retry.execute("order-" + target.name().toLowerCase(), () -> {
+            // a failed attempt may have assigned an id or version to a new order; start from what was submitted
+            order.setId(submittedId);
+            order.setVersion(submittedVersion);
+            IdempotencyKey claim = key != null ? idempotencyService.claim(key) : null;
+            Order saved = applyOrder(order);
+            if (claim != null) {
+                idempotencyService.complete(claim, saved.getId());
+            }
+            return saved;
+        });
+        try {
+            if (order.getProduct() != null && order.getProduct().getId() != null
+                    && !productService.isStockSharded(order.getProduct().getId())) {
+                return productLocks.withLock(order.getProduct().getId(), save);
+            }
+            return save.get();
+        } catch (DataIntegrityViolationException ex) {
+            if (key == null) throw ex;
+            // another submission with this key got there first; answer with its order
+            Long previous = idempotencyService.findOrderId(key);
+            if (previous == null) {
+                throw new IllegalStateException("An order with this idempotency key is already being processed", ex);
+            }
+            order.setId(submittedId);
+            order.setVersion(submittedVersion);
+            return getOrderById(previous);
         }
+    }
 
-        OrderStatus newStatus = order.getStatus() == null ? OrderStatus.PENDING : order.getStatus();
-
-        // Inventory adjustments:
-        // - When transitioning to CONFIRMED (and wasn't CONFIRMED before) -> decrement inventory
-        // - When transitioning from CONFIRMED to CANCELLED -> increment inventory back
-        if (newStatus == OrderStatus.CONFIRMED && previousStatus != OrderStatus.CONFIRMED) {
-            Product p = productService.getProductById(order.getProduct().getId());
-            if (p == null) throw new IllegalStateException("Product not found for this order");
-            Integer availableI = p.getQuantity();
-            int available = availableI != null ? availableI : 0;
-            Integer qtyI = order.getQuantity();
-            if (qtyI == null || qtyI <= 0) throw new IllegalStateException("Order quantity must be provided and greater than zero");
-            int qty = qtyI;
-            if (available < qty) throw new IllegalStateException("Insufficient inventory for product: " + p.getName());
-            p.setQuantity(available - qty);
-            productService.saveOrUpdateProduct(p);
+    /**
+     * One unit of work for an order save. Reads are a single fetch-joined query for an existing
+     * order (its product comes with it and is reused), or for a new product of the order its price
+     * from {@link ProductPriceCache} and a lazy reference (a product missing from the cache is
+     * looked up at once). Confirming never loads the referenced product, as the conditional stock
+     * UPDATE also checks the units held for other orders; placing a hold on a pending order does
+     * read its stock. Every write is left to the flush at commit, except the conditional stock
+     * UPDATE, which must see the database row. Status rules and stock, hold and history effects come
+     * from the {@link OrderTransitionEngine}, the same table the bulk path uses.
+     */
+    private Order applyOrder(Order order) {
+        // Determine previous state (if existing), loading its product in the same query
+        Order existing = null;
+        if (order.getId() != null) {
+            existing = repository.findWithProductById(order.getId()).orElse(null);
         }
 
-        if (previousStatus == OrderStatus.CONFIRMED && newStatus == OrderStatus.CANCELLED) {
-            Product p = productService.getProductById(order.getProduct().getId());
-            if (p == null) throw new IllegalStateException("Product not found for this order");
-            Integer availableI = p.getQuantity();
-            int available = availableI != null ? availableI : 0;
-            Integer qtyI = order.getQuantity();
-            int qty = qtyI != null ? qtyI : 0;
-            p.setQuantity(available + qty);
-            productService.saveOrUpdateProduct(p);
+        // Resolve the product (forms only carry its id) and compute total price when possible
+        Product product = null;
+        if (order.getProduct() != null && order.getProduct().getId() != null) {
+            Long productId = order.getProduct().getId();
+            long cents = ProductPriceCache.MISSING;
+            if (existing != null && existing.getProduct() != null && productId.equals(existing.getProduct().getId())) {
+                product = existing.getProduct();
+            } else {
+                cents = priceCache.get(productId);
+                product = cents != ProductPriceCache.MISSING
+                        ? productService.getProductReference(productId)
+                        : productService.getProductById(productId);
+            }
+            if (product != null) {
+                order.setProduct(product);
+            }
+            if (order.getQuantity() != null) {
+                if (cents != ProductPriceCache.MISSING) {
+                    order.setTotalPrice(cents * order.getQuantity() / 100.0);
+                } else if (product != null && product.getPrice() != null) {
+                    order.setTotalPrice(product.getPrice() * order.getQuantity());
+                }
+            }
         }
 
-        // Save order
-        Order saved = repository.save(order);
-
-        // Record history if status changed
-        if (previousStatus != newStatus) {
-            OrderHistory h = new OrderHistory();
-            h.setOrder(saved);
-            h.setPreviousStatus(previousStatus);
-            h.setNewStatus(newStatus);
-            h.setActor(null);
-            h.setNote("Status changed");
-            historyRepository.save(h);
+        // Captured before the managed order is changed below
+        List<OrderTransition> transition = List.of(OrderTransition.forSave(existing, order, product, null, "Status changed"));
+        engine.validate(transition);
+        engine.apply(OrderTransitionEngine.Phase.BEFORE_WRITE, transition);
+
+        // Save order. Updates go through the managed copy so its version, not the submitted one, guards the write.
+        Order saved;
+        if (existing != null) {
+            existing.setProduct(order.getProduct());
+            existing.setQuantity(order.getQuantity());
+            existing.setStatus(order.getStatus());
+            existing.setTotalPrice(order.getTotalPrice());
+            existing.setSupplier(order.getSupplier());
+            saved = repository.save(existing);
+        } else {
+            saved = repository.save(order);
         }
 
+        transition.get(0).setOrder(saved);
+        engine.apply(OrderTransitionEngine.Phase.AFTER_WRITE, transition);
         return saved;
     }
 
     public void deleteOrder(Long id) {
+        reservationService.release(id);
         repository.deleteById(id);
     }
 }
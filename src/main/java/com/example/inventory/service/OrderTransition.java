@@ -0,0 +1,81 @@
+package com.example.inventory.service;
+
+import com.example.inventory.entity.Order;
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.entity.Product;
+
+/**
+ * One order moving from one status, product and quantity to another, as seen by the effects of
+ * {@link OrderTransitionEngine}. {@code from} is {@code null} for a new order.
+ */
+public final class OrderTransition {
+
+    private Long orderId;
+    private Order order;
+    private final OrderStatus from;
+    private final OrderStatus to;
+    private final Long fromProductId;
+    private final int fromQuantity;
+    private final Long productId;
+    private Product product;
+    private final int quantity;
+    private final String actor;
+    private final String note;
+
+    public OrderTransition(Long orderId, OrderStatus from, OrderStatus to, Long fromProductId, int fromQuantity,
+                           Long productId, int quantity, String actor, String note) {
+        this.orderId = orderId;
+        this.from = from;
+        this.to = to;
+        this.fromProductId = fromProductId;
+        this.fromQuantity = fromQuantity;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.actor = actor;
+        this.note = note;
+    }
+
+    /**
+     * Transition for saving {@code order} over {@code existing} ({@code null} for a new order). The
+     * product, if known, is carried along so effects need not look it up again.
+     */
+    public static OrderTransition forSave(Order existing, Order order, Product product, String actor, String note) {
+        OrderStatus to = order.getStatus() == null ? OrderStatus.PENDING : order.getStatus();
+        Long productId = order.getProduct() == null ? null : order.getProduct().getId();
+        OrderTransition transition;
+        if (existing == null) {
+            transition = new OrderTransition(order.getId(), null, to, null, 0, productId, units(order), actor, note);
+        } else {
+            Long fromProductId = existing.getProduct() == null ? null : existing.getProduct().getId();
+            transition = new OrderTransition(existing.getId(), existing.getStatus(), to, fromProductId, units(existing),
+                    productId, units(order), actor, note);
+        }
+        transition.product = product;
+        return transition;
+    }
+
+    private static int units(Order order) {
+        return order.getQuantity() == null ? 0 : order.getQuantity();
+    }
+
+    /**
+     * Attach the saved order; effects that run after the write use its id.
+     */
+    public void setOrder(Order order) {
+        this.order = order;
+        this.orderId = order.getId();
+    }
+
+    public Long getOrderId() { return orderId; }
+    public Order getOrder() { return order; }
+    public OrderStatus getFrom() { return from; }
+    public OrderStatus getTo() { return to; }
+    public Long getFromProductId() { return fromProductId; }
+    public int getFromQuantity() { return fromQuantity; }
+    public Long getProductId() { return productId; }
+    public Product getProduct() { return product; }
+    public void setProduct(Product product) { this.product = product; }
+    public int getQuantity() { return quantity; }
+    public String getActor() { return actor; }
+    public String getNote() { return note; }
+}
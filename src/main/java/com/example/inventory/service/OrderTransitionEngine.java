@@ -0,0 +1,240 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiPredicate;
+
+import org.springframework.stereotype.Component;
+
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.TransactionType;
+
+/**
+ * The order lifecycle as a table: which status changes are allowed ({@link OrderStatus#canTransitionTo})
+ * and which effects run for each one.
+ *
+ * Effects are registered per (from, to) pair, with {@code from == null} standing for order creation,
+ * and run in registration order. Each is handed every transition in the batch it is registered for
+ * in a single call, so a bulk change of a thousand orders costs one stock UPDATE per product, not
+ * one per order. {@link Phase#BEFORE_WRITE} effects run before the orders are written and can
+ * still veto the change by throwing; {@link Phase#AFTER_WRITE} effects see the saved orders.
+ *
+ * Built in, in this order: release of the stock hold of orders leaving PENDING, stock moves
+ * (the net change in units committed per product, see {@link OrderStatus#isStockCommitted}),
+ * a new hold for orders entering or staying in PENDING, the ledger rows of those stock moves
+ * ({@link InventoryLedger}), and the history event of every status change. Saves that keep the
+ * status run only the hold and stock effects, so changing the quantity of a confirmed order
+ * adjusts stock by the difference.
+ */
+@Component
+public class OrderTransitionEngine {
+
+    public enum Phase { BEFORE_WRITE, AFTER_WRITE }
+
+    @FunctionalInterface
+    public interface Effect {
+        void apply(List<OrderTransition> transitions);
+    }
+
+    private final ProductService productService;
+    private final ReservationService reservationService;
+    private final OrderHistoryRecorder historyRecorder;
+    private final InventoryLedger ledger;
+
+    private final Map<OrderStatus, Map<OrderStatus, List<Registration>>> table = new EnumMap<>(OrderStatus.class);
+    private final Map<OrderStatus, List<Registration>> onCreate = new EnumMap<>(OrderStatus.class);
+    private final Map<Effect, Registration> registrations = new IdentityHashMap<>();
+
+    public OrderTransitionEngine(ProductService productService, ReservationService reservationService,
+                                 OrderHistoryRecorder historyRecorder, InventoryLedger ledger) {
+        this.productService = productService;
+        this.reservationService = reservationService;
+        this.historyRecorder = historyRecorder;
+        this.ledger = ledger;
+        for (OrderStatus from : OrderStatus.values()) {
+            table.put(from, new EnumMap<>(OrderStatus.class));
+        }
+
+        registerWhere(Phase.BEFORE_WRITE, this::releaseHolds, (from, to) -> from == OrderStatus.PENDING);
+        registerWhere(Phase.BEFORE_WRITE, this::moveStock,
+                (from, to) -> (from != null && from.isStockCommitted()) || to.isStockCommitted());
+        registerWhere(Phase.AFTER_WRITE, this::placeHolds, (from, to) -> to == OrderStatus.PENDING);
+        registerWhere(Phase.AFTER_WRITE, this::recordMovements,
+                (from, to) -> (from != null && from.isStockCommitted()) || to.isStockCommitted());
+        registerWhere(Phase.AFTER_WRITE, this::recordHistory, (from, to) -> from != to);
+    }
+
+    /**
+     * Whether a save may take an order from {@code from} ({@code null} for a new order) to {@code to}.
+     * New orders may start in any status, and saving without a status change is always allowed.
+     */
+    public boolean isAllowed(OrderStatus from, OrderStatus to) {
+        return from == null || from == to || from.canTransitionTo(to);
+    }
+
+    /**
+     * Add an effect for orders moving from {@code from} ({@code null} for new orders) to {@code to}.
+     * An effect registered for several pairs still runs once per batch, with all their transitions.
+     */
+    public synchronized void register(OrderStatus from, OrderStatus to, Phase phase, Effect effect) {
+        Registration registration = registrations.get(effect);
+        if (registration == null) {
+            registration = new Registration(effect, phase, registrations.size());
+            registrations.put(effect, registration);
+        } else if (registration.phase != phase) {
+            throw new IllegalArgumentException("An effect runs in one phase only");
+        }
+        Map<OrderStatus, List<Registration>> row = from == null ? onCreate : table.get(from);
+        List<Registration> effects = row.computeIfAbsent(to, s -> new ArrayList<>());
+        if (!effects.contains(registration)) {
+            effects.add(registration);
+        }
+    }
+
+    private void registerWhere(Phase phase, Effect effect, BiPredicate<OrderStatus, OrderStatus> applies) {
+        List<OrderStatus> sources = new ArrayList<>();
+        sources.add(null);
+        sources.addAll(List.of(OrderStatus.values()));
+        for (OrderStatus from : sources) {
+            for (OrderStatus to : OrderStatus.values()) {
+                if (isAllowed(from, to) && applies.test(from, to)) {
+                    register(from, to, phase, effect);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fail unless every transition is allowed and has what its effects need.
+     *
+     * @throws IllegalStateException describing the first problem found
+     */
+    public void validate(List<OrderTransition> transitions) {
+        for (OrderTransition t : transitions) {
+            if (!isAllowed(t.getFrom(), t.getTo())) {
+                throw new IllegalStateException("Cannot move order " + t.getOrderId() + " from " + t.getFrom() + " to " + t.getTo());
+            }
+            if (t.getTo().isStockCommitted() && (t.getFrom() == null || !t.getFrom().isStockCommitted())) {
+                if (t.getProductId() == null) throw new IllegalStateException("Product not found for this order");
+                if (t.getQuantity() <= 0) throw new IllegalStateException("Order quantity must be provided and greater than zero");
+            }
+        }
+    }
+
+    /**
+     * Run the effects of {@code phase} for a batch of transitions, each effect once.
+     */
+    public void apply(Phase phase, List<OrderTransition> transitions) {
+        TreeMap<Integer, List<OrderTransition>> batches = new TreeMap<>();
+        Map<Integer, Registration> bySequence = new TreeMap<>();
+        for (OrderTransition t : transitions) {
+            Map<OrderStatus, List<Registration>> row = t.getFrom() == null ? onCreate : table.get(t.getFrom());
+            for (Registration registration : row.getOrDefault(t.getTo(), List.of())) {
+                if (registration.phase == phase) {
+                    batches.computeIfAbsent(registration.sequence, s -> new ArrayList<>()).add(t);
+                    bySequence.put(registration.sequence, registration);
+                }
+            }
+        }
+        for (Map.Entry<Integer, List<OrderTransition>> batch : batches.entrySet()) {
+            bySequence.get(batch.getKey()).effect.apply(batch.getValue());
+        }
+    }
+
+    private void releaseHolds(List<OrderTransition> transitions) {
+        reservationService.releaseAll(transitions.stream().map(OrderTransition::getOrderId).toList());
+    }
+
+    /**
+     * Net change in committed units per product over the batch: one conditional UPDATE for every
+     * product that gives out units, one restock for every product that gets units back. Products are
+     * visited in id order so concurrent batches lock their rows in the same order. The UPDATE also
+     * leaves the units held for other pending orders, so the product itself is only loaded to name
+     * it when stock runs short.
+     */
+    private void moveStock(List<OrderTransition> transitions) {
+        Map<Long, Integer> delta = new TreeMap<>();
+        Map<Long, Product> products = new TreeMap<>();
+        for (OrderTransition t : transitions) {
+            if (t.getFrom() != null && t.getFrom().isStockCommitted() && t.getFromProductId() != null) {
+                delta.merge(t.getFromProductId(), -t.getFromQuantity(), Integer::sum);
+            }
+            if (t.getTo().isStockCommitted() && t.getProductId() != null) {
+                delta.merge(t.getProductId(), t.getQuantity(), Integer::sum);
+                if (t.getProduct() != null) {
+                    products.putIfAbsent(t.getProductId(), t.getProduct());
+                }
+            }
+        }
+        for (Map.Entry<Long, Integer> e : delta.entrySet()) {
+            int units = e.getValue();
+            if (units > 0) {
+                // units held for other pending orders are not ours to take
+                long held = reservationService.getHeldQuantity(e.getKey());
+                if (!productService.tryDecrementStock(e.getKey(), units, held)) {
+                    Product product = products.get(e.getKey());
+                    if (product == null) {
+                        product = productService.getProductById(e.getKey());
+                    }
+                    throw new IllegalStateException("Insufficient inventory for product: " + product.getName());
+                }
+            } else if (units < 0) {
+                productService.restock(e.getKey(), -units);
+            }
+        }
+    }
+
+    private void placeHolds(List<OrderTransition> transitions) {
+        for (OrderTransition t : transitions) {
+            if (t.getOrder() != null && t.getProduct() != null && t.getQuantity() > 0) {
+                reservationService.hold(t.getOrder(), t.getProduct(), t.getQuantity());
+            }
+        }
+    }
+
+    /**
+     * One ledger row per order and product whose stock moved: a SALE when units left, a RETURN when
+     * they came back. {@link #moveStock} nets the batch; the ledger keeps each order's share.
+     */
+    private void recordMovements(List<OrderTransition> transitions) {
+        for (OrderTransition t : transitions) {
+            Map<Long, Integer> delta = new TreeMap<>();
+            if (t.getFrom() != null && t.getFrom().isStockCommitted() && t.getFromProductId() != null) {
+                delta.merge(t.getFromProductId(), t.getFromQuantity(), Integer::sum);
+            }
+            if (t.getTo().isStockCommitted() && t.getProductId() != null) {
+                delta.merge(t.getProductId(), -t.getQuantity(), Integer::sum);
+            }
+            String reason = "Order " + t.getOrderId() + ": " + (t.getFrom() == null ? "new" : t.getFrom()) + " to " + t.getTo();
+            for (Map.Entry<Long, Integer> e : delta.entrySet()) {
+                if (e.getValue() != 0) {
+                    TransactionType type = e.getValue() < 0 ? TransactionType.SALE : TransactionType.RETURN;
+                    ledger.record(e.getKey(), type, e.getValue(), reason, t.getOrderId());
+                }
+            }
+        }
+    }
+
+    private void recordHistory(List<OrderTransition> transitions) {
+        for (OrderTransition t : transitions) {
+            historyRecorder.record(t.getOrderId(), t.getFrom(), t.getTo(), t.getActor(), t.getNote());
+        }
+    }
+
+    private static final class Registration {
+        final Effect effect;
+        final Phase phase;
+        final int sequence;
+
+        Registration(Effect effect, Phase phase, int sequence) {
+            this.effect = effect;
+            this.phase = phase;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.inventory.service;
+
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.support.TransactionCallbacks;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Product id to unit price in cents, so order totals can be computed without loading the product.
+ *
+ * Entries live in one open-addressing {@code long[]} of (id, cents) pairs with linear probing, about
+ * 32 bytes per product and no boxing. Reads are lock-free optimistic reads that fall back to a read
+ * lock only when a write raced them. The cache is filled with one query when the application is
+ * ready and kept current by {@link ProductService}, which reports every saved or deleted product.
+ *
+ * Staleness, within this JVM:
+ * <ul>
+ * <li>a price is published only after the transaction that saved it has committed, so readers never
+ *     see a price that may still roll back;</li>
+ * <li>between that commit and the after-commit callback, readers still see the previous price; once
+ *     the save has returned to its caller, every later read sees the new one;</li>
+ * <li>the startup load never overwrites a price saved or a product deleted while it was running.</li>
+ * </ul>
+ * Other application instances' edits are not seen; like {@link ProductLockManager} this is a
+ * single-JVM cache. A product without an entry reads as {@link #MISSING} and callers load it instead.
+ *
+ * Metrics: {@code inventory.price-cache.requests} (tag {@code result} = hit or miss) and
+ * {@code inventory.price-cache.size}.
+ */
+@Component
+public class ProductPriceCache {
+
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ProductRepository productRepository;
+    private final StampedLock lock = new StampedLock();
+    private final LoadGuard loadGuard = new LoadGuard();
+    private final Counter hits;
+    private final Counter misses;
+
+    /** (id, cents) pairs; id 0 marks a free slot. Length is twice a power of two. */
+    private long[] table = new long[INITIAL_CAPACITY * 2];
+    private int size;
+
+    public ProductPriceCache(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.hits = Counter.builder("inventory.price-cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("inventory.price-cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("inventory.price-cache.size", this, ProductPriceCache::size).register(meterRegistry);
+    }
+
+    public static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    /**
+     * Unit price of the product in cents, or {@link #MISSING}.
+     */
+    public long get(long productId) {
+        long stamp = lock.tryOptimisticRead();
+        long cents = find(table, productId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                cents = find(table, productId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        (cents == MISSING ? misses : hits).increment();
+        return cents;
+    }
+
+    /**
+     * Record a saved product's price once the current transaction commits (at once outside one).
+     * A product without a price is dropped.
+     */
+    public void priceChanged(Long productId, Double price) {
+        long id = productId;
+        if (price == null) {
+            TransactionCallbacks.afterCommit(() -> remove(id));
+        } else {
+            long cents = toCents(price);
+            TransactionCallbacks.afterCommit(() -> put(id, cents));
+        }
+    }
+
+    /**
+     * Drop a deleted product once the current transaction commits (at once outside one).
+     */
+    public void productDeleted(Long productId) {
+        long id = productId;
+        TransactionCallbacks.afterCommit(() -> remove(id));
+    }
+
+    /**
+     * Fill the cache with the price of every product.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long stamp = lock.writeLock();
+        try {
+            loadGuard.start();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        try {
+            List<Object[]> rows = productRepository.findPrices();
+            stamp = lock.writeLock();
+            try {
+                for (Object[] row : rows) {
+                    long id = ((Number) row[0]).longValue();
+                    if (!loadGuard.isNewer(id)) {
+                        insert(id, toCents(((Number) row[1]).doubleValue()));
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        } finally {
+            stamp = lock.writeLock();
+            try {
+                loadGuard.finish();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    void put(long productId, long cents) {
+        checkId(productId);
+        long stamp = lock.writeLock();
+        try {
+            loadGuard.touched(productId);
+            insert(productId, cents);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void remove(long productId) {
+        checkId(productId);
+        long stamp = lock.writeLock();
+        try {
+            loadGuard.touched(productId);
+            delete(productId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static void checkId(long productId) {
+        if (productId <= 0) {
+            throw new IllegalArgumentException("Product id must be positive");
+        }
+    }
+
+    private static int slot(long productId, int mask) {
+        long h = productId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Probe for the id. Also called without a lock by optimistic readers, so it must terminate and
+     * stay in bounds on a table that is being changed; the caller discards such a result.
+     */
+    private static long find(long[] table, long productId) {
+        int mask = (table.length >> 1) - 1;
+        int i = slot(productId, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            long key = table[i << 1];
+            if (key == productId) {
+                return table[(i << 1) + 1];
+            }
+            if (key == 0) {
+                return MISSING;
+            }
+            i = (i + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /** Under the write lock. */
+    private void insert(long productId, long cents) {
+        if ((size + 1) * 2 > table.length >> 1) {
+            resize();
+        }
+        int mask = (table.length >> 1) - 1;
+        int i = slot(productId, mask);
+        while (table[i << 1] != 0 && table[i << 1] != productId) {
+            i = (i + 1) & mask;
+        }
+        if (table[i << 1] == 0) {
+            table[i << 1] = productId;
+            size++;
+        }
+        table[(i << 1) + 1] = cents;
+    }
+
+    /** Under the write lock. Backward-shift deletion keeps every probe chain unbroken. */
+    private void delete(long productId) {
+        int mask = (table.length >> 1) - 1;
+        int i = slot(productId, mask);
+        while (table[i << 1] != productId) {
+            if (table[i << 1] == 0) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            long key = table[j << 1];
+            if (key == 0) {
+                break;
+            }
+            int home = slot(key, mask);
+            // move the entry at j into the hole at i unless its home lies cyclically in (i, j]
+            boolean homeBetween = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!homeBetween) {
+                table[i << 1] = key;
+                table[(i << 1) + 1] = table[(j << 1) + 1];
+                i = j;
+            }
+        }
+        table[i << 1] = 0;
+        table[(i << 1) + 1] = 0;
+        size--;
+    }
+
+    private void resize() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        size = 0;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != 0) {
+                insert(old[i], old[i + 1]);
+            }
+        }
+    }
+}
@@ -1,34 +1,173 @@
 package com.example.inventory.service;
 
+import com.example.inventory.config.CacheConfig;
+import com.example.inventory.entity.Category;
 import com.example.inventory.entity.Product;
+import com.example.inventory.entity.ProductSummary;
+import com.example.inventory.entity.TransactionType;
+import com.example.inventory.repository.CategoryRepository;
 import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.service.DataVersions.DataSet;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Service
 public class ProductService {
 
+    private static final KeysetSorts<Product> SORTS = new KeysetSorts<Product>(Product::getId, "name")
+            .add("name", Product::getName, value -> value)
+            .add("price", Product::getPrice, Double::valueOf)
+            .add("quantity", Product::getQuantity, Integer::valueOf)
+            .add("createdAt", Product::getCreatedAt, KeysetSorts::parseTimestamp);
+
     private final ProductRepository repository;
+    private final CategoryRepository categoryRepository;
+    private final StockShardService stockShards;
+    private final InventoryLedger ledger;
+    private final ProductPriceCache priceCache;
+    private final DataVersions dataVersions;
+    private final ProductSearchIndex searchIndex;
 
-    public ProductService(ProductRepository repository) {
+    public ProductService(ProductRepository repository, CategoryRepository categoryRepository, StockShardService stockShards,
+                          InventoryLedger ledger, ProductPriceCache priceCache, DataVersions dataVersions,
+                          ProductSearchIndex searchIndex) {
         this.repository = repository;
+        this.categoryRepository = categoryRepository;
+        this.stockShards = stockShards;
+        this.ledger = ledger;
+        this.priceCache = priceCache;
+        this.dataVersions = dataVersions;
+        this.searchIndex = searchIndex;
     }
 
     public List<Product> getAllProducts() {
         return repository.findAll();
     }
 
+    /**
+     * One page of products with their categories, sorted on name, price, quantity or createdAt.
+     */
+    public KeysetPage<Product> getProductPage(KeysetRequest request) {
+        return SORTS.page(request, repository::findAllBy, repository::count);
+    }
+
+    /**
+     * Products whose name, description or category matches every word of the query, best first.
+     */
+    public List<ProductSummary> searchProducts(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Id, name and price of every product, by name, cached for pick lists. Summaries carry no stock,
+     * so stock movements (including the JDBC writes of the ledger and cycle counts) never stale them;
+     * only saving or deleting a product evicts them.
+     */
+    @Cacheable(CacheConfig.PRODUCT_SUMMARIES)
+    public List<ProductSummary> getProductSummaries() {
+        return List.copyOf(repository.findSummaries());
+    }
+
     public Product getProductById(Long id) {
         return repository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + id));
     }
 
+    /**
+     * A reference to the product that is only loaded if one of its fields is read.
+     */
+    public Product getProductReference(Long id) {
+        return repository.getReferenceById(id);
+    }
+
+    /**
+     * Save a product. For hot products the change to the quantity is applied to the stock shards
+     * (see {@link StockShardService#sync}), so units sold since the last rollup are not put back.
+     * A changed quantity is posted to the ledger: initial stock as a receipt, an edit as an adjustment.
+     * The price reaches {@link ProductPriceCache}, and the text {@link ProductSearchIndex}, when the transaction commits.
+     * A category bound from a form carries only its id, so it is loaded for its name first.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_SUMMARIES, allEntries = true)
     public Product saveOrUpdateProduct(Product product) {
-        return repository.save(product);
+        Category category = product.getCategory();
+        if (category != null && category.getId() != null && category.getName() == null) {
+            product.setCategory(categoryRepository.findById(category.getId())
+                    .orElseThrow(() -> new IllegalArgumentException("Category not found with id: " + category.getId())));
+        }
+        Integer previous = product.getId() == null ? null : repository.findQuantityById(product.getId());
+        Product saved = repository.save(product);
+        int before = stockShards.sync(saved, previous);
+        priceCache.priceChanged(saved.getId(), saved.getPrice());
+        searchIndex.productSaved(saved);
+        dataVersions.changed(DataSet.PRODUCTS);
+        int after = saved.getQuantity() == null ? 0 : saved.getQuantity();
+        if (after != before) {
+            TransactionType type = previous == null ? TransactionType.RECEIPT : TransactionType.ADJUSTMENT;
+            ledger.record(saved.getId(), type, after - before, after, previous == null ? "Initial stock" : "Stock edited", null);
+        }
+        return saved;
+    }
+
+    /**
+     * Whether the product's stock lives in shards rather than in its own row.
+     */
+    public boolean isStockSharded(Long productId) {
+        return stockShards.isSharded(productId);
+    }
+
+    /**
+     * Atomically take {@code quantity} units of stock in a single conditional UPDATE (on one shard for hot products).
+     * Returns false, leaving stock untouched, when fewer units are on hand.
+     * Shard moves reach the product row, and {@link DataVersions}, with the next rollup.
+     */
+    @Transactional
+    public boolean tryDecrementStock(Long productId, int quantity) {
+        return tryDecrementStock(productId, quantity, 0);
+    }
+
+    /**
+     * As {@link #tryDecrementStock(Long, int)}, but also fails unless {@code keepFree} units are left
+     * on hand afterwards, so units held for pending orders are checked by the UPDATE itself and the
+     * product never has to be loaded. For hot products the check runs under the locks of all
+     * shards instead (see {@link StockShardService#tryDecrement}).
+     */
+    @Transactional
+    public boolean tryDecrementStock(Long productId, int quantity, long keepFree) {
+        if (stockShards.isSharded(productId)) {
+            return stockShards.tryDecrement(productId, quantity, keepFree);
+        }
+        if (repository.decrementQuantity(productId, quantity, keepFree) != 1) {
+            return false;
+        }
+        dataVersions.changed(DataSet.PRODUCTS);
+        return true;
+    }
+
+    /**
+     * Atomically put {@code quantity} units back into stock.
+     */
+    @Transactional
+    public void restock(Long productId, int quantity) {
+        if (stockShards.isSharded(productId)) {
+            stockShards.restock(productId, quantity);
+            return;
+        }
+        if (repository.incrementQuantity(productId, quantity) == 0) {
+            throw new IllegalStateException("Product not found with id: " + productId);
+        }
+        dataVersions.changed(DataSet.PRODUCTS);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.PRODUCT_SUMMARIES, allEntries = true)
     public void deleteProduct(Long id) {
         repository.deleteById(id);
+        priceCache.productDeleted(id);
+        searchIndex.productDeleted(id);
+        dataVersions.changed(DataSet.PRODUCTS);
     }
 }
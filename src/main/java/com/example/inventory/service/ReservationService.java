@@ -0,0 +1,212 @@
+package com.example.inventory.service;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.inventory.entity.Order;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.StockReservation;
+import com.example.inventory.repository.StockReservationRepository;
+import com.example.inventory.support.TransactionCallbacks;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Time-limited stock holds for PENDING orders.
+ *
+ * Available-to-promise is on-hand quantity minus the units held by active reservations. The held
+ * total per product is kept in memory: loaded once at startup, then adjusted as holds are placed
+ * and released. Adjustments are applied immediately and reversed if the surrounding transaction
+ * rolls back, so a transaction sees its own releases when it checks availability.
+ *
+ * The in-memory totals assume a single application instance: holds placed or released by another
+ * JVM are not seen here until the next restart reloads them from the table. Running more than one
+ * instance needs the held total read from (or kept in) the database instead.
+ *
+ * Expired holds are deleted by a scheduled sweep in batches of {@code inventory.reservations.sweep-batch-size}.
+ * The order itself stays PENDING; it simply competes for free stock again when it is confirmed.
+ */
+@Service
+public class ReservationService {
+
+    private final StockReservationRepository repository;
+    private final StockShardService stockShards;
+    private final TransactionOperations transactions;
+    private final long ttlMillis;
+    private final int sweepBatchSize;
+    private final Map<Long, Long> heldByProduct = new ConcurrentHashMap<>();
+    private final Counter expiredCounter;
+
+    @Autowired
+    public ReservationService(StockReservationRepository repository, StockShardService stockShards,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${inventory.reservations.ttl-minutes:30}") long ttlMinutes,
+                              @Value("${inventory.reservations.sweep-batch-size:500}") int sweepBatchSize) {
+        this(repository, stockShards, new TransactionTemplate(transactionManager), meterRegistry,
+                ttlMinutes * 60_000L, sweepBatchSize);
+    }
+
+    public ReservationService(StockReservationRepository repository, StockShardService stockShards,
+                              TransactionOperations transactions, MeterRegistry meterRegistry,
+                              long ttlMillis, int sweepBatchSize) {
+        if (sweepBatchSize < 1) {
+            throw new IllegalArgumentException("sweepBatchSize must be at least 1");
+        }
+        this.repository = repository;
+        this.stockShards = stockShards;
+        this.transactions = transactions;
+        this.ttlMillis = ttlMillis;
+        this.sweepBatchSize = sweepBatchSize;
+        this.expiredCounter = Counter.builder("inventory.reservations.expired").register(meterRegistry);
+    }
+
+    /**
+     * Rebuild the in-memory held totals from the reservation table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHolds() {
+        heldByProduct.clear();
+        for (Object[] row : repository.sumQuantityByProduct()) {
+            heldByProduct.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+    }
+
+    /**
+     * Units currently held for {@code productId} by unexpired (or not yet swept) reservations.
+     */
+    public long getHeldQuantity(Long productId) {
+        return heldByProduct.getOrDefault(productId, 0L);
+    }
+
+    /**
+     * On-hand quantity of {@code product} less the units held for other orders; never negative.
+     * For a sharded product the shard total is on hand, as its row lags until the next rollup.
+     */
+    public int getAvailableToPromise(Product product) {
+        int onHand;
+        if (stockShards.isSharded(product.getId())) {
+            onHand = stockShards.getTotal(product.getId());
+        } else {
+            onHand = product.getQuantity() == null ? 0 : product.getQuantity();
+        }
+        return (int) Math.max(0L, onHand - getHeldQuantity(product.getId()));
+    }
+
+    /**
+     * Fail unless {@code quantity} units of {@code product} are free of other orders' holds.
+     */
+    public void checkAvailable(Product product, int quantity) {
+        if (getAvailableToPromise(product) < quantity) {
+            throw new IllegalStateException("Insufficient available stock for product: " + product.getName());
+        }
+    }
+
+    /**
+     * Place the hold for a saved PENDING order. Callers release any previous hold of the order first,
+     * so editing a pending order re-checks availability and restarts its TTL.
+     */
+    @Transactional
+    public void hold(Order order, Product product, int quantity) {
+        checkAvailable(product, quantity);
+        StockReservation reservation = new StockReservation();
+        reservation.setOrder(order);
+        reservation.setProduct(product);
+        reservation.setQuantity(quantity);
+        reservation.setExpiresAt(new Date(System.currentTimeMillis() + ttlMillis));
+        repository.save(reservation);
+        adjust(product.getId(), quantity);
+    }
+
+    /**
+     * Release the hold for an order, if it still has one. Returns the number of units released.
+     */
+    @Transactional
+    public int release(Long orderId) {
+        if (orderId == null) {
+            return 0;
+        }
+        StockReservation reservation = repository.findByOrderId(orderId);
+        if (reservation == null) {
+            return 0;
+        }
+        // 0 rows means the sweep expired it first; it has already been subtracted
+        if (repository.deleteReservation(reservation.getId()) == 0) {
+            return 0;
+        }
+        adjust(reservation.getProduct().getId(), -reservation.getQuantity());
+        return reservation.getQuantity();
+    }
+
+    /**
+     * Release the holds of many orders at once, for bulk status changes.
+     */
+    @Transactional
+    public void releaseAll(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        List<StockReservation> reservations = repository.findByOrderIdInForUpdate(orderIds);
+        if (reservations.isEmpty()) {
+            return;
+        }
+        repository.deleteReservations(reservations.stream().map(StockReservation::getId).toList());
+        for (StockReservation reservation : reservations) {
+            adjust(reservation.getProduct().getId(), -reservation.getQuantity());
+        }
+    }
+
+    /**
+     * Delete expired holds in batches, each in its own transaction. Returns the number released.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reservations.sweep-interval-ms:60000}")
+    public int sweepExpired() {
+        Date now = new Date();
+        int total = 0;
+        while (true) {
+            Integer released = transactions.execute(status -> sweepBatch(now));
+            int count = released == null ? 0 : released;
+            total += count;
+            if (count < sweepBatchSize) {
+                return total;
+            }
+        }
+    }
+
+    private int sweepBatch(Date now) {
+        List<StockReservation> expired = repository.findExpiredForUpdate(now, PageRequest.of(0, sweepBatchSize));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        repository.deleteReservations(expired.stream().map(StockReservation::getId).toList());
+        for (StockReservation reservation : expired) {
+            adjust(reservation.getProduct().getId(), -reservation.getQuantity());
+        }
+        expiredCounter.increment(expired.size());
+        return expired.size();
+    }
+
+    private void adjust(Long productId, long delta) {
+        apply(productId, delta);
+        TransactionCallbacks.unlessCommitted(() -> apply(productId, -delta));
+    }
+
+    private void apply(Long productId, long delta) {
+        heldByProduct.merge(productId, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+}
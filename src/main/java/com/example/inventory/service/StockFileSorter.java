@@ -0,0 +1,245 @@
+package com.example.inventory.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * External sort of a stock file ("Product ID", "Quantity" CSV) by product id.
+ *
+ * At most {@code bufferRecords} lines are held in memory: each full buffer is sorted and spilled to
+ * a temporary run file of fixed-size binary records, and the runs are then merged with a heap,
+ * {@code maxFanIn} at a time (in several passes if there are more runs than that). Lines for the
+ * same product are added up. Lines that cannot be read are counted and skipped.
+ */
+public class StockFileSorter {
+
+    private static final int MAX_REPORTED_PROBLEMS = 100;
+
+    private final int bufferRecords;
+    private final int maxFanIn;
+    private final Path tempDir;
+
+    public StockFileSorter(int bufferRecords, int maxFanIn, Path tempDir) {
+        if (bufferRecords < 1) {
+            throw new IllegalArgumentException("bufferRecords must be at least 1");
+        }
+        if (maxFanIn < 2) {
+            throw new IllegalArgumentException("maxFanIn must be at least 2");
+        }
+        this.bufferRecords = bufferRecords;
+        this.maxFanIn = maxFanIn;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Sort the stock file. The caller must close the result, which deletes the run files.
+     */
+    public Sorted sort(InputStream input) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        List<String> problems = new ArrayList<>();
+        int invalid = 0;
+        try (InputStreamReader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader().withIgnoreHeaderCase().withTrim())) {
+            Entry[] buffer = new Entry[Math.min(bufferRecords, 8192)];
+            int size = 0;
+            for (CSVRecord csvRecord : csvParser) {
+                Entry entry;
+                try {
+                    entry = new Entry(Long.parseLong(csvRecord.get("Product ID")), Integer.parseInt(csvRecord.get("Quantity")));
+                } catch (IllegalArgumentException e) {
+                    invalid++;
+                    if (problems.size() < MAX_REPORTED_PROBLEMS) {
+                        problems.add("Line " + csvRecord.getRecordNumber() + ": " + e.getMessage());
+                    }
+                    continue;
+                }
+                if (size == buffer.length) {
+                    if (size == bufferRecords) {
+                        runs.add(spill(buffer, size));
+                        size = 0;
+                    } else {
+                        buffer = Arrays.copyOf(buffer, Math.min(bufferRecords, size * 2));
+                    }
+                }
+                buffer[size++] = entry;
+            }
+            if (size > 0) {
+                runs.add(spill(buffer, size));
+            }
+            while (runs.size() > maxFanIn) {
+                List<Path> merged = new ArrayList<>();
+                for (int from = 0; from < runs.size(); from += maxFanIn) {
+                    List<Path> group = runs.subList(from, Math.min(from + maxFanIn, runs.size()));
+                    merged.add(group.size() == 1 ? group.get(0) : mergeToRun(group));
+                }
+                runs = merged;
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteAll(runs);
+            throw e;
+        }
+        return new Sorted(runs, invalid, problems);
+    }
+
+    private Path spill(Entry[] buffer, int size) throws IOException {
+        Arrays.sort(buffer, 0, size, Comparator.comparingLong((Entry e) -> e.productId));
+        Path run = Files.createTempFile(tempDir, "stock-run-", ".bin");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+            for (int i = 0; i < size; i++) {
+                out.writeLong(buffer[i].productId);
+                out.writeInt(buffer[i].quantity);
+                buffer[i] = null;
+            }
+        }
+        return run;
+    }
+
+    private Path mergeToRun(List<Path> group) throws IOException {
+        Path run = Files.createTempFile(tempDir, "stock-run-", ".bin");
+        try (Sorted sorted = new Sorted(new ArrayList<>(group), 0, List.of());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+            while (sorted.next()) {
+                out.writeLong(sorted.productId());
+                out.writeInt(sorted.quantity());
+            }
+        }
+        return run;
+    }
+
+    private static void deleteAll(List<Path> runs) {
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static final class Entry {
+        final long productId;
+        final int quantity;
+
+        Entry(long productId, int quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * The sorted file, read one product at a time: {@link #next()} advances, then
+     * {@link #productId()} and {@link #quantity()} describe the current product.
+     */
+    public static final class Sorted implements Closeable {
+
+        private final List<Path> runs;
+        private final List<RunReader> readers = new ArrayList<>();
+        private final PriorityQueue<RunReader> heap =
+                new PriorityQueue<>(Comparator.comparingLong((RunReader r) -> r.productId));
+        private final int invalidLines;
+        private final List<String> problems;
+        private long productId;
+        private int quantity;
+
+        Sorted(List<Path> runs, int invalidLines, List<String> problems) throws IOException {
+            this.runs = runs;
+            this.invalidLines = invalidLines;
+            this.problems = problems;
+            try {
+                for (Path run : runs) {
+                    RunReader reader = new RunReader(run);
+                    readers.add(reader);
+                    if (reader.advance()) {
+                        heap.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        public boolean next() {
+            RunReader head = heap.poll();
+            if (head == null) {
+                return false;
+            }
+            productId = head.productId;
+            long total = head.quantity;
+            refill(head);
+            while (!heap.isEmpty() && heap.peek().productId == productId) {
+                RunReader same = heap.poll();
+                total += same.quantity;
+                refill(same);
+            }
+            quantity = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, total));
+            return true;
+        }
+
+        private void refill(RunReader reader) {
+            try {
+                if (reader.advance()) {
+                    heap.add(reader);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public long productId() { return productId; }
+        public int quantity() { return quantity; }
+        public int getInvalidLines() { return invalidLines; }
+        public List<String> getProblems() { return problems; }
+
+        @Override
+        public void close() {
+            for (RunReader reader : readers) {
+                try {
+                    reader.in.close();
+                } catch (IOException ignored) {
+                }
+            }
+            heap.clear();
+            deleteAll(runs);
+        }
+    }
+
+    private static final class RunReader {
+        final DataInputStream in;
+        long productId;
+        int quantity;
+
+        RunReader(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+        }
+
+        boolean advance() throws IOException {
+            try {
+                productId = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            quantity = in.readInt();
+            return true;
+        }
+    }
+}
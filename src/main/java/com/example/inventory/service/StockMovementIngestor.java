@@ -0,0 +1,375 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.inventory.entity.TransactionType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * High-rate ingestion of stock movements (scanner picks, packs, put-aways).
+ *
+ * Producers claim a slot in a preallocated ring of {@code inventory.movements.capacity} entries with
+ * one CAS, write the movement into it and publish it; they never touch the database and only wait
+ * when the ring is full. A single consumer thread drains up to {@code inventory.movements.max-batch}
+ * published movements at a time, frees their slots at once, adds them up per product and type, and
+ * persists the batch in one transaction: one stock UPDATE per product for the net change, in product
+ * id order, and one ledger row per product and type, written by {@link InventoryLedger} as one batch.
+ * A product that would go below zero fails the batch, which is then replayed product by product so
+ * only that product's movements are rejected. Rejects are logged and kept, one row per product and
+ * type, in {@code stock_movement_reject} for reprocessing.
+ *
+ * Metrics: {@code inventory.movements.published}, {@code inventory.movements.applied},
+ * {@code inventory.movements.rejected}, {@code inventory.movements.batch.size} and
+ * {@code inventory.movements.ring.depth}.
+ */
+@Service
+public class StockMovementIngestor {
+
+    private static final Logger log = LoggerFactory.getLogger(StockMovementIngestor.class);
+
+    static final String INSERT_REJECT = "insert into stock_movement_reject "
+            + "(product_id, type, quantity, movements, reason, rejected_at) values (?, ?, ?, ?, ?, ?)";
+
+    private final ProductService productService;
+    private final InventoryLedger ledger;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactions;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long idleParkNanos;
+
+    private final int mask;
+    private final long[] productIds;
+    private final int[] deltas;
+    private final TransactionType[] types;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong consumed = new AtomicLong(-1);
+
+    private final Counter publishedCounter;
+    private final Counter appliedCounter;
+    private final Counter rejectedCounter;
+    private final DistributionSummary batchSize;
+
+    private volatile boolean running;
+    private volatile boolean consumerIdle;
+    private volatile Thread consumer;
+
+    @Autowired
+    public StockMovementIngestor(ProductService productService, InventoryLedger ledger, JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                 @Value("${inventory.movements.enabled:true}") boolean enabled,
+                                 @Value("${inventory.movements.capacity:65536}") int capacity,
+                                 @Value("${inventory.movements.max-batch:1000}") int maxBatch,
+                                 @Value("${inventory.movements.idle-wait-ms:10}") long idleWaitMillis) {
+        this(productService, ledger, jdbcTemplate, new TransactionTemplate(transactionManager), meterRegistry, enabled,
+                capacity, maxBatch, idleWaitMillis);
+    }
+
+    public StockMovementIngestor(ProductService productService, InventoryLedger ledger, JdbcTemplate jdbcTemplate,
+                                 TransactionOperations transactions, MeterRegistry meterRegistry, boolean enabled,
+                                 int capacity, int maxBatch, long idleWaitMillis) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be at least 1");
+        }
+        this.productService = productService;
+        this.ledger = ledger;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactions = transactions;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.idleParkNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, idleWaitMillis));
+        this.mask = capacity - 1;
+        this.productIds = new long[capacity];
+        this.deltas = new int[capacity];
+        this.types = new TransactionType[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.publishedCounter = Counter.builder("inventory.movements.published").register(meterRegistry);
+        this.appliedCounter = Counter.builder("inventory.movements.applied").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("inventory.movements.rejected").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("inventory.movements.batch.size").register(meterRegistry);
+        Gauge.builder("inventory.movements.ring.depth", this, StockMovementIngestor::depth).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::run, "stock-movements");
+        thread.setDaemon(true);
+        consumer = thread;
+        thread.start();
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Thread thread = consumer;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Publish a movement of {@code quantity} units (signed for adjustments, see
+     * {@link TransactionType#signedDelta}), waiting only while the ring is full.
+     *
+     * @throws IllegalArgumentException if the quantity does not fit the type
+     * @throws IllegalStateException if the ring is full and no consumer is running to empty it
+     */
+    public void publish(Long productId, TransactionType type, int quantity) {
+        if (!tryPublish(productId, type, quantity, true)) {
+            throw new IllegalStateException("Stock movement ring is full and ingestion is not running");
+        }
+    }
+
+    /**
+     * Publish a movement unless the ring is full, in which case nothing is published and false is returned.
+     */
+    public boolean tryPublish(Long productId, TransactionType type, int quantity) {
+        return tryPublish(productId, type, quantity, false);
+    }
+
+    /**
+     * Publish movements in order until the ring is full. All of them are validated first, so an
+     * invalid one publishes none. Returns how many were published; the rest may be sent again.
+     */
+    public int tryPublishAll(List<Movement> movements) {
+        for (Movement m : movements) {
+            if (m.getProductId() == null || m.getType() == null) {
+                throw new IllegalArgumentException("Product and movement type must be provided");
+            }
+            m.getType().signedDelta(m.getQuantity());
+        }
+        int published = 0;
+        for (Movement m : movements) {
+            if (!tryPublish(m.getProductId(), m.getType(), m.getQuantity())) {
+                break;
+            }
+            published++;
+        }
+        return published;
+    }
+
+    private boolean tryPublish(Long productId, TransactionType type, int quantity, boolean wait) {
+        if (productId == null || type == null) {
+            throw new IllegalArgumentException("Product and movement type must be provided");
+        }
+        int delta = type.signedDelta(quantity);
+        long sequence;
+        while (true) {
+            long current = claimed.get();
+            sequence = current + 1;
+            if (sequence - published.length() > consumed.get()) {
+                // full: the slot still holds a movement the consumer has not taken yet
+                if (!wait || !running) {
+                    return false;
+                }
+                LockSupport.parkNanos(1_000);
+                continue;
+            }
+            if (claimed.compareAndSet(current, sequence)) {
+                break;
+            }
+        }
+        int slot = (int) (sequence & mask);
+        productIds[slot] = productId;
+        deltas[slot] = delta;
+        types[slot] = type;
+        published.set(slot, sequence);
+        publishedCounter.increment();
+        if (consumerIdle) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    private void run() {
+        while (running || depth() > 0) {
+            try {
+                if (drain() == 0) {
+                    consumerIdle = true;
+                    if (depth() == 0) {
+                        LockSupport.parkNanos(idleParkNanos);
+                    }
+                    consumerIdle = false;
+                }
+            } catch (RuntimeException e) {
+                // drain accounts for every movement itself; keep the consumer alive
+                log.error("Stock movement consumer failed; continuing", e);
+            }
+        }
+    }
+
+    /**
+     * Movements claimed but not yet taken by the consumer.
+     */
+    int depth() {
+        return (int) (claimed.get() - consumed.get());
+    }
+
+    /**
+     * Take the published movements (up to one batch), free their slots and persist them. Returns
+     * the number of movements taken. Only the consumer thread, or a test, calls this.
+     */
+    int drain() {
+        Map<Long, Map<TransactionType, int[]>> batch = new TreeMap<>();
+        long next = consumed.get() + 1;
+        int taken = 0;
+        while (taken < maxBatch) {
+            int slot = (int) (next & mask);
+            if (published.get(slot) != next) {
+                break;
+            }
+            int[] sum = batch.computeIfAbsent(productIds[slot], id -> new EnumMap<>(TransactionType.class))
+                    .computeIfAbsent(types[slot], t -> new int[2]);
+            sum[0] += deltas[slot];
+            sum[1]++;
+            types[slot] = null;
+            next++;
+            taken++;
+        }
+        if (taken == 0) {
+            return 0;
+        }
+        // the movements are copied out; producers may reuse the slots while the batch is written
+        consumed.set(next - 1);
+        batchSize.record(taken);
+        persist(batch, taken);
+        return taken;
+    }
+
+    private void persist(Map<Long, Map<TransactionType, int[]>> batch, int movements) {
+        try {
+            transactions.executeWithoutResult(status -> batch.forEach(this::apply));
+            appliedCounter.increment(movements);
+        } catch (RuntimeException e) {
+            // replay product by product so one product cannot hold back the others
+            batch.forEach((productId, byType) -> {
+                int count = count(byType);
+                try {
+                    transactions.executeWithoutResult(status -> apply(productId, byType));
+                    appliedCounter.increment(count);
+                } catch (RuntimeException productFailure) {
+                    rejectedCounter.increment(count);
+                    reject(productId, byType, productFailure);
+                }
+            });
+        }
+    }
+
+    /**
+     * Log the movements of a product that could not be applied and keep them for reprocessing.
+     * Saving them must not stop the consumer: if it fails, the log lines are all that is left.
+     */
+    private void reject(Long productId, Map<TransactionType, int[]> byType, RuntimeException cause) {
+        Date now = new Date();
+        List<Object[]> rows = new ArrayList<>(byType.size());
+        for (Map.Entry<TransactionType, int[]> e : byType.entrySet()) {
+            int[] sum = e.getValue();
+            log.warn("Rejected {} {} movement(s) of product {}, net {}: {}", sum[1], e.getKey(), productId, sum[0],
+                    cause.getMessage());
+            rows.add(new Object[] { productId, e.getKey().name(), sum[0], sum[1], cause.getMessage(), now });
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_REJECT, rows);
+        } catch (RuntimeException e) {
+            log.error("Could not save rejected movements of product {}", productId, e);
+        }
+    }
+
+    private void apply(Long productId, Map<TransactionType, int[]> byType) {
+        int net = 0;
+        for (int[] sum : byType.values()) {
+            net += sum[0];
+        }
+        if (net < 0) {
+            if (!productService.tryDecrementStock(productId, -net)) {
+                throw new IllegalStateException("Insufficient inventory for product: " + productId);
+            }
+        } else if (net > 0) {
+            productService.restock(productId, net);
+        }
+        for (Map.Entry<TransactionType, int[]> e : byType.entrySet()) {
+            int[] sum = e.getValue();
+            if (sum[0] != 0) {
+                ledger.record(productId, e.getKey(), sum[0], sum[1] + " scanned movement" + (sum[1] == 1 ? "" : "s"), null);
+            }
+        }
+    }
+
+    private static int count(Map<TransactionType, int[]> byType) {
+        int count = 0;
+        for (int[] sum : byType.values()) {
+            count += sum[1];
+        }
+        return count;
+    }
+
+    /**
+     * One scanned movement: {@code quantity} units of a product picked, packed, received or adjusted.
+     */
+    public static class Movement {
+        private Long productId;
+        private TransactionType type;
+        private int quantity;
+
+        public Movement() {
+        }
+
+        public Movement(Long productId, TransactionType type, int quantity) {
+            this.productId = productId;
+            this.type = type;
+            this.quantity = quantity;
+        }
+
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public TransactionType getType() { return type; }
+        public void setType(TransactionType type) { this.type = type; }
+
+        public int getQuantity() { return quantity; }
+        public void setQuantity(int quantity) { this.quantity = quantity; }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.inventory.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.inventory.repository.ProductRepository;
+
+/**
+ * Reconciles a full stock file from the warehouse system against product quantities.
+ *
+ * The file is sorted by product id with {@link StockFileSorter} and products are read from the
+ * database in id order, in keyset pages, so the two sorted streams can be merge-joined in one
+ * sequential pass. Memory stays within {@code inventory.reconciliation.buffer-records} lines of the
+ * file plus one page of products, however large the file. Every difference is written to a CSV
+ * report: quantity mismatches, products missing from the file, and file lines for unknown products.
+ *
+ * Files dropped into {@code inventory.reconciliation.directory} are picked up by a scheduled job
+ * (cron {@code inventory.reconciliation.cron}), which writes the report next to them and moves them
+ * to a {@code processed} subdirectory.
+ */
+@Service
+public class StockReconciliationService {
+
+    public static final String MISMATCH = "MISMATCH";
+    public static final String MISSING_IN_FILE = "MISSING_IN_FILE";
+    public static final String UNKNOWN_PRODUCT = "UNKNOWN_PRODUCT";
+
+    private final ProductRepository productRepository;
+    private final StockFileSorter sorter;
+    private final int pageSize;
+    private final String directory;
+
+    @Autowired
+    public StockReconciliationService(ProductRepository productRepository,
+                                      @Value("${inventory.reconciliation.buffer-records:100000}") int bufferRecords,
+                                      @Value("${inventory.reconciliation.max-fan-in:64}") int maxFanIn,
+                                      @Value("${inventory.reconciliation.page-size:1000}") int pageSize,
+                                      @Value("${inventory.reconciliation.directory:}") String directory) {
+        this(productRepository, new StockFileSorter(bufferRecords, maxFanIn, Paths.get(System.getProperty("java.io.tmpdir"))),
+                pageSize, directory);
+    }
+
+    public StockReconciliationService(ProductRepository productRepository, StockFileSorter sorter, int pageSize,
+                                      String directory) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1");
+        }
+        this.productRepository = productRepository;
+        this.sorter = sorter;
+        this.pageSize = pageSize;
+        this.directory = directory;
+    }
+
+    /**
+     * Compare the stock file against product quantities and write the discrepancy report.
+     */
+    public Result reconcile(InputStream stockFile, OutputStream report) throws IOException {
+        Result result = new Result();
+        try (StockFileSorter.Sorted file = sorter.sort(stockFile);
+             CSVPrinter printer = new CSVPrinter(new BufferedWriter(new OutputStreamWriter(report, StandardCharsets.UTF_8)),
+                     CSVFormat.DEFAULT.withHeader("Product ID", "Name", "System Quantity", "File Quantity", "Difference", "Status"))) {
+            result.invalidLines = file.getInvalidLines();
+            result.problems = file.getProblems();
+
+            ProductCursor products = new ProductCursor();
+            boolean hasFile = file.next();
+            boolean hasProduct = products.next();
+            while (hasFile || hasProduct) {
+                if (hasProduct && (!hasFile || products.id < file.productId())) {
+                    result.missingInFile++;
+                    printer.printRecord(products.id, products.name, products.quantity, "", -products.quantity, MISSING_IN_FILE);
+                    hasProduct = products.next();
+                } else if (hasFile && (!hasProduct || file.productId() < products.id)) {
+                    result.unknownProducts++;
+                    printer.printRecord(file.productId(), "", "", file.quantity(), file.quantity(), UNKNOWN_PRODUCT);
+                    hasFile = file.next();
+                } else {
+                    result.compared++;
+                    if (products.quantity == file.quantity()) {
+                        result.matched++;
+                    } else {
+                        result.mismatched++;
+                        printer.printRecord(products.id, products.name, products.quantity, file.quantity(),
+                                file.quantity() - products.quantity, MISMATCH);
+                    }
+                    hasFile = file.next();
+                    hasProduct = products.next();
+                }
+            }
+            printer.flush();
+        }
+        return result;
+    }
+
+    /**
+     * Reconcile every {@code *.csv} file in the configured directory.
+     */
+    @Scheduled(cron = "${inventory.reconciliation.cron:-}")
+    public void reconcileDirectory() {
+        if (directory == null || directory.isBlank()) {
+            return;
+        }
+        Path dir = Paths.get(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.csv")) {
+            Path processed = Files.createDirectories(dir.resolve("processed"));
+            for (Path file : files) {
+                if (file.getFileName().toString().endsWith(".discrepancies.csv")) {
+                    continue;
+                }
+                String name = file.getFileName().toString();
+                Path report = dir.resolve(name.substring(0, name.length() - 4) + ".discrepancies.csv");
+                try (InputStream in = Files.newInputStream(file); OutputStream out = Files.newOutputStream(report)) {
+                    reconcile(in, out);
+                }
+                Files.move(file, processed.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Stock reconciliation of " + dir + " failed", e);
+        }
+    }
+
+    /**
+     * Products in id order, one keyset page at a time.
+     */
+    private final class ProductCursor {
+        private List<Object[]> page = List.of();
+        private int index;
+        private long afterId;
+        private boolean exhausted;
+        long id;
+        String name;
+        int quantity;
+
+        boolean next() {
+            if (index == page.size()) {
+                if (exhausted) {
+                    return false;
+                }
+                page = productRepository.findStockAfter(afterId, PageRequest.of(0, pageSize));
+                index = 0;
+                exhausted = page.size() < pageSize;
+                if (page.isEmpty()) {
+                    return false;
+                }
+                afterId = ((Number) page.get(page.size() - 1)[0]).longValue();
+            }
+            Object[] row = page.get(index++);
+            id = ((Number) row[0]).longValue();
+            name = (String) row[1];
+            quantity = row[2] == null ? 0 : ((Number) row[2]).intValue();
+            return true;
+        }
+    }
+
+    public static class Result {
+        private int compared;
+        private int matched;
+        private int mismatched;
+        private int missingInFile;
+        private int unknownProducts;
+        private int invalidLines;
+        private List<String> problems = List.of();
+
+        public int getCompared() { return compared; }
+        public int getMatched() { return matched; }
+        public int getMismatched() { return mismatched; }
+        public int getMissingInFile() { return missingInFile; }
+        public int getUnknownProducts() { return unknownProducts; }
+        public int getInvalidLines() { return invalidLines; }
+        public List<String> getProblems() { return problems; }
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.ProductStockShard;
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.repository.ProductStockShardRepository;
+import com.example.inventory.service.DataVersions.DataSet;
+import com.example.inventory.support.TransactionCallbacks;
+
+/**
+ * Stock for hot products, split across {@code inventory.stock-shards.count} rows.
+ *
+ * A decrement first tries one conditional UPDATE on a random shard that looked big enough in an
+ * unlocked read. Only when that fails, because no single shard holds enough or another caller got
+ * there first, does it lock every shard in shard order and take the units from several of them.
+ * A decrement that must leave units free for other orders always takes the locks, since that
+ * UPDATE only sees its own shard. Near exhaustion the database may pick a deadlock victim;
+ * {@link OptimisticLockRetry} retries those.
+ *
+ * {@link Product#getQuantity()} of a hot product is refreshed from the shard totals by a scheduled
+ * rollup, so list pages and reports keep reading the product row as before.
+ */
+@Service
+public class StockShardService {
+
+    private final ProductStockShardRepository shardRepository;
+    private final ProductRepository productRepository;
+    private final TransactionOperations transactions;
+    private final DataVersions dataVersions;
+    private final int shardCount;
+    private final Set<Long> shardedProducts = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public StockShardService(ProductStockShardRepository shardRepository, ProductRepository productRepository,
+                             PlatformTransactionManager transactionManager, DataVersions dataVersions,
+                             @Value("${inventory.stock-shards.count:8}") int shardCount) {
+        this(shardRepository, productRepository, new TransactionTemplate(transactionManager), dataVersions, shardCount);
+    }
+
+    public StockShardService(ProductStockShardRepository shardRepository, ProductRepository productRepository,
+                             TransactionOperations transactions, DataVersions dataVersions, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be at least 1");
+        }
+        this.shardRepository = shardRepository;
+        this.productRepository = productRepository;
+        this.transactions = transactions;
+        this.dataVersions = dataVersions;
+        this.shardCount = shardCount;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadShardedProducts() {
+        shardedProducts.clear();
+        shardedProducts.addAll(productRepository.findHotProductIds());
+    }
+
+    public boolean isSharded(Long productId) {
+        return productId != null && shardedProducts.contains(productId);
+    }
+
+    /**
+     * Units on hand across the product's shards. The product row only catches up at the next rollup.
+     */
+    public int getTotal(Long productId) {
+        int total = 0;
+        for (Object[] row : shardRepository.findShardQuantities(productId)) {
+            total += ((Number) row[1]).intValue();
+        }
+        return total;
+    }
+
+    /**
+     * Take {@code quantity} units from the product's shards. Returns false, leaving stock untouched,
+     * when the shards hold fewer than {@code quantity} plus {@code keepFree} units in total.
+     * With {@code keepFree} above zero the total is checked under the locks of every shard, so two
+     * callers cannot both take units that only one of them may.
+     */
+    @Transactional
+    public boolean tryDecrement(Long productId, int quantity, long keepFree) {
+        if (keepFree == 0) {
+            List<Integer> candidates = new ArrayList<>();
+            long seen = 0;
+            for (Object[] row : shardRepository.findShardQuantities(productId)) {
+                seen += ((Number) row[1]).intValue();
+                if (((Number) row[1]).intValue() >= quantity) {
+                    candidates.add(((Number) row[0]).intValue());
+                }
+            }
+            if (seen < quantity) {
+                return false;
+            }
+            if (!candidates.isEmpty()) {
+                int shardNo = candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+                if (shardRepository.decrementShard(productId, shardNo, quantity) == 1) {
+                    return true;
+                }
+            }
+        }
+
+        List<ProductStockShard> shards = shardRepository.findByProductIdForUpdate(productId);
+        long total = 0;
+        for (ProductStockShard shard : shards) {
+            total += shard.getQuantity();
+        }
+        if (total < quantity + keepFree) {
+            return false;
+        }
+        int remaining = quantity;
+        for (ProductStockShard shard : shards) {
+            int take = Math.min(remaining, shard.getQuantity());
+            shard.setQuantity(shard.getQuantity() - take);
+            remaining -= take;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Put {@code quantity} units back into a random shard of the product.
+     */
+    @Transactional
+    public void restock(Long productId, int quantity) {
+        List<Object[]> shards = shardRepository.findShardQuantities(productId);
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("No stock shards for product: " + productId);
+        }
+        Object[] shard = shards.get(ThreadLocalRandom.current().nextInt(shards.size()));
+        shardRepository.incrementShard(productId, ((Number) shard[0]).intValue(), quantity);
+    }
+
+    /**
+     * Set a sharded product's stock to {@code quantity} units, spread evenly over its shards under
+     * their row locks, as a stock count does. Returns the total the shards held before.
+     */
+    @Transactional
+    public int reset(Long productId, int quantity) {
+        List<ProductStockShard> shards = shardRepository.findByProductIdForUpdate(productId);
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("No stock shards for product: " + productId);
+        }
+        int previous = total(shards);
+        int base = quantity / shards.size();
+        int remainder = quantity % shards.size();
+        for (int i = 0; i < shards.size(); i++) {
+            shards.get(i).setQuantity(base + (i < remainder ? 1 : 0));
+        }
+        shardRepository.saveAll(shards);
+        return previous;
+    }
+
+    /**
+     * Bring the shards in line with a product that was just saved, and return the stock it held
+     * before the save. {@code previous} is the quantity its row held before the save (null for a new
+     * product).
+     *
+     * The row of a sharded product only holds the last rollup, so its saved quantity is read as an
+     * edit of {@code previous}: only the difference is applied to the locked shard total, never
+     * going below zero, and an unchanged quantity leaves the shards alone. The product's quantity is
+     * set to the resulting total. A product that just became hot has its quantity spread over new
+     * shards; one that is no longer hot gets the locked shard total (plus the edit) back in its row
+     * and loses its shards.
+     */
+    @Transactional
+    public int sync(Product product, Integer previous) {
+        Long productId = product.getId();
+        int before = previous == null ? 0 : previous;
+        int edit = (product.getQuantity() == null ? 0 : product.getQuantity()) - before;
+        if (product.isHot()) {
+            List<ProductStockShard> shards = shardRepository.findByProductIdForUpdate(productId);
+            if (shards.isEmpty()) {
+                distribute(product, shards, before + edit);
+            } else {
+                before = total(shards);
+                int after = Math.max(0, before + edit);
+                if (after != before || shards.size() != shardCount) {
+                    distribute(product, shards, after);
+                }
+                product.setQuantity(after);
+            }
+            TransactionCallbacks.afterCommit(() -> shardedProducts.add(productId));
+        } else if (shardedProducts.contains(productId)) {
+            before = total(shardRepository.findByProductIdForUpdate(productId));
+            product.setQuantity(Math.max(0, before + edit));
+            shardRepository.deleteByProductId(productId);
+            TransactionCallbacks.afterCommit(() -> shardedProducts.remove(productId));
+        }
+        return before;
+    }
+
+    /**
+     * Copy current shard totals into the product rows of hot products.
+     */
+    @Scheduled(fixedDelayString = "${inventory.stock-shards.rollup-interval-ms:1000}")
+    public void rollup() {
+        if (shardedProducts.isEmpty()) {
+            return;
+        }
+        Integer rows = transactions.execute(status -> productRepository.rollupShardedQuantities());
+        if (rows != null && rows > 0) {
+            dataVersions.changed(DataSet.PRODUCTS);
+        }
+    }
+
+    private static int total(List<ProductStockShard> shards) {
+        int total = 0;
+        for (ProductStockShard shard : shards) {
+            total += shard.getQuantity();
+        }
+        return total;
+    }
+
+    /** Spread {@code total} evenly over the product's locked {@code shards}, recreating them if their number changed. */
+    private void distribute(Product product, List<ProductStockShard> shards, int total) {
+        if (shards.size() != shardCount) {
+            shardRepository.deleteByProductId(product.getId());
+            shards = new ArrayList<>();
+            for (int i = 0; i < shardCount; i++) {
+                ProductStockShard shard = new ProductStockShard();
+                shard.setProduct(product);
+                shard.setShardNo(i);
+                shards.add(shard);
+            }
+        }
+        int base = total / shardCount;
+        int remainder = total % shardCount;
+        for (int i = 0; i < shards.size(); i++) {
+            shards.get(i).setQuantity(base + (i < remainder ? 1 : 0));
+        }
+        shardRepository.saveAll(shards);
+    }
+}
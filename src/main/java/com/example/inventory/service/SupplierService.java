@@ -4,25 +4,47 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import com.example.inventory.config.CacheConfig;
 import com.example.inventory.entity.Supplier;
 import com.example.inventory.repository.SupplierRepository;
+import com.example.inventory.service.DataVersions.DataSet;
 
 @Service
 public class SupplierService {
 
+    private static final KeysetSorts<Supplier> SORTS = new KeysetSorts<Supplier>(Supplier::getId, "name")
+            .add("name", Supplier::getName, value -> value);
+
     @Autowired
     private SupplierRepository supplierRepository;
 
+    @Autowired
+    private DataVersions dataVersions;
+
+    /**
+     * All suppliers, cached. The list is shared between callers and cannot be modified.
+     */
+    @Cacheable(CacheConfig.SUPPLIERS)
     public List<Supplier> getAllSuppliers() {
-        return supplierRepository.findAll();
+        return List.copyOf(supplierRepository.findAll());
+    }
+
+    /**
+     * One page of suppliers by name.
+     */
+    public KeysetPage<Supplier> getSupplierPage(KeysetRequest request) {
+        return SORTS.page(request, supplierRepository::findAllBy, supplierRepository::count);
     }
 
     public Optional<Supplier> getSupplierById(Long id) {
         return supplierRepository.findById(id);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.SUPPLIERS, allEntries = true)
     public void saveOrUpdateSupplier(Supplier supplier) {
         if (supplier.getId() != null) {
             // If ID exists, update the existing record
@@ -37,9 +59,12 @@ public class SupplierService {
             // If ID doesn't exist, create a new record
             supplierRepository.save(supplier);
         }
+        dataVersions.changed(DataSet.SUPPLIERS);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.SUPPLIERS, allEntries = true)
     public void deleteSupplier(Long id) {
         supplierRepository.deleteById(id);
+        dataVersions.changed(DataSet.SUPPLIERS);
     }
 }
@@ -0,0 +1,98 @@
+package com.example.inventory.benchmark;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import com.example.inventory.entity.Order;
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.Supplier;
+import com.example.inventory.service.OrderCsvService;
+import com.example.inventory.service.OrderService;
+import com.example.inventory.service.ProductService;
+import com.example.inventory.service.SupplierService;
+
+/**
+ * Throughput of the partitioned order export as the partition count grows.
+ *
+ * Not a unit test: run the main method from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=...}.
+ * Each id-window query sleeps for a fixed round trip plus a per-row cost to stand in for the database,
+ * which is what the partitions overlap; CSV encoding itself is real.
+ */
+public class OrderExportBenchmark {
+
+    private static final int ORDERS = 200_000;
+    private static final long ROUND_TRIP_MICROS = 2_000;
+    private static final long MICROS_PER_ROW = 5;
+
+    public static void main(String[] args) throws Exception {
+        List<Order> orders = buildOrders();
+        OrderService orderService = mock(OrderService.class);
+        when(orderService.getAllOrders()).thenReturn(orders);
+        when(orderService.getOrderIdRange()).thenReturn(new long[] {1L, ORDERS});
+        when(orderService.getOrdersInIdRange(anyLong(), anyLong())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            long to = invocation.getArgument(1);
+            List<Order> page = orders.subList((int) from - 1, (int) to);
+            simulateDatabase(page.size());
+            return page;
+        });
+        OrderCsvService service = new OrderCsvService(orderService, mock(ProductService.class), mock(SupplierService.class), 8);
+
+        byte[] sequential = service.exportOrdersToCsv().toByteArray();
+        System.out.printf("%-12s %12s %14s %10s%n", "partitions", "millis", "orders/sec", "identical");
+        for (int partitions : new int[] {1, 2, 4, 8, 16}) {
+            // warm-up, then measure
+            service.exportOrdersToCsvPartitioned(OutputStream.nullOutputStream(), partitions);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(sequential.length);
+            long start = System.nanoTime();
+            service.exportOrdersToCsvPartitioned(out, partitions);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-12d %12.1f %14.0f %10s%n", partitions, elapsed / 1e6,
+                    ORDERS / (elapsed / 1e9), Arrays.equals(sequential, out.toByteArray()));
+        }
+    }
+
+    private static void simulateDatabase(int rows) throws InterruptedException {
+        long micros = ROUND_TRIP_MICROS + rows * MICROS_PER_ROW;
+        Thread.sleep(micros / 1_000, (int) (micros % 1_000) * 1_000);
+    }
+
+    private static List<Order> buildOrders() {
+        Product[] products = new Product[50];
+        for (int i = 0; i < products.length; i++) {
+            Product product = new Product();
+            product.setId((long) i + 1);
+            product.setName("Product " + (i + 1));
+            product.setPrice(1.25 * (i + 1));
+            products[i] = product;
+        }
+        Supplier supplier = new Supplier();
+        supplier.setId(1L);
+        supplier.setName("Acme, Inc.");
+        OrderStatus[] statuses = OrderStatus.values();
+
+        List<Order> orders = new ArrayList<>(ORDERS);
+        for (int i = 1; i <= ORDERS; i++) {
+            Order order = new Order();
+            order.setId((long) i);
+            order.setProduct(products[i % products.length]);
+            order.setQuantity(1 + i % 7);
+            order.setStatus(statuses[i % statuses.length]);
+            order.setTotalPrice(order.getQuantity() * order.getProduct().getPrice());
+            order.setSupplier(i % 3 == 0 ? null : supplier);
+            order.setOrderDate(new Date(1_700_000_000_000L + i * 60_000L));
+            orders.add(order);
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.inventory.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.example.inventory.service.ProductLockManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Confirmation throughput under a flash sale, with and without the in-process product locks.
+ *
+ * Not a unit test: run the main method from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=...}.
+ * The database is simulated by a small connection pool and one lock per product row: a confirmation
+ * takes a connection, waits for its row, and holds both for a fixed time. Most requests hit a few
+ * hot products, so without the product locks their waiters sit on connections and starve the rest.
+ */
+public class ProductLockBenchmark {
+
+    private static final int THREADS = 64;
+    private static final int REQUESTS_PER_THREAD = 200;
+    private static final int CONNECTIONS = 10;
+    private static final int HOT_PRODUCTS = 3;
+    private static final int COLD_PRODUCTS = 1_000;
+    private static final double HOT_SHARE = 0.9;
+    private static final long ROW_HOLD_MICROS = 200;
+
+    public static void main(String[] args) throws Exception {
+        System.out.printf("%-12s %12s %16s %20s%n", "path", "millis", "confirms/sec", "cold avg wait (us)");
+        for (int round = 0; round < 2; round++) {
+            // first round warms up, second is reported
+            Result unguarded = run(null);
+            Result guarded = run(new ProductLockManager(new SimpleMeterRegistry(), 256, 60_000));
+            if (round == 1) {
+                unguarded.print("unguarded");
+                guarded.print("striped");
+            }
+        }
+    }
+
+    private static Result run(ProductLockManager locks) throws Exception {
+        Semaphore pool = new Semaphore(CONNECTIONS, true);
+        ConcurrentHashMap<Long, ReentrantLock> rows = new ConcurrentHashMap<>();
+        AtomicLong coldWaitNanos = new AtomicLong();
+        AtomicLong coldCount = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    boolean hot = random.nextDouble() < HOT_SHARE;
+                    long productId = hot ? 1 + random.nextInt(HOT_PRODUCTS) : 1_000 + random.nextInt(COLD_PRODUCTS);
+                    long begin = System.nanoTime();
+                    if (locks == null) {
+                        confirm(pool, rows, productId);
+                    } else {
+                        locks.withLock(productId, () -> {
+                            confirm(pool, rows, productId);
+                            return null;
+                        });
+                    }
+                    if (!hot) {
+                        coldWaitNanos.addAndGet(System.nanoTime() - begin);
+                        coldCount.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return new Result(elapsed, coldCount.get() == 0 ? 0 : coldWaitNanos.get() / coldCount.get());
+    }
+
+    private static void confirm(Semaphore pool, ConcurrentHashMap<Long, ReentrantLock> rows, long productId) {
+        pool.acquireUninterruptibly();
+        try {
+            ReentrantLock row = rows.computeIfAbsent(productId, id -> new ReentrantLock());
+            row.lock();
+            try {
+                long until = System.nanoTime() + ROW_HOLD_MICROS * 1_000;
+                while (System.nanoTime() < until) {
+                    Thread.onSpinWait();
+                }
+            } finally {
+                row.unlock();
+            }
+        } finally {
+            pool.release();
+        }
+    }
+
+    private record Result(long elapsedNanos, long coldAverageNanos) {
+        void print(String label) {
+            long requests = (long) THREADS * REQUESTS_PER_THREAD;
+            System.out.printf("%-12s %12.1f %16.0f %20.0f%n", label, elapsedNanos / 1e6,
+                    requests / (elapsedNanos / 1e9), coldAverageNanos / 1e3);
+        }
+    }
+}
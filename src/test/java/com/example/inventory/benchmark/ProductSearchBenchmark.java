@@ -0,0 +1,78 @@
+package com.example.inventory.benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.example.inventory.entity.Category;
+import com.example.inventory.entity.Product;
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.service.ProductSearchIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Search latency of the trigram index over a large synthetic catalogue.
+ *
+ * Not a unit test: run the main method from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=...}
+ * (about 2 GB of heap for a million products). Names are built from a small vocabulary, so common
+ * words match a large share of the catalogue; those are the slow queries, as they score
+ * {@link ProductSearchIndex#MAX_CANDIDATES} candidates.
+ */
+public class ProductSearchBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int RUNS = 200;
+
+    private static final String[] MATERIALS = {"Steel", "Stainless", "Brass", "Zinc", "Nylon", "Copper", "Aluminium",
+            "Titanium", "Bronze", "Galvanised"};
+    private static final String[] ITEMS = {"bolt", "nut", "washer", "screw", "hinge", "bracket", "cable", "rivet",
+            "anchor", "hook", "clamp", "spring", "pin", "rod", "sheet", "pipe", "valve", "fitting", "gasket", "bearing"};
+    private static final String[] FINISHES = {"plated", "polished", "painted", "anodised", "raw", "coated"};
+    private static final String[] CATEGORIES = {"Fasteners", "Hardware", "Plumbing", "Electrical", "Tools",
+            "Fixings", "Hydraulics", "Garden", "Marine", "Automotive"};
+    private static final String[] QUERIES = {"bolt", "steel bolt", "st", "zinc plated washer m12",
+            "stainless hinge 40", "thunderbolt", "ele"};
+
+    public static void main(String[] args) {
+        ProductSearchIndex index = new ProductSearchIndex(mock(ProductRepository.class), new SimpleMeterRegistry(), 1000);
+        Random random = new Random(42);
+        Category[] categories = new Category[CATEGORIES.length];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = new Category();
+            categories[i].setId((long) i + 1);
+            categories[i].setName(CATEGORIES[i]);
+        }
+        long start = System.nanoTime();
+        for (int i = 1; i <= PRODUCTS; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setName(MATERIALS[random.nextInt(MATERIALS.length)] + " " + ITEMS[random.nextInt(ITEMS.length)]
+                    + " M" + (3 + random.nextInt(22)) + " x " + (10 + random.nextInt(190)) + " " + Integer.toString(i, 36));
+            product.setDescription(FINISHES[random.nextInt(FINISHES.length)] + " finish, pack of " + (1 + random.nextInt(500)));
+            product.setPrice(0.05 + random.nextInt(10_000) / 100.0);
+            product.setCategory(categories[random.nextInt(categories.length)]);
+            index.productSaved(product);
+        }
+        System.out.printf("indexed %d products in %.1f s%n%n", index.size(), (System.nanoTime() - start) / 1e9);
+
+        System.out.printf("%-26s %8s %12s %12s %12s%n", "query", "results", "median (us)", "p99 (us)", "max (us)");
+        for (String query : QUERIES) {
+            int results = 0;
+            for (int i = 0; i < RUNS / 4; i++) {
+                results = index.search(query, 10).size();
+            }
+            long[] micros = new long[RUNS];
+            for (int i = 0; i < RUNS; i++) {
+                long t0 = System.nanoTime();
+                index.search(query, 10);
+                micros[i] = (System.nanoTime() - t0) / 1_000;
+            }
+            Arrays.sort(micros);
+            System.out.printf("%-26s %8d %12d %12d %12d%n", "\"" + query + "\"", results, micros[RUNS / 2],
+                    micros[RUNS * 99 / 100], micros[RUNS - 1]);
+        }
+    }
+}
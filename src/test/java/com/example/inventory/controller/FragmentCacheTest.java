@@ -0,0 +1,112 @@
+package com.example.inventory.controller;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.IContext;
+
+import com.example.inventory.service.DataVersions;
+import com.example.inventory.service.DataVersions.DataSet;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FragmentCacheTest {
+
+    @Mock
+    private ITemplateEngine templateEngine;
+
+    private DataVersions dataVersions;
+    private SimpleMeterRegistry meterRegistry;
+    private FragmentCache fragmentCache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        dataVersions = new DataVersions();
+        meterRegistry = new SimpleMeterRegistry();
+        fragmentCache = new FragmentCache(templateEngine, dataVersions, new MockServletContext(), meterRegistry, 1 << 20);
+        when(templateEngine.process(eq("fragments/products_table"), anySet(), any(IContext.class)))
+                .thenAnswer(inv -> "<table>" + loads.get() + "</table>");
+        login("ROLE_USER");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void login(String role) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", "password", role));
+    }
+
+    private String render() {
+        return render("name,asc");
+    }
+
+    private String render(String variant) {
+        return fragmentCache.table("fragments/products_table", "products", () -> List.of(loads.incrementAndGet()),
+                variant, new MockHttpServletRequest(), new MockHttpServletResponse(), DataSet.PRODUCTS, DataSet.CATEGORIES);
+    }
+
+    @Test
+    void testTableIsRenderedOnceUntilItsDataChanges() {
+        assertEquals("<table>1</table>", render());
+        assertEquals("<table>1</table>", render());
+        assertEquals(1, loads.get());
+
+        dataVersions.changed(DataSet.SUPPLIERS);
+        assertEquals("<table>1</table>", render());
+
+        dataVersions.changed(DataSet.CATEGORIES);
+        assertEquals("<table>2</table>", render());
+        verify(templateEngine, times(2)).process(eq("fragments/products_table"), anySet(), any(IContext.class));
+    }
+
+    @Test
+    void testRolesGetTheirOwnRendering() {
+        render();
+        login("ROLE_ADMIN");
+        render();
+        render();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testEachVariantIsCachedOnItsOwn() {
+        render("name,asc");
+        render("price,desc");
+        render("price,desc");
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testHitsAndMissesAreMetered() {
+        render();
+        render();
+        render();
+
+        assertEquals(2.0, meterRegistry.get("cache.gets").tags("cache", "fragments", "result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "fragments", "result", "miss").functionCounter().count());
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.inventory.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.inventory.config.SecurityConfig;
+import com.example.inventory.service.CycleCountService;
+import com.example.inventory.service.InventorySnapshotService;
+import com.example.inventory.service.InventoryTransactionService;
+import com.example.inventory.service.ProductService;
+import com.example.inventory.service.StockMovementIngestor;
+
+import jakarta.servlet.Filter;
+
+/**
+ * Posts to the JSON transaction endpoints the way a scanner does: HTTP Basic, no session, no CSRF token.
+ */
+@SpringJUnitWebConfig
+class TransactionApiSecurityTest {
+
+    @Configuration
+    @EnableWebMvc
+    @Import({SecurityConfig.class, InventoryTransactionController.class})
+    static class Config {
+
+        @Bean
+        InventoryTransactionService transactionService() {
+            return mock(InventoryTransactionService.class);
+        }
+
+        @Bean
+        InventorySnapshotService snapshotService() {
+            return mock(InventorySnapshotService.class);
+        }
+
+        @Bean
+        CycleCountService cycleCountService() {
+            return mock(CycleCountService.class);
+        }
+
+        @Bean
+        ProductService productService() {
+            return mock(ProductService.class);
+        }
+
+        @Bean
+        StockMovementIngestor movementIngestor() {
+            return mock(StockMovementIngestor.class);
+        }
+    }
+
+    private static final String MOVEMENTS = "[{\"productId\": 1, \"type\": \"RECEIPT\", \"quantity\": 5}]";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private StockMovementIngestor movementIngestor;
+
+    @Autowired
+    private CycleCountService cycleCountService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        reset(movementIngestor, cycleCountService);
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+    }
+
+    private static String basic(String username, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testMovementsAcceptBasicAuthWithoutSessionOrCsrfToken() throws Exception {
+        when(movementIngestor.tryPublishAll(anyList())).thenReturn(1);
+
+        mockMvc.perform(post("/transactions/movements")
+                        .header(HttpHeaders.AUTHORIZATION, basic("admin", "admin123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(MOVEMENTS))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(1));
+    }
+
+    @Test
+    void testMovementsWithoutCredentialsAreUnauthorizedNotRedirected() throws Exception {
+        mockMvc.perform(post("/transactions/movements")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(MOVEMENTS))
+                .andExpect(status().isUnauthorized());
+
+        verify(movementIngestor, never()).tryPublishAll(anyList());
+    }
+
+    @Test
+    void testMovementsStillRequireAdmin() throws Exception {
+        mockMvc.perform(post("/transactions/movements")
+                        .header(HttpHeaders.AUTHORIZATION, basic("user", "user123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(MOVEMENTS))
+                .andExpect(status().isForbidden());
+
+        verify(movementIngestor, never()).tryPublishAll(anyList());
+    }
+
+    @Test
+    void testJsonCycleCountAcceptsBasicAuthWithoutSessionOrCsrfToken() throws Exception {
+        when(cycleCountService.apply(any(), isNull())).thenReturn(new CycleCountService.Summary());
+
+        mockMvc.perform(post("/transactions/cycle-count")
+                        .header(HttpHeaders.AUTHORIZATION, basic("admin", "admin123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"productId\": 1, \"counted\": 7}]"))
+                .andExpect(status().isOk());
+
+        verify(cycleCountService).apply(anyList(), isNull());
+    }
+
+    @Test
+    void testCycleCountUploadFormStillNeedsCsrfToken() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "count.csv", "text/csv",
+                "Product ID,Counted\n1,7\n".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(multipart("/transactions/cycle-count").file(file)
+                        .header(HttpHeaders.AUTHORIZATION, basic("admin", "admin123")))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.inventory.repository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.inventory.entity.Product;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+
+class ProductStockRepositoryImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Cache entityCache;
+
+    private ProductStockRepositoryImpl stock;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        stock = new ProductStockRepositoryImpl(jdbcTemplate, entityManager, entityCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testDecrementFlushesFirstAndEvictsOnlyThatProductAfterCommit() {
+        when(jdbcTemplate.update(ProductStockRepositoryImpl.DECREMENT, 3, 7L, 3L)).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(1, stock.decrementQuantity(7L, 3, 0));
+
+        InOrder order = inOrder(entityManager, jdbcTemplate);
+        order.verify(entityManager).flush();
+        order.verify(jdbcTemplate).update(ProductStockRepositoryImpl.DECREMENT, 3, 7L, 3L);
+        // not committed yet: other transactions may still read the cached product
+        verify(entityCache, never()).evict(any(), any());
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.get(0).afterCommit();
+
+        verify(entityCache).evict(Product.class, 7L);
+    }
+
+    @Test
+    void testDecrementLeavesHeldUnitsAndRefusalEvictsNothing() {
+        // 5 units wanted, 4 held for other orders: at least 9 must be on hand
+        when(jdbcTemplate.update(ProductStockRepositoryImpl.DECREMENT, 5, 7L, 9L)).thenReturn(0);
+
+        assertEquals(0, stock.decrementQuantity(7L, 5, 4));
+
+        verify(entityCache, never()).evict(any(), any());
+    }
+
+    @Test
+    void testIncrementOutsideATransactionEvictsAtOnce() {
+        when(jdbcTemplate.update(ProductStockRepositoryImpl.INCREMENT, 4, 9L)).thenReturn(1);
+
+        assertEquals(1, stock.incrementQuantity(9L, 4));
+
+        verify(entityCache).evict(Product.class, 9L);
+    }
+
+    @Test
+    void testRollupUpdatesAndEvictsOnlyStaleHotProducts() {
+        when(jdbcTemplate.queryForList(ProductStockRepositoryImpl.STALE_HOT_PRODUCTS, Long.class))
+                .thenReturn(List.of(2L, 5L));
+        when(jdbcTemplate.batchUpdate(eq(ProductStockRepositoryImpl.ROLLUP), anyList())).thenReturn(new int[] {1, 1});
+
+        assertEquals(2, stock.rollupShardedQuantities());
+
+        verify(entityCache).evict(Product.class, 2L);
+        verify(entityCache).evict(Product.class, 5L);
+    }
+
+    @Test
+    void testRollupWithNothingStaleWritesNothing() {
+        when(jdbcTemplate.queryForList(ProductStockRepositoryImpl.STALE_HOT_PRODUCTS, Long.class)).thenReturn(List.of());
+
+        assertEquals(0, stock.rollupShardedQuantities());
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(entityCache, never()).evict(any(), any());
+    }
+}
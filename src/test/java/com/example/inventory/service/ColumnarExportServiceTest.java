@@ -0,0 +1,151 @@
+package com.example.inventory.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+
+import com.example.inventory.columnar.ColumnType;
+import com.example.inventory.columnar.ColumnarReader;
+import com.example.inventory.columnar.ColumnarSchema;
+import com.example.inventory.columnar.ColumnarWriter;
+import com.example.inventory.entity.Category;
+import com.example.inventory.entity.Order;
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.Supplier;
+
+class ColumnarExportServiceTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private ProductService productService;
+
+    @InjectMocks
+    private ColumnarExportService columnarExportService;
+
+    private List<Order> testOrders;
+    private List<Product> testProducts;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Electronics");
+
+        Supplier supplier = new Supplier();
+        supplier.setId(1L);
+        supplier.setName("Test Supplier");
+
+        testProducts = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setName("Product " + i);
+            product.setDescription(i == 1 ? "Description" : null);
+            product.setQuantity(10 * i);
+            product.setPrice(2.5 * i);
+            product.setCategory(category);
+            testProducts.add(product);
+        }
+
+        testOrders = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            Order order = new Order();
+            order.setId((long) i);
+            order.setProduct(testProducts.get(i % 2));
+            order.setQuantity(i);
+            order.setStatus(i % 2 == 0 ? OrderStatus.COMPLETED : OrderStatus.PENDING);
+            order.setTotalPrice(100.0 * i);
+            order.setSupplier(i == 4 ? null : supplier);
+            // dates deliberately out of id order to check clustering by date
+            order.setOrderDate(new Date(1_000_000L * (5 - i)));
+            testOrders.add(order);
+        }
+    }
+
+    @Test
+    void testExportOrdersRoundTrip() throws IOException {
+        when(orderService.getAllOrders()).thenReturn(testOrders);
+
+        ByteArrayOutputStream result = columnarExportService.exportOrdersToColumnar();
+        ColumnarReader reader = ColumnarReader.open(result.toByteArray());
+
+        assertEquals(4, reader.rowCount());
+        assertEquals(1, reader.rowGroups().size());
+        ColumnarReader.RowGroup group = reader.rowGroups().get(0);
+        assertArrayEquals(new long[] {4, 3, 2, 1}, group.longs("id"));
+        assertArrayEquals(new int[] {4, 3, 2, 1}, group.ints("quantity"));
+        assertArrayEquals(new double[] {400.0, 300.0, 200.0, 100.0}, group.doubles("totalPrice"));
+        assertArrayEquals(new String[] {"COMPLETED", "PENDING", "COMPLETED", "PENDING"}, group.strings("status"));
+        assertEquals(2, reader.dictionary("status").length);
+        assertNull(group.strings("supplier")[0]);
+        assertTrue(group.nulls("supplier")[0]);
+        assertEquals(1_000_000L, group.min("orderDate"));
+        assertEquals(4_000_000L, group.max("orderDate"));
+    }
+
+    @Test
+    void testExportProductsRoundTrip() throws IOException {
+        when(productService.getAllProducts()).thenReturn(testProducts);
+
+        ByteArrayOutputStream result = columnarExportService.exportProductsToColumnar();
+        ColumnarReader reader = ColumnarReader.open(result.toByteArray());
+
+        ColumnarReader.RowGroup group = reader.rowGroups().get(0);
+        assertArrayEquals(new String[] {"Product 1", "Product 2"}, group.strings("name"));
+        assertArrayEquals(new String[] {"Description", null}, group.strings("description"));
+        assertArrayEquals(new String[] {"Electronics", "Electronics"}, group.strings("category"));
+        assertEquals(2.5, group.minDouble("price"));
+        assertEquals(5.0, group.maxDouble("price"));
+    }
+
+    @Test
+    void testExportEmptyOrderList() throws IOException {
+        when(orderService.getAllOrders()).thenReturn(new ArrayList<>());
+
+        ByteArrayOutputStream result = columnarExportService.exportOrdersToColumnar();
+        ColumnarReader reader = ColumnarReader.open(result.toByteArray());
+
+        assertEquals(0, reader.rowCount());
+        assertTrue(reader.rowGroups().isEmpty());
+        assertEquals(ColumnarExportService.ORDER_SCHEMA.names(), reader.schema().names());
+    }
+
+    @Test
+    void testRowGroupsSkippedByDateRange() throws IOException {
+        ColumnarSchema schema = new ColumnarSchema()
+                .add("id", ColumnType.LONG)
+                .add("orderDate", ColumnType.TIMESTAMP);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ColumnarWriter writer = new ColumnarWriter(outputStream, schema, 100)) {
+            for (long i = 0; i < 1_000; i++) {
+                writer.writeRow(i, new Date(i * 1_000L));
+            }
+        }
+
+        ColumnarReader reader = ColumnarReader.open(outputStream.toByteArray());
+        List<ColumnarReader.RowGroup> groups = reader.rowGroups("orderDate", 250_000L, 349_000L);
+
+        assertEquals(10, reader.rowGroups().size());
+        assertEquals(2, groups.size());
+        assertEquals(200L, groups.get(0).longs("id")[0]);
+        assertEquals(399L, groups.get(1).longs("id")[99]);
+    }
+}
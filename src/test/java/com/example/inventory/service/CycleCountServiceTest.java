@@ -0,0 +1,158 @@
+package com.example.inventory.service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.TransactionType;
+
+import jakarta.persistence.Cache;
+
+class CycleCountServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private StockShardService stockShards;
+
+    @Mock
+    private InventoryLedger ledger;
+
+    @Mock
+    private Cache entityCache;
+
+    private CycleCountService cycleCount;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        cycleCount = new CycleCountService(jdbcTemplate, stockShards, ledger, TransactionOperations.withoutTransaction(), entityCache,
+                new DataVersions(), 2);
+    }
+
+    /**
+     * Answer every stock query with the rows of {@code stock} whose ids were asked for.
+     */
+    private void stockOnHand(Map<Long, Integer> stock) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            Object[] args = invocation.getRawArguments();
+            for (int i = 2; i < args.length; i++) {
+                Object arg = args[i];
+                Object[] ids = arg instanceof Object[] ? (Object[]) arg : new Object[] {arg};
+                for (Object id : ids) {
+                    if (stock.containsKey(id)) {
+                        ResultSet rs = mock(ResultSet.class);
+                        when(rs.getLong(1)).thenReturn((Long) id);
+                        when(rs.getInt(2)).thenReturn(stock.get(id));
+                        handler.processRow(rs);
+                    }
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testVariancesAreWrittenAsOneBatchPerChunk() throws Exception {
+        stockOnHand(Map.of(1L, 10, 2L, 5, 3L, 8));
+
+        CycleCountService.Summary summary = cycleCount.apply(List.of(
+                new CycleCountService.Count(1L, 7),
+                new CycleCountService.Count(2L, 5),
+                new CycleCountService.Count(3L, 9)), "Q1 count");
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(CycleCountService.UPDATE_QUANTITY), batch.capture());
+        assertArrayEquals(new Object[] {7, 1L}, batch.getAllValues().get(0).get(0));
+        assertEquals(1, batch.getAllValues().get(0).size());
+        assertArrayEquals(new Object[] {9, 3L}, batch.getAllValues().get(1).get(0));
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        verify(ledger).record(1L, TransactionType.ADJUSTMENT, -3, 7, "Q1 count", null);
+        verify(ledger).record(3L, TransactionType.ADJUSTMENT, 1, 9, "Q1 count", null);
+        verify(ledger, times(2)).record(anyLong(), any(), anyInt(), anyInt(), any(), any());
+        verify(entityCache).evict(Product.class, 1L);
+        verify(entityCache).evict(Product.class, 3L);
+        verify(entityCache, never()).evict(Product.class, 2L);
+
+        assertEquals(3, summary.getProducts());
+        assertEquals(1, summary.getMatched());
+        assertEquals(2, summary.getAdjusted());
+        assertEquals(3, summary.getShrinkage());
+        assertEquals(1, summary.getOverage());
+        assertEquals(-2, summary.getNetVariance());
+        assertEquals(1L, summary.getLargestVariances().get(0).getProductId());
+    }
+
+    @Test
+    void testLinesForOneProductAreAddedUpAndProblemsReported() throws Exception {
+        stockOnHand(Map.of(1L, 4));
+
+        CycleCountService.Summary summary = cycleCount.apply(List.of(
+                new CycleCountService.Count(1L, 3),
+                new CycleCountService.Count(1L, 1),
+                new CycleCountService.Count(2L, 6),
+                new CycleCountService.Count(3L, -1)), null);
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertEquals(1, summary.getMatched());
+        assertEquals(2, summary.getProblemCount());
+        assertEquals(List.of("Product 3: counted quantity cannot be negative", "Product 2 not found"), summary.getProblems());
+    }
+
+    @Test
+    void testShardedProductIsResetOnItsShards() throws Exception {
+        stockOnHand(Map.of(9L, 0));
+        when(stockShards.isSharded(9L)).thenReturn(true);
+        when(stockShards.reset(9L, 20)).thenReturn(25);
+
+        CycleCountService.Summary summary = cycleCount.apply(List.of(new CycleCountService.Count(9L, 20)), "Count");
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(ledger).record(9L, TransactionType.ADJUSTMENT, -5, 20, "Count", null);
+        assertEquals(5, summary.getShrinkage());
+    }
+
+    @Test
+    void testCsvIsParsedWithBadLinesReported() throws Exception {
+        String csv = "Product ID,Counted\n1,42\nabc,3\n2, 0\n";
+        List<String> problems = new ArrayList<>();
+
+        List<CycleCountService.Count> counts = cycleCount.parseCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), problems);
+
+        assertEquals(2, counts.size());
+        assertEquals(42, counts.get(0).getCounted());
+        assertEquals(2L, counts.get(1).getProductId());
+        assertEquals(1, problems.size());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.inventory.service;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.example.inventory.entity.IdempotencyKey;
+import com.example.inventory.repository.IdempotencyKeyRepository;
+
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyKeyRepository repository;
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        idempotencyService = new IdempotencyService(repository, TransactionOperations.withoutTransaction(), 60_000, 2, 2);
+        when(repository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private static IdempotencyKey stored(String key, Long orderId, long expiresInMillis) {
+        IdempotencyKey stored = new IdempotencyKey();
+        stored.setId(1L);
+        stored.setIdempotencyKey(key);
+        stored.setOrderId(orderId);
+        stored.setExpiresAt(new Date(System.currentTimeMillis() + expiresInMillis));
+        return stored;
+    }
+
+    @Test
+    void testNormalizeTrimsAndRejectsLongKeys() {
+        assertEquals("abc", idempotencyService.normalize("  abc "));
+        assertNull(idempotencyService.normalize("   "));
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotencyService.normalize("x".repeat(IdempotencyKey.MAX_LENGTH + 1)));
+    }
+
+    @Test
+    void testCompletedKeyIsAnsweredFromMemory() {
+        IdempotencyKey claim = idempotencyService.claim("key-1");
+        idempotencyService.complete(claim, 7L);
+
+        assertEquals(7L, idempotencyService.findOrderId("key-1"));
+        verify(repository, times(1)).findByIdempotencyKey("key-1");
+    }
+
+    @Test
+    void testEvictedKeyFallsBackToDatabase() {
+        idempotencyService.complete(idempotencyService.claim("key-1"), 1L);
+        idempotencyService.complete(idempotencyService.claim("key-2"), 2L);
+        idempotencyService.complete(idempotencyService.claim("key-3"), 3L);
+        IdempotencyKey row = stored("key-1", 1L, 60_000);
+        when(repository.findByIdempotencyKey("key-1")).thenReturn(row);
+
+        assertEquals(1L, idempotencyService.findOrderId("key-1"));
+        verify(repository, times(2)).findByIdempotencyKey("key-1");
+    }
+
+    @Test
+    void testExpiredOrInFlightKeysAreNotAnswered() {
+        when(repository.findByIdempotencyKey("expired")).thenReturn(stored("expired", 7L, -1));
+        when(repository.findByIdempotencyKey("in-flight")).thenReturn(stored("in-flight", null, 60_000));
+
+        assertNull(idempotencyService.findOrderId("expired"));
+        assertNull(idempotencyService.findOrderId("in-flight"));
+    }
+
+    @Test
+    void testClaimReplacesExpiredLeftover() {
+        when(repository.findByIdempotencyKey("key-1")).thenReturn(stored("key-1", 7L, -1));
+
+        idempotencyService.claim("key-1");
+
+        verify(repository).deleteKeys(List.of(1L));
+        verify(repository).saveAndFlush(any());
+    }
+
+    @Test
+    void testPurgeDeletesInBatchesUntilShortBatch() {
+        when(repository.findExpiredIds(any(), any())).thenReturn(List.of(1L, 2L), List.of(3L));
+        when(repository.deleteKeys(List.of(1L, 2L))).thenReturn(2);
+        when(repository.deleteKeys(List.of(3L))).thenReturn(1);
+
+        assertEquals(3, idempotencyService.purgeExpired());
+        verify(repository, times(2)).deleteKeys(anyList());
+    }
+
+    @Test
+    void testPurgeWithNothingExpiredDeletesNothing() {
+        when(repository.findExpiredIds(any(), any())).thenReturn(List.of());
+
+        assertEquals(0, idempotencyService.purgeExpired());
+        verify(repository, never()).deleteKeys(anyList());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.inventory.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.inventory.entity.TransactionType;
+
+class InventoryLedgerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private StockShardService stockShards;
+
+    private InventoryLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ledger = new InventoryLedger(jdbcTemplate, stockShards);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        for (TransactionSynchronization sync : syncs) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                sync.beforeCommit(false);
+            }
+        }
+        for (TransactionSynchronization sync : syncs) {
+            sync.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMovementsInTransactionAreWrittenAsOneBatchAtCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        ledger.record(1L, TransactionType.SALE, -2, "Order 1: PENDING to CONFIRMED", 1L);
+        ledger.record(2L, TransactionType.RECEIPT, 5, "Delivery", null);
+        ledger.record(1L, TransactionType.SALE, -3, "Order 2: PENDING to CONFIRMED", 2L);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(InventoryLedger.INSERT_FROM_PRODUCT), batch.capture());
+        verify(jdbcTemplate, never()).batchUpdate(eq(InventoryLedger.INSERT), anyList());
+        List<Object[]> rows = batch.getValue();
+        assertEquals(3, rows.size());
+        // the first sale's balance is the committed quantity plus the 3 units the second sale took later
+        assertArrayEquals(new Object[] {"SALE", -2, 3}, new Object[] {rows.get(0)[0], rows.get(0)[1], rows.get(0)[2]});
+        assertEquals(0, rows.get(1)[2]);
+        assertEquals(0, rows.get(2)[2]);
+        assertEquals(1L, rows.get(2)[6]);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExplicitBalanceAndShardedProductsUsePlainInsert() {
+        when(stockShards.isSharded(9L)).thenReturn(true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        ledger.record(1L, TransactionType.RECEIPT, 10, 10, "Initial stock", null);
+        ledger.record(9L, TransactionType.SALE, -1, "Order 3: new to CONFIRMED", 3L);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(InventoryLedger.INSERT), batch.capture());
+        verify(jdbcTemplate, never()).batchUpdate(eq(InventoryLedger.INSERT_FROM_PRODUCT), anyList());
+        assertEquals(10, batch.getValue().get(0)[3]);
+        assertEquals(null, batch.getValue().get(1)[3]);
+    }
+
+    @Test
+    void testRolledBackMovementsAreDropped() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.record(1L, TransactionType.SALE, -2, "Order 1: PENDING to CONFIRMED", 1L);
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertEquals(null, TransactionSynchronizationManager.getResource(ledger));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMovementOutsideTransactionIsWrittenImmediately() {
+        ledger.record(1L, TransactionType.RETURN, 4, "Customer return", 7L);
+
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(InventoryLedger.INSERT_FROM_PRODUCT), anyList());
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.inventory.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.example.inventory.entity.InventorySnapshot;
+import com.example.inventory.repository.InventorySnapshotRepository;
+import com.example.inventory.repository.InventoryTransactionRepository;
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.service.InventorySnapshotService.Period;
+
+class InventorySnapshotServiceTest {
+
+    @Mock
+    private InventorySnapshotRepository snapshotRepository;
+
+    @Mock
+    private InventoryTransactionRepository transactionRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private InventorySnapshotService snapshots;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        snapshots = service(Period.DAILY, 500);
+    }
+
+    private InventorySnapshotService service(Period period, int batchSize) {
+        return new InventorySnapshotService(snapshotRepository, transactionRepository, productRepository,
+                TransactionOperations.withoutTransaction(), period, 10 * 60_000L, batchSize);
+    }
+
+    private static Date at(String dateTime) {
+        return Date.from(LocalDateTime.parse(dateTime).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static Object[] row(long productId, long value) {
+        return new Object[] {productId, value};
+    }
+
+    @Test
+    void testBoundaryWaitsOutTheGraceTime() {
+        assertEquals(at("2024-03-14T00:00"), snapshots.boundary(at("2024-03-15T00:05")));
+        assertEquals(at("2024-03-15T00:00"), snapshots.boundary(at("2024-03-15T00:15")));
+        assertEquals(at("2024-03-01T00:00"), service(Period.MONTHLY, 500).boundary(at("2024-03-15T09:00")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSnapshotIsPreviousSnapshotPlusMovementsSince() {
+        Date previous = at("2024-03-14T00:00");
+        Date boundary = at("2024-03-15T00:00");
+        when(productRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(snapshotRepository.findLatest(List.of(1L, 2L), boundary)).thenReturn(List.of(
+                new InventorySnapshot(1L, previous, 40),
+                new InventorySnapshot(2L, boundary, 7)));
+        when(transactionRepository.sumDeltas(List.of(1L), previous, boundary)).thenReturn(List.<Object[]>of(row(1L, -15)));
+
+        assertEquals(1, snapshots.takeSnapshots(at("2024-03-15T09:00")));
+
+        ArgumentCaptor<List<InventorySnapshot>> saved = ArgumentCaptor.forClass(List.class);
+        verify(snapshotRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(1L, saved.getValue().get(0).getProductId());
+        assertEquals(25, saved.getValue().get(0).getQuantity());
+        assertEquals(boundary, saved.getValue().get(0).getSnapshotAt());
+    }
+
+    @Test
+    void testProductWithoutSnapshotIsSeededBackwardsFromCurrentQuantity() {
+        Date asOf = at("2024-03-10T12:00");
+        when(snapshotRepository.findLatest(anyCollection(), eq(asOf))).thenReturn(List.of());
+        when(productRepository.findQuantities(List.of(3L))).thenReturn(List.<Object[]>of(row(3L, 50)));
+        when(transactionRepository.sumDeltasSince(List.of(3L), asOf)).thenReturn(List.<Object[]>of(row(3L, 20)));
+
+        assertEquals(30, snapshots.getStockAsOf(3L, asOf));
+        verify(transactionRepository, never()).sumDeltas(anyCollection(), any(), any());
+    }
+
+    @Test
+    void testStockAsOfAppliesOnlyMovementsAfterNearestSnapshot() {
+        Date snapshotAt = at("2024-03-10T00:00");
+        Date asOf = at("2024-03-10T15:30");
+        when(snapshotRepository.findLatest(List.of(1L, 2L), asOf)).thenReturn(List.of(
+                new InventorySnapshot(1L, snapshotAt, 40),
+                new InventorySnapshot(2L, snapshotAt, 5)));
+        when(transactionRepository.sumDeltas(List.of(1L, 2L), snapshotAt, asOf)).thenReturn(List.<Object[]>of(row(1L, -4)));
+
+        Map<Long, Integer> stock = snapshots.getStockAsOf(List.of(1L, 2L), asOf);
+
+        assertEquals(Map.of(1L, 36, 2L, 5), stock);
+        verify(productRepository, never()).findQuantities(anyCollection());
+    }
+
+    @Test
+    void testProductsAreWalkedInKeysetBatches() {
+        snapshots = service(Period.DAILY, 2);
+        when(productRepository.findIdsAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(1L, 2L));
+        when(productRepository.findIdsAfter(eq(2L), any(Pageable.class))).thenReturn(List.of(5L));
+        when(snapshotRepository.findLatest(anyCollection(), any())).thenReturn(List.of());
+        when(productRepository.findQuantities(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> row(id, 1)).toList();
+        });
+
+        assertEquals(3, snapshots.takeSnapshots(at("2024-03-15T09:00")));
+        verify(productRepository, never()).findIdsAfter(eq(5L), any(Pageable.class));
+        verify(transactionRepository, never()).sumDeltas(anyList(), any(), any());
+    }
+}
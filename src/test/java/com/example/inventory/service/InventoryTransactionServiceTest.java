@@ -0,0 +1,84 @@
+package com.example.inventory.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.TransactionType;
+import com.example.inventory.repository.InventoryTransactionRepository;
+
+class InventoryTransactionServiceTest {
+
+    @Mock
+    private InventoryTransactionRepository repository;
+
+    @Mock
+    private InventoryLedger ledger;
+
+    @Mock
+    private ProductService productService;
+
+    @InjectMocks
+    private InventoryTransactionService transactionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Test Product");
+        when(productService.getProductById(1L)).thenReturn(product);
+    }
+
+    @Test
+    void testReceiptRestocksAndRecords() {
+        transactionService.post(1L, TransactionType.RECEIPT, 5, "Delivery", null);
+
+        verify(productService).restock(1L, 5);
+        verify(ledger).record(1L, TransactionType.RECEIPT, 5, "Delivery", null);
+    }
+
+    @Test
+    void testSaleTakesStockAndRecordsNegativeDelta() {
+        when(productService.tryDecrementStock(1L, 3)).thenReturn(true);
+
+        transactionService.post(1L, TransactionType.SALE, 3, "Counter sale", null);
+
+        verify(ledger).record(1L, TransactionType.SALE, -3, "Counter sale", null);
+    }
+
+    @Test
+    void testSaleBeyondStockFailsWithoutLedgerRow() {
+        when(productService.tryDecrementStock(1L, 30)).thenReturn(false);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> transactionService.post(1L, TransactionType.SALE, 30, null, null));
+
+        assertEquals("Insufficient inventory for product: Test Product", ex.getMessage());
+        verify(ledger, never()).record(anyLong(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void testAdjustmentTakesSignedQuantity() {
+        when(productService.tryDecrementStock(1L, 2)).thenReturn(true);
+
+        transactionService.post(1L, TransactionType.ADJUSTMENT, -2, "Damaged", null);
+
+        verify(ledger).record(1L, TransactionType.ADJUSTMENT, -2, "Damaged", null);
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.post(1L, TransactionType.ADJUSTMENT, 0, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.post(1L, TransactionType.RETURN, -1, null, null));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.inventory.service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import com.example.inventory.entity.Product;
+
+class KeysetSortsTest {
+
+    private final KeysetSorts<Product> sorts = new KeysetSorts<Product>(Product::getId, "name")
+            .add("name", Product::getName, value -> value)
+            .add("price", Product::getPrice, Double::valueOf)
+            .add("createdAt", Product::getCreatedAt, KeysetSorts::parseTimestamp);
+
+    private final List<Object[]> calls = new ArrayList<>();
+
+    private static Product product(long id, String name, double price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(price);
+        return product;
+    }
+
+    private KeysetSorts.Scroller<Product> returning(boolean hasNext, Product... rows) {
+        return (position, sort, limit) -> {
+            calls.add(new Object[] { position, sort, limit });
+            return Window.from(List.of(rows), ScrollPosition::offset, hasNext);
+        };
+    }
+
+    @Test
+    void testFirstPageSeeksFromTheStart() {
+        KeysetRequest request = new KeysetRequest();
+        request.setSize(2);
+
+        KeysetPage<Product> page = sorts.page(request, returning(true, product(3, "Bolt", 1), product(1, "Nut", 2)),
+                () -> { throw new AssertionError("not counted"); });
+
+        KeysetScrollPosition position = (KeysetScrollPosition) calls.get(0)[0];
+        assertTrue(position.isInitial());
+        assertEquals(Sort.by("name").ascending().and(Sort.by("id").ascending()), calls.get(0)[1]);
+        assertEquals(2, ((Limit) calls.get(0)[2]).max());
+        assertFalse(page.hasPrevious());
+        assertEquals("Nut", page.getNext().getValue());
+        assertEquals(1L, page.getNext().getId());
+        assertNull(page.getTotal());
+    }
+
+    @Test
+    void testPageAfterCursorSeeksForward() {
+        KeysetRequest request = new KeysetRequest();
+        request.setSortField("price");
+        request.setSortDir("desc");
+        request.setAfter("9.5");
+        request.setAfterId(7L);
+
+        KeysetPage<Product> page = sorts.page(request, returning(false, product(4, "Washer", 9.5)), () -> 0);
+
+        KeysetScrollPosition position = (KeysetScrollPosition) calls.get(0)[0];
+        assertFalse(position.scrollsBackward());
+        assertEquals(Map.of("price", 9.5, "id", 7L), position.getKeys());
+        assertEquals(Sort.by("price").descending().and(Sort.by("id").descending()), calls.get(0)[1]);
+        assertEquals("9.5", page.getPrevious().getValue());
+        assertEquals(4L, page.getPrevious().getId());
+        assertFalse(page.hasNext());
+        assertEquals("desc", page.getSortDir());
+    }
+
+    @Test
+    void testPageBeforeCursorSeeksBackward() {
+        KeysetRequest request = new KeysetRequest();
+        request.setBefore("Nut");
+        request.setBeforeId(1L);
+
+        KeysetPage<Product> page = sorts.page(request, returning(false, product(3, "Bolt", 1)), () -> 0);
+
+        assertTrue(((KeysetScrollPosition) calls.get(0)[0]).scrollsBackward());
+        // nothing further back: this is the first page again
+        assertFalse(page.hasPrevious());
+        assertEquals("Bolt", page.getNext().getValue());
+    }
+
+    @Test
+    void testTimestampCursorKeepsNanoseconds() {
+        Product product = product(1, "Bolt", 1);
+        Timestamp created = Timestamp.valueOf("2024-05-01 10:15:30.123456");
+        product.setCreatedAt(created);
+        KeysetRequest request = new KeysetRequest();
+        request.setSortField("createdAt");
+
+        KeysetPage<Product> page = sorts.page(request, returning(true, product), () -> 0);
+
+        assertEquals(created, KeysetSorts.parseTimestamp(page.getNext().getValue()));
+    }
+
+    @Test
+    void testCountAndSizeLimit() {
+        KeysetRequest request = new KeysetRequest();
+        request.setSize(10_000);
+        request.setCount(true);
+
+        KeysetPage<Product> page = sorts.page(request, returning(false), () -> 42);
+
+        assertEquals(KeysetSorts.MAX_PAGE_SIZE, ((Limit) calls.get(0)[2]).max());
+        assertEquals(42L, page.getTotal());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void testOnlyListedFieldsAndReadableCursorsAreAccepted() {
+        KeysetRequest unknown = new KeysetRequest();
+        unknown.setSortField("description");
+        assertThrows(IllegalArgumentException.class, () -> sorts.page(unknown, returning(false), () -> 0));
+
+        KeysetRequest badCursor = new KeysetRequest();
+        badCursor.setSortField("price");
+        badCursor.setAfter("cheap");
+        badCursor.setAfterId(1L);
+        assertThrows(IllegalArgumentException.class, () -> sorts.page(badCursor, returning(false), () -> 0));
+        assertTrue(calls.isEmpty());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.entity.Product;
+import com.example.inventory.repository.OrderRepository;
+
+class OrderBulkServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private OrderHistoryRecorder historyRecorder;
+
+    @Mock
+    private InventoryLedger ledger;
+
+    private OrderBulkService bulkService;
+    private List<Object[]> rows;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        bulkService = new OrderBulkService(orderRepository,
+                new OrderTransitionEngine(productService, reservationService, historyRecorder, ledger),
+                TransactionOperations.withoutTransaction(), 2);
+        rows = new ArrayList<>();
+        when(orderRepository.findStatusRowsByIdIn(anyCollection())).thenReturn(rows);
+        when(orderRepository.updateStatus(anyCollection(), any(), any()))
+                .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+        when(productService.tryDecrementStock(anyLong(), anyInt(), anyLong())).thenReturn(true);
+        when(productService.getProductById(anyLong())).thenAnswer(invocation -> {
+            Product product = new Product();
+            product.setId(invocation.getArgument(0));
+            product.setName("Product " + invocation.getArgument(0));
+            product.setQuantity(100);
+            return product;
+        });
+    }
+
+    private void row(long id, OrderStatus status, Long productId, int quantity) {
+        rows.add(new Object[] {id, status, productId, quantity});
+    }
+
+    @Test
+    void testConfirmAggregatesStockPerProduct() {
+        row(1, OrderStatus.PENDING, 10L, 2);
+        row(2, OrderStatus.PENDING, 10L, 3);
+        row(3, OrderStatus.PENDING, 20L, 1);
+
+        int updated = bulkService.transition(Arrays.asList(1L, 2L, 3L), OrderStatus.CONFIRMED, "admin");
+
+        assertEquals(3, updated);
+        // chunk size 2: orders 1 and 2 share a chunk and a single decrement
+        verify(productService, times(1)).tryDecrementStock(10L, 5, 0L);
+        verify(productService, times(1)).tryDecrementStock(20L, 1, 0L);
+        verify(reservationService).releaseAll(List.of(1L, 2L));
+        verify(reservationService).releaseAll(List.of(3L));
+        verify(orderRepository, times(2)).updateStatus(anyCollection(), eq(OrderStatus.PENDING), eq(OrderStatus.CONFIRMED));
+        verify(historyRecorder, times(3)).record(anyLong(), eq(OrderStatus.PENDING), eq(OrderStatus.CONFIRMED),
+                eq("admin"), eq("Bulk status change"));
+    }
+
+    @Test
+    void testInvalidTransitionRejectsWholeRequest() {
+        row(1, OrderStatus.CONFIRMED, 10L, 2);
+        row(2, OrderStatus.COMPLETED, 10L, 3);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> bulkService.transition(Arrays.asList(1L, 2L, 99L), OrderStatus.SHIPPED, "admin"));
+
+        assertTrue(ex.getMessage().contains("order 2 is COMPLETED"));
+        assertTrue(ex.getMessage().contains("order 99 not found"));
+        verify(orderRepository, never()).updateStatus(anyCollection(), any(), any());
+        verify(productService, never()).tryDecrementStock(anyLong(), anyInt(), anyLong());
+    }
+
+    @Test
+    void testCancelRestocksOnlyConfirmedOrders() {
+        row(1, OrderStatus.CONFIRMED, 10L, 2);
+        row(2, OrderStatus.PENDING, 10L, 3);
+
+        bulkService.transition(Arrays.asList(1L, 2L), OrderStatus.CANCELLED, "admin");
+
+        verify(productService, times(1)).restock(10L, 2);
+        verify(orderRepository).updateStatus(List.of(1L), OrderStatus.CONFIRMED, OrderStatus.CANCELLED);
+        verify(orderRepository).updateStatus(List.of(2L), OrderStatus.PENDING, OrderStatus.CANCELLED);
+    }
+
+    @Test
+    void testCancellingShippedOrdersRestocks() {
+        row(1, OrderStatus.SHIPPED, 10L, 2);
+        row(2, OrderStatus.SHIPPED, 10L, 3);
+
+        bulkService.transition(Arrays.asList(1L, 2L), OrderStatus.CANCELLED, "admin");
+
+        verify(productService, times(1)).restock(10L, 5);
+        verify(reservationService, never()).releaseAll(anyCollection());
+    }
+
+    @Test
+    void testOrdersAlreadyAtTargetAreSkipped() {
+        row(1, OrderStatus.SHIPPED, 10L, 2);
+        row(2, OrderStatus.CONFIRMED, 10L, 3);
+
+        int updated = bulkService.transition(Arrays.asList(1L, 2L), OrderStatus.SHIPPED, "admin");
+
+        assertEquals(1, updated);
+        verify(orderRepository).updateStatus(List.of(2L), OrderStatus.CONFIRMED, OrderStatus.SHIPPED);
+        verify(productService, never()).tryDecrementStock(anyLong(), anyInt(), anyLong());
+    }
+
+    @Test
+    void testInsufficientStockFailsChunk() {
+        row(1, OrderStatus.PENDING, 10L, 2);
+        Product product = new Product();
+        product.setName("Widget");
+        when(productService.tryDecrementStock(10L, 2, 0L)).thenReturn(false);
+        when(productService.getProductById(10L)).thenReturn(product);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> bulkService.transition(List.of(1L), OrderStatus.CONFIRMED, "admin"));
+
+        assertEquals("Insufficient inventory for product: Widget", ex.getMessage());
+        verify(historyRecorder, never()).record(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testConcurrentStatusChangeFailsChunk() {
+        row(1, OrderStatus.CONFIRMED, 10L, 2);
+        when(orderRepository.updateStatus(anyCollection(), any(), any())).thenReturn(0);
+
+        assertThrows(IllegalStateException.class,
+                () -> bulkService.transition(List.of(1L), OrderStatus.SHIPPED, "admin"));
+    }
+}
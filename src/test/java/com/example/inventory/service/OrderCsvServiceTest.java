@@ -3,14 +3,20 @@ package com.example.inventory.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.mock.web.MockMultipartFile;
@@ -32,7 +38,6 @@ class OrderCsvServiceTest {
     @Mock
     private SupplierService supplierService;
 
-    @InjectMocks
     private OrderCsvService orderCsvService;
 
     private List<Order> testOrders;
@@ -42,6 +47,7 @@ class OrderCsvServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        orderCsvService = new OrderCsvService(orderService, productService, supplierService, 2);
 
         testProduct = new Product();
         testProduct.setId(1L);
@@ -93,6 +99,91 @@ class OrderCsvServiceTest {
         assertTrue(csvContent.contains("Product"));
     }
 
+    @Test
+    void testPartitionedExportMatchesSequentialExport() throws IOException {
+        when(orderService.getAllOrders()).thenReturn(testOrders);
+        stubIdRangeQueries();
+
+        byte[] sequential = orderCsvService.exportOrdersToCsv().toByteArray();
+        for (int partitions = 1; partitions <= 4; partitions++) {
+            ByteArrayOutputStream partitioned = new ByteArrayOutputStream();
+            orderCsvService.exportOrdersToCsvPartitioned(partitioned, partitions);
+
+            assertArrayEquals(sequential, partitioned.toByteArray(), "partitions=" + partitions);
+        }
+    }
+
+    @Test
+    void testPartitionedExportOfEmptyTable() throws IOException {
+        when(orderService.getAllOrders()).thenReturn(new ArrayList<>());
+        when(orderService.getOrderIdRange()).thenReturn(null);
+
+        ByteArrayOutputStream partitioned = new ByteArrayOutputStream();
+        orderCsvService.exportOrdersToCsvPartitioned(partitioned, 4);
+
+        assertArrayEquals(orderCsvService.exportOrdersToCsv().toByteArray(), partitioned.toByteArray());
+    }
+
+    @Test
+    void testPartitionIsWrittenWhileLaterPartitionsAreStillReading() throws IOException {
+        when(orderService.getAllOrders()).thenReturn(testOrders.subList(0, 2));
+        when(orderService.getOrderIdRange()).thenReturn(new long[] {1L, 2L});
+        CountDownLatch firstPartWritten = new CountDownLatch(1);
+        AtomicBoolean overlapped = new AtomicBoolean();
+        when(orderService.getOrdersInIdRange(1L, 1L)).thenReturn(testOrders.subList(0, 1));
+        when(orderService.getOrdersInIdRange(2L, 2L)).thenAnswer(invocation -> {
+            // the second partition only finishes once the first one has reached the output
+            overlapped.set(firstPartWritten.await(5, TimeUnit.SECONDS));
+            return testOrders.subList(1, 2);
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                super.write(b, off, len);
+                if (toString().contains("Test Product")) {
+                    firstPartWritten.countDown();
+                }
+            }
+        };
+
+        orderCsvService.exportOrdersToCsvPartitioned(out, 2);
+
+        assertTrue(overlapped.get());
+        assertArrayEquals(orderCsvService.exportOrdersToCsv().toByteArray(), out.toByteArray());
+    }
+
+    @Test
+    void testArchiveExportPartsConcatenateToSequentialExport() throws IOException {
+        when(orderService.getAllOrders()).thenReturn(testOrders);
+        stubIdRangeQueries();
+
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        orderCsvService.exportOrdersToCsvArchive(archive, 3);
+
+        ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+        int entries = 0;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                zip.transferTo(concatenated);
+                entries++;
+            }
+        }
+
+        assertEquals(3, entries);
+        assertArrayEquals(orderCsvService.exportOrdersToCsv().toByteArray(), concatenated.toByteArray());
+    }
+
+    private void stubIdRangeQueries() {
+        when(orderService.getOrderIdRange()).thenReturn(new long[] {1L, 3L});
+        when(orderService.getOrdersInIdRange(anyLong(), anyLong())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            long to = invocation.getArgument(1);
+            return testOrders.stream()
+                    .filter(o -> o.getId() >= from && o.getId() <= to)
+                    .collect(Collectors.toList());
+        });
+    }
+
     @Test
     void testImportOrdersWithValidCsv() throws IOException {
         String csvContent = "Product,Quantity,Status,Supplier\n" +
@@ -0,0 +1,134 @@
+package com.example.inventory.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.service.OrderHistoryRecorder.OverflowPolicy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OrderHistoryRecorderTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private OrderHistoryRecorder recorder(long capacity, OverflowPolicy policy) {
+        return new OrderHistoryRecorder(jdbcTemplate, TransactionOperations.withoutTransaction(),
+                new SimpleMeterRegistry(), capacity, 2, policy);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+        for (TransactionSynchronization sync : syncs) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                sync.beforeCommit(false);
+            }
+        }
+        for (TransactionSynchronization sync : syncs) {
+            sync.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEventsInTransactionAreWrittenAsOneBatchAtCommit() {
+        OrderHistoryRecorder recorder = recorder(100, OverflowPolicy.WRITE_THROUGH);
+        TransactionSynchronizationManager.initSynchronization();
+
+        recorder.record(1L, null, OrderStatus.PENDING, null, "Status changed");
+        recorder.record(2L, OrderStatus.PENDING, OrderStatus.CONFIRMED, "admin", "Status changed");
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(OrderHistoryRecorder.INSERT_OUTBOX), batch.capture());
+        assertEquals(2, batch.getValue().size());
+        assertEquals("CONFIRMED", batch.getValue().get(1)[2]);
+        assertEquals(2, recorder.getPendingCount());
+    }
+
+    @Test
+    void testRolledBackEventsAreDropped() {
+        OrderHistoryRecorder recorder = recorder(100, OverflowPolicy.WRITE_THROUGH);
+        TransactionSynchronizationManager.initSynchronization();
+
+        recorder.record(1L, null, OrderStatus.PENDING, null, "Status changed");
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        assertEquals(0, recorder.getPendingCount());
+    }
+
+    @Test
+    void testFullOutboxWritesThrough() {
+        OrderHistoryRecorder recorder = recorder(1, OverflowPolicy.WRITE_THROUGH);
+        recorder.record(1L, null, OrderStatus.PENDING, null, "Status changed");
+
+        recorder.record(2L, null, OrderStatus.PENDING, null, "Status changed");
+
+        verify(jdbcTemplate).update(eq(OrderHistoryRecorder.INSERT_OUTBOX), any(Object[].class));
+        verify(jdbcTemplate).update(eq(OrderHistoryRecorder.INSERT_HISTORY), any(Object[].class));
+        assertEquals(1, recorder.getPendingCount());
+    }
+
+    @Test
+    void testFullOutboxRejects() {
+        OrderHistoryRecorder recorder = recorder(1, OverflowPolicy.REJECT);
+        recorder.record(1L, null, OrderStatus.PENDING, null, "Status changed");
+
+        assertThrows(IllegalStateException.class,
+                () -> recorder.record(2L, null, OrderStatus.PENDING, null, "Status changed"));
+        verify(jdbcTemplate, never()).update(eq(OrderHistoryRecorder.INSERT_HISTORY), any(Object[].class));
+    }
+
+    @Test
+    void testRelayMovesBatchesUntilOutboxIsDrained() {
+        OrderHistoryRecorder recorder = recorder(100, OverflowPolicy.WRITE_THROUGH);
+        recorder.record(1L, null, OrderStatus.PENDING, null, "Status changed");
+        recorder.record(2L, null, OrderStatus.PENDING, null, "Status changed");
+        recorder.record(3L, null, OrderStatus.PENDING, null, "Status changed");
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(10L, 11L), List.of(12L));
+        when(jdbcTemplate.update(
+                eq("delete from order_history_outbox where id in (?,?)"), any(Object[].class))).thenReturn(2);
+        when(jdbcTemplate.update(
+                eq("delete from order_history_outbox where id in (?)"), any(Object[].class))).thenReturn(1);
+
+        assertEquals(3, recorder.relay());
+        assertEquals(0, recorder.getPendingCount());
+    }
+}
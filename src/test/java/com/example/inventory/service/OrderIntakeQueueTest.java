@@ -0,0 +1,181 @@
+package com.example.inventory.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.example.inventory.entity.Order;
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.entity.Product;
+import com.example.inventory.repository.OrderRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OrderIntakeQueueTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private OrderHistoryRecorder historyRecorder;
+
+    @Mock
+    private InventoryLedger ledger;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderIntakeQueue intake;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        intake = intake(100);
+
+        product = new Product();
+        product.setId(1L);
+        product.setName("Test Product");
+        product.setQuantity(10);
+        product.setPrice(2.0);
+        when(productService.getProductById(1L)).thenReturn(product);
+        when(reservationService.getAvailableToPromise(product)).thenReturn(10);
+        when(productService.tryDecrementStock(anyLong(), anyInt(), anyLong())).thenReturn(true);
+        AtomicLong ids = new AtomicLong();
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(ids.incrementAndGet());
+            return order;
+        });
+    }
+
+    private OrderIntakeQueue intake(int maxBatch) {
+        return new OrderIntakeQueue(orderService, orderRepository, productService, reservationService,
+                new OrderTransitionEngine(productService, reservationService, historyRecorder, ledger), idempotencyService, new ProductLockManager(meterRegistry, 16, 1000),
+                TransactionOperations.withoutTransaction(), meterRegistry, true, maxBatch, 0, 100);
+    }
+
+    private static Order order(OrderStatus status, int quantity) {
+        Product ref = new Product();
+        ref.setId(1L);
+        Order order = new Order();
+        order.setProduct(ref);
+        order.setQuantity(quantity);
+        order.setStatus(status);
+        return order;
+    }
+
+    @Test
+    void testGroupIsWrittenInOneCommitWithOneStockUpdatePerProduct() throws Exception {
+        CompletableFuture<Order> first = intake.submitAsync(order(OrderStatus.CONFIRMED, 2), null);
+        CompletableFuture<Order> second = intake.submitAsync(order(OrderStatus.CONFIRMED, 3), null);
+        CompletableFuture<Order> third = intake.submitAsync(order(OrderStatus.PENDING, 1), null);
+
+        assertEquals(3, intake.commitNext(0));
+
+        assertEquals(1L, first.get().getId());
+        assertEquals(6.0, second.get().getTotalPrice());
+        assertEquals(3L, third.get().getId());
+        verify(productService, times(1)).tryDecrementStock(1L, 5, 0L);
+        verify(reservationService, times(1)).hold(third.get(), product, 1);
+        verify(historyRecorder, times(3)).record(anyLong(), any(), any(), any(), any());
+        assertEquals(1.0, meterRegistry.counter("inventory.intake.commits").count());
+        assertEquals(3.0, meterRegistry.counter("inventory.intake.orders").count());
+    }
+
+    @Test
+    void testOrderThatDoesNotFitFailsAlone() throws Exception {
+        CompletableFuture<Order> first = intake.submitAsync(order(OrderStatus.CONFIRMED, 6), null);
+        CompletableFuture<Order> second = intake.submitAsync(order(OrderStatus.CONFIRMED, 6), null);
+        CompletableFuture<Order> third = intake.submitAsync(order(OrderStatus.PENDING, 4), null);
+
+        intake.commitNext(0);
+
+        assertEquals(OrderStatus.CONFIRMED, first.get().getStatus());
+        CompletionException ex = assertThrows(CompletionException.class, second::join);
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+        assertEquals(OrderStatus.PENDING, third.get().getStatus());
+        verify(productService, times(1)).tryDecrementStock(1L, 6, 0L);
+        verify(orderRepository, times(2)).save(any(Order.class));
+    }
+
+    @Test
+    void testFailedGroupIsReplayedOneByOne() throws Exception {
+        when(productService.tryDecrementStock(1L, 5, 0L)).thenReturn(false);
+        Order replayed = new Order();
+        when(orderService.saveOrUpdateOrder(any(Order.class), any())).thenReturn(replayed);
+        CompletableFuture<Order> first = intake.submitAsync(order(OrderStatus.CONFIRMED, 2), null);
+        CompletableFuture<Order> second = intake.submitAsync(order(OrderStatus.CONFIRMED, 3), null);
+
+        intake.commitNext(0);
+
+        assertEquals(replayed, first.join());
+        assertEquals(replayed, second.join());
+        verify(orderService, times(2)).saveOrUpdateOrder(any(Order.class), any());
+        verify(orderRepository, never()).save(any(Order.class));
+        assertEquals(1.0, meterRegistry.counter("inventory.intake.fallbacks").count());
+    }
+
+    @Test
+    void testGroupIsCappedAtMaxBatch() throws Exception {
+        intake = intake(2);
+        for (int i = 0; i < 5; i++) {
+            intake.submitAsync(order(OrderStatus.PENDING, 1), null);
+        }
+
+        assertEquals(2, intake.commitNext(0));
+        assertEquals(2, intake.commitNext(0));
+        assertEquals(1, intake.commitNext(0));
+        assertEquals(0, intake.commitNext(0));
+    }
+
+    @Test
+    void testKnownIdempotencyKeyIsAnsweredWithoutQueueing() {
+        Order original = new Order();
+        when(idempotencyService.normalize("key-1")).thenReturn("key-1");
+        when(idempotencyService.findOrderId("key-1")).thenReturn(7L);
+        when(orderService.getOrderById(7L)).thenReturn(original);
+
+        CompletableFuture<Order> result = intake.submitAsync(order(OrderStatus.PENDING, 1), "key-1");
+
+        assertTrue(result.isDone());
+        assertEquals(original, result.join());
+    }
+
+    @Test
+    void testSubmitGoesStraightToOrderServiceWhenNotRunning() {
+        Order order = order(OrderStatus.PENDING, 1);
+
+        intake.submit(order, "key-1");
+
+        verify(orderService, times(1)).saveOrUpdateOrder(order, "key-1");
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.inventory.entity.Category;
+import com.example.inventory.entity.Order;
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.entity.Product;
+import com.example.inventory.repository.CategoryRepository;
+import com.example.inventory.repository.ProductRepository;
+
+/**
+ * Hammers one product with concurrent confirmations against the real database and checks
+ * that exactly the available stock is sold.
+ */
+@SpringBootTest
+class OrderServiceConcurrencyTest {
+
+    private static final int STOCK = 50;
+    private static final int ATTEMPTS = 200;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+    private Product product;
+    private final ConcurrentLinkedQueue<Long> orderIds = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        category = new Category();
+        category.setName("Stress Test Category");
+        category = categoryRepository.save(category);
+
+        product = new Product();
+        product.setName("Stress Test Product");
+        product.setQuantity(STOCK);
+        product.setPrice(1.0);
+        product.setCategory(category);
+        product = productRepository.save(product);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (Long id : orderIds) {
+            jdbcTemplate.update("delete from order_history_outbox where order_id = ?", id);
+            jdbcTemplate.update("delete from order_history where order_id = ?", id);
+            jdbcTemplate.update("delete from orders where id = ?", id);
+        }
+        jdbcTemplate.update("delete from inventory_transaction where product_id = ?", product.getId());
+        productRepository.deleteById(product.getId());
+        categoryRepository.deleteById(category.getId());
+    }
+
+    @Test
+    void testConcurrentConfirmationsNeverOversell() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < ATTEMPTS; i++) {
+            futures.add(pool.submit(() -> {
+                Product ref = new Product();
+                ref.setId(product.getId());
+                Order order = new Order();
+                order.setProduct(ref);
+                order.setQuantity(1);
+                order.setStatus(OrderStatus.CONFIRMED);
+                start.await();
+                try {
+                    orderIds.add(orderService.saveOrUpdateOrder(order).getId());
+                    confirmed.incrementAndGet();
+                } catch (IllegalStateException ex) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(STOCK, confirmed.get());
+        assertEquals(ATTEMPTS - STOCK, rejected.get());
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getQuantity());
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.inventory.entity.Category;
+import com.example.inventory.entity.Order;
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.Supplier;
+import com.example.inventory.repository.CategoryRepository;
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.repository.SupplierRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the statements Hibernate prepares for one order save against the real database.
+ * The history event and the stock UPDATE are plain JDBC and are not included.
+ * Statistics are global, so the reservation sweep is pushed out of the way. Each test starts with
+ * an empty second-level cache so the counts do not depend on what earlier tests cached.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "inventory.reservations.sweep-interval-ms=3600000"
+})
+class OrderServiceStatementCountTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ProductPriceCache priceCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private Category category;
+    private Product product;
+    private Supplier supplier;
+    private Product otherProduct;
+    private Long orderId;
+    private final List<Long> pageOrderIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        category = new Category();
+        category.setName("Statement Count Category");
+        category = categoryRepository.save(category);
+
+        product = new Product();
+        product.setName("Statement Count Product");
+        product.setQuantity(100);
+        product.setPrice(2.0);
+        product.setCategory(category);
+        product = productRepository.save(product);
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (orderId != null) {
+            jdbcTemplate.update("delete from order_history_outbox where order_id = ?", orderId);
+            jdbcTemplate.update("delete from order_history where order_id = ?", orderId);
+            jdbcTemplate.update("delete from orders where id = ?", orderId);
+        }
+        for (Long id : pageOrderIds) {
+            jdbcTemplate.update("delete from order_history_outbox where order_id = ?", id);
+            jdbcTemplate.update("delete from order_history where order_id = ?", id);
+            jdbcTemplate.update("delete from orders where id = ?", id);
+        }
+        if (supplier != null) {
+            supplierRepository.deleteById(supplier.getId());
+        }
+        jdbcTemplate.update("delete from inventory_transaction where product_id = ?", product.getId());
+        productRepository.deleteById(product.getId());
+        priceCache.productDeleted(product.getId());
+        if (otherProduct != null) {
+            jdbcTemplate.update("delete from inventory_transaction where product_id = ?", otherProduct.getId());
+            productRepository.deleteById(otherProduct.getId());
+        }
+        categoryRepository.deleteById(category.getId());
+    }
+
+    private Order submitted(Long id, OrderStatus status) {
+        return submitted(product, id, status);
+    }
+
+    private Order submitted(Product orderedProduct, Long id, OrderStatus status) {
+        Product ref = new Product();
+        ref.setId(orderedProduct.getId());
+        Order order = new Order();
+        order.setId(id);
+        order.setProduct(ref);
+        order.setQuantity(3);
+        order.setStatus(status);
+        return order;
+    }
+
+    @Test
+    void testNewConfirmedOrderTakesTwoHibernateStatements() {
+        statistics.clear();
+
+        orderId = orderService.saveOrUpdateOrder(submitted(null, OrderStatus.CONFIRMED)).getId();
+
+        // product lookup, order INSERT; the conditional stock UPDATE goes through JDBC
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testNewConfirmedOrderOfCachedPriceNeverLoadsTheProduct() {
+        priceCache.priceChanged(product.getId(), product.getPrice());
+        statistics.clear();
+
+        orderId = orderService.saveOrUpdateOrder(submitted(null, OrderStatus.CONFIRMED)).getId();
+
+        // only the order INSERT: the price comes from the cache and the JDBC stock UPDATE checks the holds
+        assertEquals(0, statistics.getEntityFetchCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(97, productRepository.findQuantityById(product.getId()));
+    }
+
+    @Test
+    void testStatusChangeTakesOneReadAndOneWrite() {
+        orderId = orderService.saveOrUpdateOrder(submitted(null, OrderStatus.CONFIRMED)).getId();
+        statistics.clear();
+
+        orderService.saveOrUpdateOrder(submitted(orderId, OrderStatus.SHIPPED));
+
+        // fetch-joined order + product read, order UPDATE at commit
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryExecutionCount());
+    }
+
+    @Test
+    void testOrdersPageReadsProductAndSupplierFromSecondLevelCache() {
+        supplier = new Supplier();
+        supplier.setName("Statement Count Supplier");
+        supplier.setAddress("1 Cache Street");
+        supplier.setContactNumber("555-0100");
+        supplier = supplierRepository.save(supplier);
+        otherProduct = new Product();
+        otherProduct.setName("Statement Count Other Product");
+        otherProduct.setQuantity(100);
+        otherProduct.setPrice(3.0);
+        otherProduct.setCategory(category);
+        otherProduct = productRepository.save(otherProduct);
+        // older than the page, so confirming it below moves stock the page does not show
+        Long otherOrderId = orderService.saveOrUpdateOrder(submitted(otherProduct, null, OrderStatus.PENDING)).getId();
+        pageOrderIds.add(otherOrderId);
+        for (int i = 0; i < 3; i++) {
+            Order order = submitted(null, OrderStatus.PENDING);
+            order.setSupplier(supplier);
+            pageOrderIds.add(orderService.saveOrUpdateOrder(order).getId());
+        }
+        PageRequest newestTwo = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id"));
+
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+        orderService.getOrders(newestTwo);
+        long coldStatements = statistics.getPrepareStatementCount();
+        // the eager product (with its category) and supplier each cost a SELECT
+        assertTrue(statistics.getEntityFetchCount() >= 2);
+
+        // a stock move on another product evicts only that product, not the whole region
+        orderService.saveOrUpdateOrder(submitted(otherProduct, otherOrderId, OrderStatus.CONFIRMED));
+        assertEquals(97, productRepository.findQuantityById(otherProduct.getId()));
+
+        statistics.clear();
+        orderService.getOrders(newestTwo);
+
+        // only the page query and its count query are left
+        assertEquals(0, statistics.getEntityFetchCount());
+        assertEquals(statistics.getQueryExecutionCount(), statistics.getPrepareStatementCount());
+        assertTrue(statistics.getPrepareStatementCount() <= coldStatements - 2);
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 2);
+    }
+}
@@ -10,31 +10,63 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
-
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.example.inventory.entity.IdempotencyKey;
 import com.example.inventory.entity.Order;
 import com.example.inventory.entity.OrderStatus;
 import com.example.inventory.entity.Product;
-import com.example.inventory.repository.OrderHistoryRepository;
 import com.example.inventory.repository.OrderRepository;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 class OrderServiceTest {
 
     @Mock
     private OrderRepository orderRepository;
 
     @Mock
-    private OrderHistoryRepository orderHistoryRepository;
+    private OrderHistoryRecorder historyRecorder;
+
+    @Mock
+    private InventoryLedger ledger;
 
     @Mock
     private ProductService productService;
 
-    @InjectMocks
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Spy
+    private OptimisticLockRetry retry = new OptimisticLockRetry(
+            TransactionOperations.withoutTransaction(), new SimpleMeterRegistry(), 3, 0, 0);
+
+    @Spy
+    private ProductLockManager productLocks = new ProductLockManager(new SimpleMeterRegistry(), 16, 1000);
+
+    private ProductPriceCache priceCache;
+
     private OrderService orderService;
 
     private Order testOrder;
@@ -43,6 +75,11 @@ class OrderServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        // a real, empty cache: products are looked up unless a test prices them
+        priceCache = new ProductPriceCache(null, new SimpleMeterRegistry());
+        orderService = new OrderService(orderRepository,
+                new OrderTransitionEngine(productService, reservationService, historyRecorder, ledger),
+                productService, retry, productLocks, reservationService, idempotencyService, priceCache);
 
         // Create test product
         testProduct = new Product();
@@ -61,6 +98,7 @@ class OrderServiceTest {
 
         // Mock ProductService
         when(productService.getProductById(1L)).thenReturn(testProduct);
+        when(productService.tryDecrementStock(anyLong(), anyInt(), anyLong())).thenReturn(true);
     }
 
     @Test
@@ -168,6 +206,269 @@ class OrderServiceTest {
         verify(orderRepository, times(1)).save(testOrder);
     }
 
+    @Test
+    void testConfirmationDecrementsStockAtomically() {
+        testOrder.setStatus(OrderStatus.CONFIRMED);
+        when(orderRepository.save(testOrder)).thenReturn(testOrder);
+
+        orderService.saveOrUpdateOrder(testOrder);
+
+        verify(productService, times(1)).tryDecrementStock(1L, 10, 0L);
+        verify(productService, never()).saveOrUpdateProduct(any());
+        verify(productLocks, times(1)).withLock(eq(1L), any());
+    }
+
+    @Test
+    void testOrderWithoutProductSkipsProductLock() {
+        testOrder.setProduct(null);
+        when(orderRepository.save(testOrder)).thenReturn(testOrder);
+
+        orderService.saveOrUpdateOrder(testOrder);
+
+        verify(productLocks, never()).withLock(any(), any());
+    }
+
+    @Test
+    void testShardedProductSkipsProductLock() {
+        testOrder.setStatus(OrderStatus.CONFIRMED);
+        when(productService.isStockSharded(1L)).thenReturn(true);
+        when(orderRepository.save(testOrder)).thenReturn(testOrder);
+
+        orderService.saveOrUpdateOrder(testOrder);
+
+        verify(productService, times(1)).tryDecrementStock(1L, 10, 0L);
+        verify(productLocks, never()).withLock(any(), any());
+    }
+
+    @Test
+    void testPendingOrderPlacesHold() {
+        when(orderRepository.save(testOrder)).thenReturn(testOrder);
+
+        orderService.saveOrUpdateOrder(testOrder);
+
+        verify(reservationService, times(1)).hold(testOrder, testProduct, 10);
+        verify(productService, never()).tryDecrementStock(anyLong(), anyInt(), anyLong());
+        verify(productLocks, times(1)).withLock(eq(1L), any());
+    }
+
+    @Test
+    void testConfirmationReleasesHoldBeforeTakingStock() {
+        Order existing = new Order();
+        existing.setId(1L);
+        existing.setProduct(testProduct);
+        existing.setQuantity(10);
+        existing.setStatus(OrderStatus.PENDING);
+        when(orderRepository.findWithProductById(1L)).thenReturn(Optional.of(existing));
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        testOrder.setStatus(OrderStatus.CONFIRMED);
+        orderService.saveOrUpdateOrder(testOrder);
+
+        InOrder inOrder = inOrder(reservationService, productService);
+        inOrder.verify(reservationService).releaseAll(List.of(1L));
+        inOrder.verify(reservationService).getHeldQuantity(1L);
+        inOrder.verify(productService).tryDecrementStock(1L, 10, 0L);
+        verify(reservationService, never()).hold(any(), any(), anyInt());
+    }
+
+    @Test
+    void testConfirmationFailsWhenStockHeldByOtherOrders() {
+        testOrder.setStatus(OrderStatus.CONFIRMED);
+        when(reservationService.getHeldQuantity(1L)).thenReturn(5L);
+        when(productService.tryDecrementStock(1L, 10, 5L)).thenReturn(false);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> orderService.saveOrUpdateOrder(testOrder));
+
+        // the held units are left to the conditional UPDATE; the product row is never read for them
+        assertEquals("Insufficient inventory for product: Test Product", ex.getMessage());
+        verify(reservationService, never()).checkAvailable(any(), anyInt());
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void testConfirmationFailsWhenStockInsufficient() {
+        testOrder.setStatus(OrderStatus.CONFIRMED);
+        when(productService.tryDecrementStock(1L, 10, 0L)).thenReturn(false);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> orderService.saveOrUpdateOrder(testOrder));
+
+        assertEquals("Insufficient inventory for product: Test Product", ex.getMessage());
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void testCancellingConfirmedOrderRestocks() {
+        Order existing = new Order();
+        existing.setId(1L);
+        existing.setProduct(testProduct);
+        existing.setQuantity(10);
+        existing.setStatus(OrderStatus.CONFIRMED);
+        when(orderRepository.findWithProductById(1L)).thenReturn(Optional.of(existing));
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        testOrder.setStatus(OrderStatus.CANCELLED);
+        Order saved = orderService.saveOrUpdateOrder(testOrder);
+
+        assertEquals(OrderStatus.CANCELLED, saved.getStatus());
+        verify(productService, times(1)).restock(1L, 10);
+        verify(productService, never()).tryDecrementStock(anyLong(), anyInt(), anyLong());
+        verify(historyRecorder, times(1)).record(1L, OrderStatus.CONFIRMED, OrderStatus.CANCELLED, null, "Status changed");
+    }
+
+    @Test
+    void testExistingOrderReusesFetchedProduct() {
+        Order existing = new Order();
+        existing.setId(1L);
+        existing.setProduct(testProduct);
+        existing.setQuantity(10);
+        existing.setStatus(OrderStatus.CONFIRMED);
+        when(orderRepository.findWithProductById(1L)).thenReturn(Optional.of(existing));
+        when(orderRepository.save(existing)).thenReturn(existing);
+
+        testOrder.setStatus(OrderStatus.SHIPPED);
+        orderService.saveOrUpdateOrder(testOrder);
+
+        verify(productService, never()).getProductById(anyLong());
+        verify(orderRepository, never()).findById(anyLong());
+        verify(reservationService, never()).releaseAll(any());
+    }
+
+    @Test
+    void testCachedPriceSparesProductLookup() {
+        priceCache.priceChanged(1L, 19.99);
+        Product reference = new Product();
+        reference.setId(1L);
+        when(productService.getProductReference(1L)).thenReturn(reference);
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        testOrder.setId(null);
+        testOrder.setQuantity(3);
+
+        Order saved = orderService.saveOrUpdateOrder(testOrder);
+
+        assertEquals(59.97, saved.getTotalPrice());
+        assertEquals(reference, saved.getProduct());
+        verify(productService, never()).getProductById(anyLong());
+        verify(reservationService, times(1)).hold(saved, reference, 3);
+    }
+
+    @Test
+    void testUncachedPriceLoadsProduct() {
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        testOrder.setId(null);
+
+        Order saved = orderService.saveOrUpdateOrder(testOrder);
+
+        assertEquals(500.0, saved.getTotalPrice());
+        verify(productService, times(1)).getProductById(1L);
+        verify(productService, never()).getProductReference(anyLong());
+    }
+
+    @Test
+    void testUpdateIsAppliedToManagedOrder() {
+        Order existing = new Order();
+        existing.setId(1L);
+        existing.setProduct(testProduct);
+        existing.setQuantity(10);
+        existing.setStatus(OrderStatus.PENDING);
+        existing.setVersion(7L);
+        when(orderRepository.findWithProductById(1L)).thenReturn(Optional.of(existing));
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        testOrder.setQuantity(4);
+        Order saved = orderService.saveOrUpdateOrder(testOrder);
+
+        assertEquals(existing, saved);
+        assertEquals(4, saved.getQuantity());
+        assertEquals(200.0, saved.getTotalPrice());
+        assertEquals(7L, saved.getVersion());
+    }
+
+    @Test
+    void testVersionConflictIsRetriedAgainstFreshState() {
+        Order confirmedMeanwhile = new Order();
+        confirmedMeanwhile.setId(1L);
+        confirmedMeanwhile.setProduct(testProduct);
+        confirmedMeanwhile.setQuantity(10);
+        confirmedMeanwhile.setStatus(OrderStatus.CONFIRMED);
+        when(orderRepository.findWithProductById(1L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(confirmedMeanwhile));
+        when(orderRepository.save(any()))
+                .thenThrow(new org.springframework.orm.ObjectOptimisticLockingFailureException(Order.class, 1L))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        testOrder.setStatus(OrderStatus.CONFIRMED);
+        Order saved = orderService.saveOrUpdateOrder(testOrder);
+
+        assertEquals(OrderStatus.CONFIRMED, saved.getStatus());
+        // the retry re-read the order as CONFIRMED by the concurrent writer, so it did not take stock again
+        verify(productService, times(1)).tryDecrementStock(1L, 10, 0L);
+        verify(orderRepository, times(2)).save(any());
+    }
+
+    @Test
+    void testNewOrderClaimsAndCompletesIdempotencyKey() {
+        testOrder.setId(null);
+        IdempotencyKey claim = new IdempotencyKey();
+        when(idempotencyService.normalize("key-1")).thenReturn("key-1");
+        when(idempotencyService.claim("key-1")).thenReturn(claim);
+        Order saved = new Order();
+        saved.setId(7L);
+        when(orderRepository.save(testOrder)).thenReturn(saved);
+
+        orderService.saveOrUpdateOrder(testOrder, "key-1");
+
+        InOrder order = inOrder(idempotencyService, orderRepository);
+        order.verify(idempotencyService).claim("key-1");
+        order.verify(orderRepository).save(testOrder);
+        order.verify(idempotencyService).complete(claim, 7L);
+    }
+
+    @Test
+    void testRetriedSubmissionReturnsOriginalOrder() {
+        testOrder.setId(null);
+        Order original = new Order();
+        original.setId(7L);
+        when(idempotencyService.normalize("key-1")).thenReturn("key-1");
+        when(idempotencyService.findOrderId("key-1")).thenReturn(7L);
+        when(orderRepository.findById(7L)).thenReturn(Optional.of(original));
+
+        Order result = orderService.saveOrUpdateOrder(testOrder, "key-1");
+
+        assertEquals(original, result);
+        verify(idempotencyService, never()).claim(any());
+        verify(orderRepository, never()).save(any());
+        verify(reservationService, never()).hold(any(), any(), anyInt());
+    }
+
+    @Test
+    void testConcurrentSubmissionWithSameKeyReturnsWinnersOrder() {
+        testOrder.setId(null);
+        Order original = new Order();
+        original.setId(7L);
+        when(idempotencyService.normalize("key-1")).thenReturn("key-1");
+        when(idempotencyService.findOrderId("key-1")).thenReturn(null, 7L);
+        when(idempotencyService.claim("key-1")).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(orderRepository.findById(7L)).thenReturn(Optional.of(original));
+
+        Order result = orderService.saveOrUpdateOrder(testOrder, "key-1");
+
+        assertEquals(original, result);
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void testIdempotencyKeyIsIgnoredForUpdates() {
+        when(orderRepository.save(testOrder)).thenReturn(testOrder);
+
+        orderService.saveOrUpdateOrder(testOrder, "key-1");
+
+        verify(idempotencyService, never()).normalize(any());
+        verify(idempotencyService, never()).claim(any());
+    }
+
     @Test
     void testOrderTotalPriceCalculation() {
         testOrder.setQuantity(5);
@@ -211,4 +512,26 @@ class OrderServiceTest {
         assertEquals(testProduct.getId(), result.get(0).getProduct().getId());
         assertEquals(testProduct.getId(), result.get(1).getProduct().getId());
     }
+
+    @Test
+    void testOrderPageIsNewestFirstWithoutCount() {
+        when(orderRepository.findAllBy(any(ScrollPosition.class), any(Sort.class), any(Limit.class)))
+                .thenReturn(Window.from(List.of(testOrder), ScrollPosition::offset, false));
+
+        KeysetPage<Order> page = orderService.getOrderPage(new KeysetRequest());
+
+        verify(orderRepository).findAllBy(any(ScrollPosition.class),
+                eq(Sort.by(Sort.Direction.DESC, "orderDate").and(Sort.by(Sort.Direction.DESC, "id"))), any(Limit.class));
+        verify(orderRepository, never()).count();
+        assertEquals(1, page.getContent().size());
+        assertNull(page.getTotal());
+    }
+
+    @Test
+    void testOrderPageOnlySortsOnIndexedFields() {
+        KeysetRequest request = new KeysetRequest();
+        request.setSortField("product.name");
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrderPage(request));
+    }
 }
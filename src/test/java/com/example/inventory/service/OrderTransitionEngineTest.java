@@ -0,0 +1,155 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+
+import com.example.inventory.entity.OrderStatus;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.TransactionType;
+import com.example.inventory.service.OrderTransitionEngine.Phase;
+
+class OrderTransitionEngineTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private OrderHistoryRecorder historyRecorder;
+
+    @Mock
+    private InventoryLedger ledger;
+
+    private OrderTransitionEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        engine = new OrderTransitionEngine(productService, reservationService, historyRecorder, ledger);
+        when(productService.tryDecrementStock(anyLong(), anyInt(), anyLong())).thenReturn(true);
+        when(productService.getProductById(anyLong())).thenAnswer(invocation -> {
+            Product product = new Product();
+            product.setId(invocation.getArgument(0));
+            product.setName("Product " + invocation.getArgument(0));
+            return product;
+        });
+    }
+
+    private static OrderTransition move(long orderId, OrderStatus from, OrderStatus to, long productId, int quantity) {
+        return new OrderTransition(orderId, from, to, productId, quantity, productId, quantity, "admin", "test");
+    }
+
+    @Test
+    void testTransitionTable() {
+        assertTrue(OrderStatus.PENDING.canTransitionTo(OrderStatus.CONFIRMED));
+        assertTrue(OrderStatus.SHIPPED.canTransitionTo(OrderStatus.CANCELLED));
+        assertFalse(OrderStatus.CONFIRMED.canTransitionTo(OrderStatus.PENDING));
+        assertFalse(OrderStatus.COMPLETED.canTransitionTo(OrderStatus.CANCELLED));
+        assertTrue(OrderStatus.CANCELLED.allowedTransitions().isEmpty());
+        assertTrue(engine.isAllowed(null, OrderStatus.SHIPPED));
+        assertTrue(engine.isAllowed(OrderStatus.COMPLETED, OrderStatus.COMPLETED));
+    }
+
+    @Test
+    void testValidateRejectsDisallowedTransition() {
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> engine.validate(List.of(move(5, OrderStatus.CONFIRMED, OrderStatus.PENDING, 1, 2))));
+
+        assertEquals("Cannot move order 5 from CONFIRMED to PENDING", ex.getMessage());
+    }
+
+    @Test
+    void testStockIsMovedOncePerProductForTheBatch() {
+        engine.apply(Phase.BEFORE_WRITE, List.of(
+                move(1, OrderStatus.PENDING, OrderStatus.CONFIRMED, 10, 2),
+                move(2, OrderStatus.PENDING, OrderStatus.CONFIRMED, 10, 3),
+                move(3, OrderStatus.PENDING, OrderStatus.CONFIRMED, 20, 1)));
+
+        verify(reservationService, times(1)).releaseAll(List.of(1L, 2L, 3L));
+        verify(productService, times(1)).tryDecrementStock(10L, 5, 0L);
+        verify(productService, times(1)).tryDecrementStock(20L, 1, 0L);
+        verify(historyRecorder, never()).record(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testLeavingCommittedStockRestocksFromAnyCommittedStatus() {
+        engine.apply(Phase.BEFORE_WRITE, List.of(
+                move(1, OrderStatus.CONFIRMED, OrderStatus.CANCELLED, 10, 2),
+                move(2, OrderStatus.SHIPPED, OrderStatus.CANCELLED, 10, 3)));
+
+        verify(productService, times(1)).restock(10L, 5);
+        verify(productService, never()).tryDecrementStock(anyLong(), anyInt(), anyLong());
+    }
+
+    @Test
+    void testQuantityEditOfConfirmedOrderMovesTheDifference() {
+        OrderTransition edit = new OrderTransition(1L, OrderStatus.CONFIRMED, OrderStatus.CONFIRMED, 10L, 5, 10L, 8,
+                null, "Status changed");
+
+        engine.apply(Phase.BEFORE_WRITE, List.of(edit));
+        engine.apply(Phase.AFTER_WRITE, List.of(edit));
+
+        verify(productService, times(1)).tryDecrementStock(10L, 3, 0L);
+        verify(historyRecorder, never()).record(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testHistoryIsRecordedAfterWrite() {
+        engine.apply(Phase.AFTER_WRITE, List.of(move(1, OrderStatus.CONFIRMED, OrderStatus.SHIPPED, 10, 2)));
+
+        verify(historyRecorder, times(1)).record(1L, OrderStatus.CONFIRMED, OrderStatus.SHIPPED, "admin", "test");
+        verify(productService, never()).restock(anyLong(), anyInt());
+    }
+
+    @Test
+    void testLedgerGetsOneRowPerOrderForStockMoves() {
+        OrderTransition edit = new OrderTransition(3L, OrderStatus.CONFIRMED, OrderStatus.CONFIRMED, 10L, 5, 10L, 8,
+                null, "Status changed");
+
+        engine.apply(Phase.AFTER_WRITE, List.of(
+                move(1, OrderStatus.PENDING, OrderStatus.CONFIRMED, 10, 2),
+                move(2, OrderStatus.SHIPPED, OrderStatus.CANCELLED, 10, 3),
+                edit,
+                move(4, OrderStatus.PENDING, OrderStatus.CANCELLED, 10, 7)));
+
+        verify(ledger, times(1)).record(10L, TransactionType.SALE, -2, "Order 1: PENDING to CONFIRMED", 1L);
+        verify(ledger, times(1)).record(10L, TransactionType.RETURN, 3, "Order 2: SHIPPED to CANCELLED", 2L);
+        verify(ledger, times(1)).record(10L, TransactionType.SALE, -3, "Order 3: CONFIRMED to CONFIRMED", 3L);
+        verify(ledger, times(3)).record(anyLong(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void testRegisteredEffectRunsOncePerBatchAfterBuiltIns() {
+        List<Integer> batchSizes = new ArrayList<>();
+        OrderTransitionEngine.Effect counter = transitions -> batchSizes.add(transitions.size());
+        engine.register(OrderStatus.CONFIRMED, OrderStatus.SHIPPED, Phase.AFTER_WRITE, counter);
+        engine.register(OrderStatus.SHIPPED, OrderStatus.COMPLETED, Phase.AFTER_WRITE, counter);
+
+        engine.apply(Phase.AFTER_WRITE, List.of(
+                move(1, OrderStatus.CONFIRMED, OrderStatus.SHIPPED, 10, 2),
+                move(2, OrderStatus.SHIPPED, OrderStatus.COMPLETED, 10, 2),
+                move(3, OrderStatus.PENDING, OrderStatus.CANCELLED, 10, 2)));
+
+        assertEquals(List.of(2), batchSizes);
+        assertThrows(IllegalArgumentException.class,
+                () -> engine.register(OrderStatus.PENDING, OrderStatus.CONFIRMED, Phase.BEFORE_WRITE, counter));
+    }
+}
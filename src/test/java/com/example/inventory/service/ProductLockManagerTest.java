@@ -0,0 +1,150 @@
+package com.example.inventory.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProductLockManagerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductLockManager locks;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        locks = new ProductLockManager(meterRegistry, 100, 200);
+    }
+
+    @Test
+    void testStripeCountRoundsUpToPowerOfTwo() {
+        assertEquals(128, locks.stripeCount());
+    }
+
+    @Test
+    void testSameProductIsSerialized() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?>[] futures = new Future<?>[8];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = pool.submit(() -> {
+                start.await();
+                return locks.withLock(42L, () -> {
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    sleep(5);
+                    inside.decrementAndGet();
+                    return null;
+                });
+            });
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(1, maxInside.get());
+        assertEquals(8, meterRegistry.get("inventory.product.lock.wait").timer().count());
+        assertEquals(0.0, meterRegistry.get("inventory.product.lock.queued").gauge().value());
+    }
+
+    @Test
+    void testDifferentStripesDoNotBlockEachOther() throws Exception {
+        long other = 2L;
+        while (locks.stripe(other) == locks.stripe(1L)) {
+            other++;
+        }
+        long otherProduct = other;
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> locks.withLock(1L, () -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        holder.start();
+        holding.await();
+
+        assertNotEquals(locks.stripe(1L), locks.stripe(otherProduct));
+        assertEquals("done", locks.withLock(otherProduct, () -> "done"));
+
+        release.countDown();
+        holder.join();
+    }
+
+    @Test
+    void testWaitTimesOut() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> locks.withLock(7L, () -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        holder.start();
+        holding.await();
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> locks.withLock(7L, () -> "never"));
+        assertTrue(ex.getMessage().contains("product: 7"));
+
+        release.countDown();
+        holder.join();
+    }
+
+    @Test
+    void testMultiProductLockHoldsEveryStripeAndReleasesThem() throws Exception {
+        List<Long> products = Arrays.asList(1L, 2L, 3L, null);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> locks.withLocks(products, () -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        holder.start();
+        holding.await();
+
+        assertThrows(IllegalStateException.class, () -> locks.withLock(3L, () -> "never"));
+
+        release.countDown();
+        holder.join();
+        assertEquals("ok", locks.withLock(3L, () -> "ok"));
+    }
+
+    @Test
+    void testNullProductRunsUnguarded() {
+        assertEquals("ok", locks.withLock(null, () -> "ok"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.inventory.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProductPriceCacheTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductPriceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ProductPriceCache(productRepository, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization s : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                s.afterCommit();
+            }
+            s.afterCompletion(status);
+        }
+    }
+
+    @Test
+    void testPutGetAndRemoveAcrossResizes() {
+        for (long id = 1; id <= 5000; id++) {
+            cache.put(id, id * 10);
+        }
+        for (long id = 1; id <= 5000; id += 2) {
+            cache.remove(id);
+        }
+
+        assertEquals(2500, cache.size());
+        for (long id = 1; id <= 5000; id++) {
+            assertEquals(id % 2 == 0 ? id * 10 : ProductPriceCache.MISSING, cache.get(id));
+        }
+    }
+
+    @Test
+    void testPriceIsPublishedOnlyAfterCommit() {
+        cache.put(7L, 1000);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.priceChanged(7L, 12.5);
+
+        // not committed yet: readers keep the committed price
+        assertEquals(1000, cache.get(7L));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(1250, cache.get(7L));
+    }
+
+    @Test
+    void testRolledBackPriceIsNeverPublished() {
+        cache.put(7L, 1000);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.priceChanged(7L, 12.5);
+        cache.productDeleted(7L);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(1000, cache.get(7L));
+    }
+
+    @Test
+    void testProductWithoutPriceIsDropped() {
+        cache.priceChanged(7L, 3.0);
+        cache.priceChanged(7L, null);
+
+        assertEquals(ProductPriceCache.MISSING, cache.get(7L));
+    }
+
+    @Test
+    void testLoadDoesNotOverwriteChangesMadeWhileItRan() {
+        cache.put(3L, 300);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {1L, 1.0});
+        rows.add(new Object[] {2L, 2.0});
+        rows.add(new Object[] {3L, 3.5});
+        when(productRepository.findPrices()).thenAnswer(invocation -> {
+            // a save and a delete commit while the load is reading
+            cache.put(1L, 150);
+            cache.remove(2L);
+            return rows;
+        });
+
+        cache.load();
+
+        assertEquals(150, cache.get(1L));
+        assertEquals(ProductPriceCache.MISSING, cache.get(2L));
+        // untouched during the load: the database row wins
+        assertEquals(350, cache.get(3L));
+    }
+
+    @Test
+    void testHitsAndMissesAreCounted() {
+        cache.put(1L, 100);
+
+        cache.get(1L);
+        cache.get(2L);
+
+        assertEquals(1.0, meterRegistry.counter("inventory.price-cache.requests", "result", "hit").count());
+        assertEquals(1.0, meterRegistry.counter("inventory.price-cache.requests", "result", "miss").count());
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.inventory.entity.Category;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.ProductSummary;
+import com.example.inventory.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        index = new ProductSearchIndex(productRepository, meterRegistry, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Product product(long id, String name, String description, Long categoryId, String categoryName) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        product.setPrice(1.0);
+        if (categoryId != null) {
+            Category category = new Category();
+            category.setId(categoryId);
+            category.setName(categoryName);
+            product.setCategory(category);
+        }
+        return product;
+    }
+
+    private List<Long> ids(String query) {
+        List<Long> ids = new ArrayList<>();
+        for (ProductSummary summary : index.search(query, 10)) {
+            ids.add(summary.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    void testMatchesAreRankedNameStartThenWordThenInsideThenOtherText() {
+        index.productSaved(product(1, "Steel bolt M8", "Zinc plated", 10L, "Fasteners"));
+        index.productSaved(product(2, "Bolt", "", 10L, "Fasteners"));
+        index.productSaved(product(3, "Thunderbolt cable", "", 20L, "Electrical"));
+        index.productSaved(product(4, "Hammer", "For nails and bolts", 30L, "Tools"));
+        index.productSaved(product(5, "Washer", "", 10L, "Fasteners"));
+
+        assertEquals(List.of(2L, 1L, 3L, 4L), ids("bolt"));
+        // inside a word
+        assertEquals(List.of(3L), ids("underb"));
+        // description and category name
+        assertEquals(List.of(1L), ids("zinc"));
+        // equal scores: shorter names first
+        assertEquals(List.of(2L, 5L, 1L), ids("fasteners"));
+    }
+
+    @Test
+    void testEveryWordMustMatchAndShortWordsMatchWordStarts() {
+        index.productSaved(product(1, "Steel bolt M8", "", 10L, "Fasteners"));
+        index.productSaved(product(2, "Brass bolt", "", 10L, "Fasteners"));
+        index.productSaved(product(3, "Steel rule", "Electric", 30L, "Tools"));
+
+        assertEquals(List.of(1L), ids("steel bolt"));
+        assertEquals(List.of(1L), ids("BOLT, st"));
+        // "ee" starts no word
+        assertEquals(List.of(), ids("ee"));
+        // "ste", "tee", "eel" and "ele" all occur in product 3, but not as "steele"
+        assertEquals(List.of(), ids("steele"));
+        assertEquals(List.of(), ids("s"));
+    }
+
+    @Test
+    void testAccentsAndPunctuationAreIgnored() {
+        index.productSaved(product(1, "Crème brûlée torch", "", null, null));
+
+        assertEquals(List.of(1L), ids("creme brulee"));
+        assertEquals(List.of(1L), ids("crème-torch"));
+    }
+
+    @Test
+    void testSavedProductIsIndexedOnlyAfterCommit() {
+        index.productSaved(product(1, "Bolt", "", null, null));
+        TransactionSynchronizationManager.initSynchronization();
+
+        index.productSaved(product(1, "Washer", "", null, null));
+        index.productDeleted(1L);
+
+        // not committed yet: searches see the committed product
+        assertEquals(List.of(1L), ids("bolt"));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.get(0).afterCommit();
+
+        assertEquals(List.of(), ids("bolt"));
+        assertEquals(List.of(1L), ids("washer"));
+        synchronizations.get(1).afterCommit();
+        assertEquals(List.of(), ids("washer"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testCategoryRenameReindexesItsProducts() {
+        index.productSaved(product(1, "Bolt", "", 10L, "Fasteners"));
+        index.productSaved(product(2, "Hammer", "", 30L, "Tools"));
+
+        index.categoryRenamed(10L, "Hardware");
+
+        assertEquals(List.of(), ids("fasteners"));
+        assertEquals(List.of(1L), ids("hardware"));
+        assertEquals(List.of(2L), ids("tools"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testManyUpdatesAndDeletesKeepTheIndexConsistent() {
+        for (long id = 1; id <= 3000; id++) {
+            index.productSaved(product(id, "Item " + id, "", null, null));
+        }
+        for (long id = 1; id <= 3000; id++) {
+            if (id % 3 == 0) {
+                index.productDeleted(id);
+            } else {
+                index.productSaved(product(id, "Part " + id, "", null, null));
+            }
+        }
+
+        assertEquals(2000, index.size());
+        assertEquals(List.of(), ids("item"));
+        assertEquals(List.of(2999L), ids("part 2999"));
+        assertEquals(List.of(), ids("part 3000"));
+        assertEquals(ProductSearchIndex.MAX_RESULTS, index.search("part", 1000).size());
+    }
+
+    @Test
+    void testCommonWordStillRanksExactNameFirst() {
+        for (long id = 1; id <= ProductSearchIndex.MAX_CANDIDATES; id++) {
+            index.productSaved(product(id, "Part number " + id, "", null, null));
+        }
+        long last = ProductSearchIndex.MAX_CANDIDATES + 1L;
+        index.productSaved(product(last, "Part", "Zebra", null, null));
+
+        // indexed after more candidates than are scored
+        assertEquals(List.of(last, 1L, 2L), ids("part").subList(0, 3));
+        assertEquals(List.of(last), ids("part zebra"));
+    }
+
+    @Test
+    void testCommonWordScoresNameWordStartsBeforeOtherMatches() {
+        for (long id = 1; id <= ProductSearchIndex.MAX_CANDIDATES; id++) {
+            index.productSaved(product(id, "Item " + id, "Spare part", null, null));
+        }
+        long last = ProductSearchIndex.MAX_CANDIDATES + 1L;
+        index.productSaved(product(last, "Brake part kit", "", null, null));
+
+        // indexed after more description matches than are scored
+        assertEquals(List.of(last, 1L), ids("part").subList(0, 2));
+    }
+
+    @Test
+    void testLoadPagesThroughProductsAndKeepsChangesMadeWhileItRan() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {1L, "Bolt", "", 1.0, 10L, "Fasteners"});
+        rows.add(new Object[] {2L, "Nut", "", 1.0, 10L, "Fasteners"});
+        rows.add(new Object[] {3L, "Hammer", "", 1.0, 30L, "Tools"});
+        when(productRepository.findSearchRowsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int pageSize = invocation.<Pageable>getArgument(1).getPageSize();
+            if (afterId == 0) {
+                // a save, a delete and a rename commit while the load is reading
+                index.productSaved(product(1, "Carriage bolt", "", 10L, "Fasteners"));
+                index.productDeleted(2L);
+                index.categoryRenamed(30L, "Hand tools");
+            }
+            List<Object[]> page = new ArrayList<>();
+            for (Object[] row : rows) {
+                if ((Long) row[0] > afterId && page.size() < pageSize) {
+                    page.add(row);
+                }
+            }
+            return page;
+        });
+
+        index.load();
+
+        assertEquals(List.of(1L), ids("carriage"));
+        assertEquals(List.of(), ids("nut"));
+        assertEquals(List.of(3L), ids("hand"));
+        assertEquals(2, index.size());
+        assertEquals(2.0, meterRegistry.get("inventory.search.documents").gauge().value());
+    }
+}
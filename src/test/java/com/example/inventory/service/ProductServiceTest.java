@@ -0,0 +1,80 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+
+import com.example.inventory.entity.Category;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.ProductSummary;
+import com.example.inventory.repository.CategoryRepository;
+import com.example.inventory.repository.ProductRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProductServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private StockShardService stockShards;
+
+    @Mock
+    private InventoryLedger ledger;
+
+    @Mock
+    private ProductPriceCache priceCache;
+
+    private ProductSearchIndex searchIndex;
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        searchIndex = new ProductSearchIndex(productRepository, new SimpleMeterRegistry(), 2);
+        productService = new ProductService(productRepository, categoryRepository, stockShards, ledger, priceCache,
+                new DataVersions(), searchIndex);
+    }
+
+    @Test
+    void testNewProductFromFormIsSearchableByCategoryName() {
+        Category stored = new Category();
+        stored.setId(10L);
+        stored.setName("Fasteners");
+        when(categoryRepository.findById(10L)).thenReturn(Optional.of(stored));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> {
+            Product saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
+        // the form binds only the category's id
+        Category bound = new Category();
+        bound.setId(10L);
+        Product product = new Product();
+        product.setName("Bolt");
+        product.setPrice(1.0);
+        product.setQuantity(5);
+        product.setCategory(bound);
+
+        productService.saveOrUpdateProduct(product);
+
+        List<Long> ids = new ArrayList<>();
+        for (ProductSummary summary : productService.searchProducts("fasteners", 10)) {
+            ids.add(summary.getId());
+        }
+        assertEquals(List.of(1L), ids);
+        assertEquals("Fasteners", product.getCategory().getName());
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import com.example.inventory.config.CacheConfig;
+import com.example.inventory.entity.Category;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.ProductSummary;
+import com.example.inventory.entity.Supplier;
+import com.example.inventory.repository.CategoryRepository;
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.repository.SupplierRepository;
+
+/**
+ * Checks the cache annotations through real Spring proxies, with mocked repositories and no database.
+ */
+@SpringJUnitConfig
+class ReferenceDataCacheTest {
+
+    @Configuration
+    @EnableCaching
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfig.CATEGORIES, CacheConfig.SUPPLIERS, CacheConfig.PRODUCT_SUMMARIES);
+        }
+
+        @Bean
+        CategoryRepository categoryRepository() {
+            return mock(CategoryRepository.class);
+        }
+
+        @Bean
+        SupplierRepository supplierRepository() {
+            return mock(SupplierRepository.class);
+        }
+
+        @Bean
+        ProductRepository productRepository() {
+            return mock(ProductRepository.class);
+        }
+
+        @Bean
+        DataVersions dataVersions() {
+            return new DataVersions();
+        }
+
+        @Bean
+        CategoryService categoryService(CategoryRepository repository, DataVersions dataVersions) {
+            return new CategoryService(repository, dataVersions, mock(ProductSearchIndex.class));
+        }
+
+        @Bean
+        SupplierService supplierService() {
+            return new SupplierService();
+        }
+
+        @Bean
+        ProductService productService(ProductRepository repository, CategoryRepository categoryRepository,
+                                      DataVersions dataVersions) {
+            return new ProductService(repository, categoryRepository, mock(StockShardService.class), mock(InventoryLedger.class),
+                    mock(ProductPriceCache.class), dataVersions, mock(ProductSearchIndex.class));
+        }
+    }
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    @Autowired
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        reset(categoryRepository, supplierRepository, productRepository);
+        when(categoryRepository.findAll()).thenReturn(new ArrayList<>(List.of(new Category())));
+        when(supplierRepository.findAll()).thenReturn(new ArrayList<>(List.of(new Supplier())));
+        when(productRepository.findSummaries()).thenReturn(List.of(new ProductSummary(1L, "Widget", 9.5)));
+    }
+
+    @Test
+    void testCategoriesAreReadOnceUntilSaved() {
+        categoryService.getAllCategories();
+        categoryService.getAllCategories();
+        verify(categoryRepository, times(1)).findAll();
+
+        Category category = new Category();
+        when(categoryRepository.save(category)).thenReturn(category);
+        categoryService.saveOrUpdateCategory(category);
+        categoryService.getAllCategories();
+        verify(categoryRepository, times(2)).findAll();
+
+        categoryService.deleteCategoryById(1L);
+        categoryService.getAllCategories();
+        verify(categoryRepository, times(3)).findAll();
+    }
+
+    @Test
+    void testCachedCategoriesCannotBeModified() {
+        List<Category> categories = categoryService.getAllCategories();
+
+        assertThrows(UnsupportedOperationException.class, () -> categories.add(new Category()));
+        assertEquals(1, categoryService.getAllCategories().size());
+    }
+
+    @Test
+    void testSuppliersAreEvictedOnSaveAndDelete() {
+        supplierService.getAllSuppliers();
+        supplierService.getAllSuppliers();
+        verify(supplierRepository, times(1)).findAll();
+
+        supplierService.saveOrUpdateSupplier(new Supplier());
+        supplierService.getAllSuppliers();
+        verify(supplierRepository, times(2)).findAll();
+
+        supplierService.deleteSupplier(1L);
+        supplierService.getAllSuppliers();
+        verify(supplierRepository, times(3)).findAll();
+    }
+
+    @Test
+    void testProductSummariesSurviveStockMovesButNotSaves() {
+        when(productRepository.incrementQuantity(1L, 5)).thenReturn(1);
+        when(productRepository.save(any(Product.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        productService.getProductSummaries();
+        productService.restock(1L, 5);
+        productService.getProductSummaries();
+        verify(productRepository, times(1)).findSummaries();
+
+        Product product = new Product();
+        product.setId(1L);
+        product.setQuantity(5);
+        productService.saveOrUpdateProduct(product);
+        productService.getProductSummaries();
+        verify(productRepository, times(2)).findSummaries();
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.inventory.entity.Order;
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.StockReservation;
+import com.example.inventory.repository.StockReservationRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReservationServiceTest {
+
+    @Mock
+    private StockReservationRepository repository;
+
+    @Mock
+    private StockShardService stockShards;
+
+    private ReservationService reservationService;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        reservationService = new ReservationService(repository, stockShards, TransactionOperations.withoutTransaction(),
+                new SimpleMeterRegistry(), 60_000L, 2);
+        product = new Product();
+        product.setId(1L);
+        product.setName("Widget");
+        product.setQuantity(10);
+    }
+
+    private Order order(long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setProduct(product);
+        return order;
+    }
+
+    private StockReservation reservation(long id, long orderId, int quantity) {
+        StockReservation reservation = new StockReservation();
+        reservation.setId(id);
+        reservation.setOrder(order(orderId));
+        reservation.setProduct(product);
+        reservation.setQuantity(quantity);
+        return reservation;
+    }
+
+    @Test
+    void testHoldsReduceAvailableToPromise() {
+        reservationService.hold(order(1L), product, 6);
+
+        assertEquals(6, reservationService.getHeldQuantity(1L));
+        assertEquals(4, reservationService.getAvailableToPromise(product));
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> reservationService.hold(order(2L), product, 5));
+        assertEquals("Insufficient available stock for product: Widget", ex.getMessage());
+        verify(repository, times(1)).save(any(StockReservation.class));
+    }
+
+    @Test
+    void testShardedProductIsAvailableUpToItsShardTotal() {
+        // the row still holds the last rollup, 10; orders have since taken 7 from the shards
+        when(stockShards.isSharded(1L)).thenReturn(true);
+        when(stockShards.getTotal(1L)).thenReturn(3);
+        reservationService.hold(order(1L), product, 2);
+
+        assertEquals(1, reservationService.getAvailableToPromise(product));
+        assertThrows(IllegalStateException.class, () -> reservationService.hold(order(2L), product, 2));
+    }
+
+    @Test
+    void testReleaseFreesHeldUnits() {
+        reservationService.hold(order(1L), product, 6);
+        when(repository.findByOrderId(1L)).thenReturn(reservation(5L, 1L, 6));
+        when(repository.deleteReservation(5L)).thenReturn(1);
+
+        assertEquals(6, reservationService.release(1L));
+        assertEquals(0, reservationService.getHeldQuantity(1L));
+    }
+
+    @Test
+    void testReleaseAfterSweepDoesNotSubtractTwice() {
+        reservationService.hold(order(1L), product, 6);
+        when(repository.findByOrderId(1L)).thenReturn(reservation(5L, 1L, 6));
+        when(repository.deleteReservation(5L)).thenReturn(0);
+
+        assertEquals(0, reservationService.release(1L));
+        assertEquals(6, reservationService.getHeldQuantity(1L));
+    }
+
+    @Test
+    void testSweepReleasesExpiredHoldsInBatches() {
+        reservationService.hold(order(1L), product, 2);
+        reservationService.hold(order(2L), product, 3);
+        reservationService.hold(order(3L), product, 4);
+        List<StockReservation> first = List.of(reservation(11L, 1L, 2), reservation(12L, 2L, 3));
+        List<StockReservation> second = List.of(reservation(13L, 3L, 4));
+        when(repository.findExpiredForUpdate(any(), any())).thenReturn(first, second);
+
+        assertEquals(3, reservationService.sweepExpired());
+        assertEquals(0, reservationService.getHeldQuantity(1L));
+        verify(repository, times(2)).deleteReservations(anyCollection());
+    }
+
+    @Test
+    void testRolledBackHoldIsNotCounted() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            reservationService.hold(order(1L), product, 6);
+            assertEquals(6, reservationService.getHeldQuantity(1L));
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(0, reservationService.getHeldQuantity(1L));
+    }
+
+    @Test
+    void testLoadHoldsRebuildsTotals() {
+        List<Object[]> totals = new ArrayList<>();
+        totals.add(new Object[] {1L, 7L});
+        when(repository.sumQuantityByProduct()).thenReturn(totals);
+
+        reservationService.loadHolds();
+
+        assertEquals(7, reservationService.getHeldQuantity(1L));
+        assertEquals(3, reservationService.getAvailableToPromise(product));
+        verify(repository, never()).save(any());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.inventory.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StockFileSorterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static ByteArrayInputStream csv(String body) {
+        return new ByteArrayInputStream(("Product ID,Quantity\n" + body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long runFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void testSortsAcrossManyRunsWithMultiPassMerge() throws IOException {
+        Random random = new Random(42);
+        StringBuilder body = new StringBuilder();
+        TreeMap<Long, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 1000; i++) {
+            long id = 1 + random.nextInt(300);
+            int quantity = random.nextInt(50);
+            body.append(id).append(',').append(quantity).append('\n');
+            expected.merge(id, quantity, Integer::sum);
+        }
+        // 1000 lines in runs of 7, merged 3 at a time
+        StockFileSorter sorter = new StockFileSorter(7, 3, tempDir);
+
+        List<Long> ids = new ArrayList<>();
+        try (StockFileSorter.Sorted sorted = sorter.sort(csv(body.toString()))) {
+            assertTrue(runFiles() <= 3);
+            while (sorted.next()) {
+                ids.add(sorted.productId());
+                assertEquals(expected.get(sorted.productId()), sorted.quantity());
+            }
+        }
+
+        assertEquals(new ArrayList<>(expected.keySet()), ids);
+        assertEquals(0, runFiles());
+    }
+
+    @Test
+    void testBadLinesAreCountedAndSkipped() throws IOException {
+        StockFileSorter sorter = new StockFileSorter(100, 8, tempDir);
+
+        try (StockFileSorter.Sorted sorted = sorter.sort(csv("5,1\nx,2\n3,\n2,4\n"))) {
+            assertTrue(sorted.next());
+            assertEquals(2L, sorted.productId());
+            assertTrue(sorted.next());
+            assertEquals(5L, sorted.productId());
+            assertFalse(sorted.next());
+            assertEquals(2, sorted.getInvalidLines());
+        }
+    }
+
+    @Test
+    void testEmptyFileHasNoRecords() throws IOException {
+        StockFileSorter sorter = new StockFileSorter(10, 2, tempDir);
+
+        try (StockFileSorter.Sorted sorted = sorter.sort(csv(""))) {
+            assertFalse(sorted.next());
+        }
+        assertEquals(0, runFiles());
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.example.inventory.entity.TransactionType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StockMovementIngestorTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private InventoryLedger ledger;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private StockMovementIngestor ingestor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        // not started: tests drain on their own thread
+        ingestor = new StockMovementIngestor(productService, ledger, jdbcTemplate, TransactionOperations.withoutTransaction(),
+                meterRegistry, true, 8, 100, 10);
+        when(productService.tryDecrementStock(anyLong(), anyInt())).thenReturn(true);
+    }
+
+    @Test
+    void testMovementsAreCoalescedPerProduct() {
+        ingestor.publish(1L, TransactionType.SALE, 2);
+        ingestor.publish(2L, TransactionType.RECEIPT, 10);
+        ingestor.publish(1L, TransactionType.SALE, 3);
+        ingestor.publish(1L, TransactionType.RETURN, 1);
+
+        assertEquals(4, ingestor.drain());
+
+        verify(productService, times(1)).tryDecrementStock(1L, 4);
+        verify(productService, times(1)).restock(2L, 10);
+        verify(ledger).record(1L, TransactionType.SALE, -5, "2 scanned movements", null);
+        verify(ledger).record(1L, TransactionType.RETURN, 1, "1 scanned movement", null);
+        verify(ledger).record(2L, TransactionType.RECEIPT, 10, "1 scanned movement", null);
+        assertEquals(4.0, meterRegistry.counter("inventory.movements.applied").count());
+        assertEquals(0, ingestor.depth());
+    }
+
+    @Test
+    void testNetZeroLeavesStockAloneButRecordsLedger() {
+        ingestor.publish(1L, TransactionType.SALE, 2);
+        ingestor.publish(1L, TransactionType.RETURN, 2);
+
+        ingestor.drain();
+
+        verify(productService, never()).tryDecrementStock(anyLong(), anyInt());
+        verify(productService, never()).restock(anyLong(), anyInt());
+        verify(ledger).record(1L, TransactionType.SALE, -2, "1 scanned movement", null);
+        verify(ledger).record(1L, TransactionType.RETURN, 2, "1 scanned movement", null);
+    }
+
+    @Test
+    void testFullRingRejectsWithoutBlocking() {
+        for (int i = 0; i < 8; i++) {
+            assertTrue(ingestor.tryPublish(1L, TransactionType.SALE, 1));
+        }
+        assertFalse(ingestor.tryPublish(1L, TransactionType.SALE, 1));
+        // no consumer is running to make room
+        assertThrows(IllegalStateException.class, () -> ingestor.publish(1L, TransactionType.SALE, 1));
+        verifyNoInteractions(productService);
+
+        assertEquals(8, ingestor.drain());
+        assertTrue(ingestor.tryPublish(1L, TransactionType.SALE, 1));
+        assertEquals(1, ingestor.drain());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testInsufficientStockRejectsOnlyThatProduct() {
+        when(productService.tryDecrementStock(1L, 5)).thenReturn(false);
+        ingestor.publish(1L, TransactionType.SALE, 5);
+        ingestor.publish(2L, TransactionType.SALE, 1);
+        ingestor.publish(2L, TransactionType.SALE, 1);
+
+        ingestor.drain();
+
+        verify(productService, times(1)).tryDecrementStock(2L, 2);
+        verify(ledger).record(2L, TransactionType.SALE, -2, "2 scanned movements", null);
+        verify(ledger, never()).record(eq(1L), eq(TransactionType.SALE), anyInt(), anyString(), isNull());
+        assertEquals(1.0, meterRegistry.counter("inventory.movements.rejected").count());
+        assertEquals(2.0, meterRegistry.counter("inventory.movements.applied").count());
+        // kept for reprocessing, one row per product and type
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(StockMovementIngestor.INSERT_REJECT), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        Object[] row = rows.getValue().get(0);
+        assertEquals(List.of(1L, "SALE", -5, 1, "Insufficient inventory for product: 1"), Arrays.asList(row).subList(0, 5));
+    }
+
+    @Test
+    void testInvalidBatchPublishesNothing() {
+        List<StockMovementIngestor.Movement> movements = List.of(
+                new StockMovementIngestor.Movement(1L, TransactionType.SALE, 1),
+                new StockMovementIngestor.Movement(2L, TransactionType.SALE, 0));
+
+        assertThrows(IllegalArgumentException.class, () -> ingestor.tryPublishAll(movements));
+        assertEquals(0, ingestor.depth());
+    }
+
+    @Test
+    void testPublishAllStopsWhenRingIsFull() {
+        List<StockMovementIngestor.Movement> movements = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            movements.add(new StockMovementIngestor.Movement((long) i, TransactionType.RECEIPT, 1));
+        }
+
+        assertEquals(8, ingestor.tryPublishAll(movements));
+        assertEquals(8.0, meterRegistry.counter("inventory.movements.published").count());
+    }
+}
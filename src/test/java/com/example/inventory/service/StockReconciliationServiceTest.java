@@ -0,0 +1,68 @@
+package com.example.inventory.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+
+import com.example.inventory.repository.ProductRepository;
+
+class StockReconciliationServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private StockReconciliationService reconciliation;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // pages of two products, so the merge crosses page boundaries
+        reconciliation = new StockReconciliationService(productRepository, new StockFileSorter(2, 2, tempDir), 2, "");
+    }
+
+    private static Object[] product(long id, String name, Integer quantity) {
+        return new Object[] {id, name, quantity};
+    }
+
+    @Test
+    void testMergeJoinReportsEveryKindOfDiscrepancy() throws Exception {
+        when(productRepository.findStockAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(product(1L, "Bolt", 10), product(2L, "Nut", 5)));
+        when(productRepository.findStockAfter(eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(product(4L, "Washer", 7), product(6L, "Screw", null)));
+        when(productRepository.findStockAfter(eq(6L), any(Pageable.class))).thenReturn(List.of());
+        String file = "Product ID,Quantity\n6,0\n4,3\n1,6\n3,9\n1,4\n";
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+        StockReconciliationService.Result result = reconciliation.reconcile(
+                new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)), report);
+
+        assertEquals(3, result.getCompared());
+        assertEquals(2, result.getMatched());
+        assertEquals(1, result.getMismatched());
+        assertEquals(1, result.getMissingInFile());
+        assertEquals(1, result.getUnknownProducts());
+        List<String> lines = report.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(List.of(
+                "Product ID,Name,System Quantity,File Quantity,Difference,Status",
+                "2,Nut,5,,-5,MISSING_IN_FILE",
+                "3,,,9,9,UNKNOWN_PRODUCT",
+                "4,Washer,7,3,-4,MISMATCH"), lines);
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.example.inventory.entity.Product;
+import com.example.inventory.entity.ProductStockShard;
+import com.example.inventory.repository.ProductRepository;
+import com.example.inventory.repository.ProductStockShardRepository;
+
+class StockShardServiceTest {
+
+    @Mock
+    private ProductStockShardRepository shardRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private StockShardService stockShards;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        stockShards = new StockShardService(shardRepository, productRepository, TransactionOperations.withoutTransaction(),
+                new DataVersions(), 4);
+    }
+
+    private static List<Object[]> quantities(int... perShard) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < perShard.length; i++) {
+            rows.add(new Object[] {i, perShard[i]});
+        }
+        return rows;
+    }
+
+    private static List<ProductStockShard> shards(int... perShard) {
+        List<ProductStockShard> shards = new ArrayList<>();
+        for (int i = 0; i < perShard.length; i++) {
+            ProductStockShard shard = new ProductStockShard();
+            shard.setShardNo(i);
+            shard.setQuantity(perShard[i]);
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    @Test
+    void testDecrementUsesSingleShardWithCapacity() {
+        when(shardRepository.findShardQuantities(1L)).thenReturn(quantities(1, 0, 5, 2));
+        when(shardRepository.decrementShard(1L, 2, 3)).thenReturn(1);
+
+        assertTrue(stockShards.tryDecrement(1L, 3, 0));
+        verify(shardRepository, never()).findByProductIdForUpdate(anyLong());
+    }
+
+    @Test
+    void testDecrementDrainsSeveralShardsWhenNoneIsBigEnough() {
+        when(shardRepository.findShardQuantities(1L)).thenReturn(quantities(2, 2, 2, 2));
+        List<ProductStockShard> locked = shards(2, 2, 2, 2);
+        when(shardRepository.findByProductIdForUpdate(1L)).thenReturn(locked);
+
+        assertTrue(stockShards.tryDecrement(1L, 5, 0));
+        assertEquals(0, locked.get(0).getQuantity());
+        assertEquals(0, locked.get(1).getQuantity());
+        assertEquals(1, locked.get(2).getQuantity());
+        assertEquals(2, locked.get(3).getQuantity());
+        verify(shardRepository, never()).decrementShard(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testDecrementFailsWhenTotalIsShort() {
+        when(shardRepository.findShardQuantities(1L)).thenReturn(quantities(1, 1, 1, 1));
+        List<ProductStockShard> locked = shards(1, 1, 1, 1);
+        when(shardRepository.findByProductIdForUpdate(1L)).thenReturn(locked);
+
+        assertFalse(stockShards.tryDecrement(1L, 5, 0));
+        assertEquals(1, locked.get(0).getQuantity());
+    }
+
+    @Test
+    void testDecrementLeavesUnitsHeldForOtherOrders() {
+        List<ProductStockShard> locked = shards(3, 3, 2, 2);
+        when(shardRepository.findByProductIdForUpdate(1L)).thenReturn(locked);
+
+        // 10 on hand, 8 held: a shard could give 3, but only 2 are free
+        assertFalse(stockShards.tryDecrement(1L, 3, 8));
+        assertEquals(10, locked.stream().mapToInt(ProductStockShard::getQuantity).sum());
+        verify(shardRepository, never()).decrementShard(anyLong(), anyInt(), anyInt());
+
+        assertTrue(stockShards.tryDecrement(1L, 2, 8));
+        assertEquals(8, locked.stream().mapToInt(ProductStockShard::getQuantity).sum());
+    }
+
+    @Test
+    void testConcurrentDecrementsDoNotSellHeldUnits() throws Exception {
+        // the shard rows: single-shard UPDATEs are atomic, and the row locks last until the caller commits
+        List<ProductStockShard> rows = shards(3, 3, 2, 2);
+        ReentrantLock rowLocks = new ReentrantLock();
+        CyclicBarrier bothRead = new CyclicBarrier(2);
+        when(shardRepository.findShardQuantities(1L)).thenAnswer(invocation -> {
+            List<Object[]> read;
+            synchronized (rows) {
+                read = quantities(rows.stream().mapToInt(ProductStockShard::getQuantity).toArray());
+            }
+            bothRead.await(5, TimeUnit.SECONDS);
+            return read;
+        });
+        when(shardRepository.decrementShard(eq(1L), anyInt(), anyInt())).thenAnswer(invocation -> {
+            synchronized (rows) {
+                ProductStockShard shard = rows.get(invocation.<Integer>getArgument(1));
+                int qty = invocation.getArgument(2);
+                if (shard.getQuantity() < qty) {
+                    return 0;
+                }
+                shard.setQuantity(shard.getQuantity() - qty);
+                return 1;
+            }
+        });
+        when(shardRepository.findByProductIdForUpdate(1L)).thenAnswer(invocation -> {
+            rowLocks.lock();
+            return rows;
+        });
+
+        // 10 on hand, 7 held for pending orders: only one of the two confirmations of 3 may succeed
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(executor.submit(() -> {
+                    try {
+                        return stockShards.tryDecrement(1L, 3, 7);
+                    } finally {
+                        if (rowLocks.isHeldByCurrentThread()) {
+                            rowLocks.unlock();
+                        }
+                    }
+                }));
+            }
+            int sold = 0;
+            for (Future<Boolean> result : results) {
+                sold += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+
+            assertEquals(1, sold);
+            assertEquals(7, rows.stream().mapToInt(ProductStockShard::getQuantity).sum());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testDecrementFallsBackWhenShardRaceIsLost() {
+        when(shardRepository.findShardQuantities(1L)).thenReturn(quantities(0, 3, 0, 3));
+        when(shardRepository.decrementShard(eq(1L), anyInt(), eq(3))).thenReturn(0);
+        List<ProductStockShard> locked = shards(0, 1, 0, 2);
+        when(shardRepository.findByProductIdForUpdate(1L)).thenReturn(locked);
+
+        assertTrue(stockShards.tryDecrement(1L, 3, 0));
+        assertEquals(0, locked.get(1).getQuantity());
+        assertEquals(0, locked.get(3).getQuantity());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSyncSpreadsHotProductQuantity() {
+        Product product = new Product();
+        product.setId(1L);
+        product.setQuantity(10);
+        product.setHot(true);
+        when(shardRepository.findByProductIdForUpdate(1L)).thenReturn(new ArrayList<>());
+
+        assertEquals(0, stockShards.sync(product, null));
+
+        ArgumentCaptor<List<ProductStockShard>> saved = ArgumentCaptor.forClass(List.class);
+        verify(shardRepository).saveAll(saved.capture());
+        assertEquals(List.of(3, 3, 2, 2), saved.getValue().stream().map(ProductStockShard::getQuantity).toList());
+        assertTrue(stockShards.isSharded(1L));
+    }
+
+    @Test
+    void testSaveWithUnchangedQuantityKeepsUnrolledShardMoves() {
+        when(shardRepository.findShardQuantities(1L)).thenReturn(quantities(3, 3, 2, 2));
+        when(shardRepository.decrementShard(eq(1L), anyInt(), eq(3))).thenReturn(0);
+        List<ProductStockShard> locked = shards(3, 3, 2, 2);
+        when(shardRepository.findByProductIdForUpdate(1L)).thenReturn(locked);
+        assertTrue(stockShards.tryDecrement(1L, 3, 0));
+        // the row still holds the last rollup, 10, and so does the form
+        Product product = new Product();
+        product.setId(1L);
+        product.setQuantity(10);
+        product.setHot(true);
+
+        assertEquals(7, stockShards.sync(product, 10));
+
+        assertEquals(7, locked.stream().mapToInt(ProductStockShard::getQuantity).sum());
+        assertEquals(7, product.getQuantity());
+        verify(shardRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testSyncAppliesOnlyTheEditToTheShardTotal() {
+        List<ProductStockShard> locked = shards(2, 2, 2, 1);
+        when(shardRepository.findByProductIdForUpdate(1L)).thenReturn(locked);
+        Product product = new Product();
+        product.setId(1L);
+        product.setQuantity(12);
+        product.setHot(true);
+
+        assertEquals(7, stockShards.sync(product, 10));
+
+        assertEquals(9, locked.stream().mapToInt(ProductStockShard::getQuantity).sum());
+        assertEquals(9, product.getQuantity());
+    }
+
+    @Test
+    void testSyncRemovesShardsWhenProductCoolsDown() {
+        when(productRepository.findHotProductIds()).thenReturn(List.of(1L));
+        stockShards.loadShardedProducts();
+        when(shardRepository.findByProductIdForUpdate(1L)).thenReturn(shards(1, 1, 1, 1));
+        Product product = new Product();
+        product.setId(1L);
+        product.setQuantity(10);
+
+        assertEquals(4, stockShards.sync(product, 10));
+
+        // units sold since the last rollup stay sold
+        assertEquals(4, product.getQuantity());
+        verify(shardRepository).deleteByProductId(1L);
+        assertFalse(stockShards.isSharded(1L));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.inventory.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class TransactionCallbacksTest {
+
+    private final List<String> ran = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /** End the current transaction with {@code status}, the way the transaction manager does. */
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    @Test
+    void testAfterCommitRunsAtOnceOutsideTransaction() {
+        TransactionCallbacks.afterCommit(() -> ran.add("commit"));
+        TransactionCallbacks.unlessCommitted(() -> ran.add("undo"));
+
+        assertEquals(List.of("commit"), ran);
+    }
+
+    @Test
+    void testAfterCommitWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionCallbacks.afterCommit(() -> ran.add("commit"));
+        TransactionCallbacks.unlessCommitted(() -> ran.add("undo"));
+        assertEquals(List.of(), ran);
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(List.of("commit"), ran);
+    }
+
+    @Test
+    void testRollbackRunsOnlyTheUndo() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionCallbacks.afterCommit(() -> ran.add("commit"));
+        TransactionCallbacks.unlessCommitted(() -> ran.add("undo"));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(List.of("undo"), ran);
+    }
+}